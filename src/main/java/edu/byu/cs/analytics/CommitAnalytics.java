@@ -6,16 +6,15 @@ import edu.byu.cs.canvas.CanvasService;
 import edu.byu.cs.canvas.model.CanvasSection;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
-import edu.byu.cs.dataAccess.SubmissionDao;
+import edu.byu.cs.model.CommitStats;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Submission;
 import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.DateTimeUtils;
-import edu.byu.cs.util.FileUtils;
 import edu.byu.cs.util.PhaseUtils;
 import org.eclipse.jgit.annotations.NonNull;
 import org.eclipse.jgit.annotations.Nullable;
-import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
@@ -23,22 +22,45 @@ import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.StopWalkException;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.patch.FileHeader;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Analyzes the commit history of every student with a GitHub repo URL submission
  */
 public class CommitAnalytics {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommitAnalytics.class);
+
+    /** Diffs commits for every verification in progress, so concurrent gradings share the cores. */
+    private static final ForkJoinPool DIFF_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /** Below this many commits per worker, the diffs are cheaper to run on the calling thread. */
+    private static final int MIN_DIFFS_PER_WORKER = 16;
+
     /**
      * Given an iterable of commits and two timestamps, creates a map of day to number of commits on that day,
      * counting only commits within the bounds presented.
@@ -60,9 +82,15 @@ public class CommitAnalytics {
             throw new IllegalArgumentException("Both bounds must not be null");
         }
 
+        try (RevWalk revWalk = new RevWalk(git.getRepository())) {
+            return countCommitsByDay(git, revWalk, lowerBound, upperBound);
+        }
+    }
+
+    private static CommitsByDay countCommitsByDay(
+            Git git, RevWalk revWalk, CommitThreshold lowerBound, CommitThreshold upperBound) throws IOException {
         // Prepare data for repeated calculation
-        DiffFormatter diffFormatter = prepareDiffFormatter(git);
-        CommitsBetweenBounds commitsBetweenBounds = getCommitsBetweenBounds(git, upperBound.commitHash(), lowerBound.commitHash());
+        CommitsBetweenBounds commitsBetweenBounds = getCommitsBetweenBounds(revWalk, upperBound.commitHash(), lowerBound);
         long lowerTimeBoundSecs = lowerBound.timestamp().getEpochSecond();
         long upperTimeBoundSecs = upperBound.timestamp().getEpochSecond();
 
@@ -70,7 +98,7 @@ public class CommitAnalytics {
         Map<String, Integer> days = new TreeMap<>();
         int singleParentCommits = 0;
         int mergeCommits = 0;
-        List<Integer> changesPerCommit = new LinkedList<>();
+        List<Integer> changesPerCommit = new ArrayList<>();
         Map<String, List<String>> erroringCommits = new HashMap<>();
         boolean commitsInOrder = true;
         boolean commitsInFuture = false;
@@ -85,12 +113,21 @@ public class CommitAnalytics {
             groupCommitsByKey(erroringCommits, "missingTailHash", lowerBound.commitHash());
         }
 
+        // Commits seen in earlier submissions don't need to be diffed again
+        List<RevCommit> commits = new ArrayList<>();
+        commitsBetweenBounds.commits().forEach(commits::add);
+        Map<String, CommitStats> knownStats = getKnownStats(commits);
+        List<CommitStats> newStats = new ArrayList<>();
+        List<PendingDiff> pendingDiffs = new ArrayList<>();
+
         // Iteration helpers
+        CommitStats stats;
         CommitTimestamps commitTimes;
         String commitHash;
-        for (RevCommit rc : commitsBetweenBounds.commits()) {
-            commitTimes = getCommitTime(rc);
+        for (RevCommit rc : commits) {
             commitHash = rc.getName();
+            stats = knownStats.get(commitHash);
+            commitTimes = stats != null ? getCommitTime(stats) : getCommitTime(rc);
             if (commitTimes.seconds <= lowerTimeBoundSecs) {
                 groupCommitsByKey(erroringCommits, "commitsInPast", commitHash);
                 commitsInPast = true;
@@ -103,8 +140,8 @@ public class CommitAnalytics {
                 commitsInFuture = true;
             }
 
-            for (var pc : getCommitParents(git, rc)) {
-                if (commitTimes.seconds < getCommitTime(pc).seconds) {
+            for (long parentSeconds : getParentTimes(revWalk, rc, knownStats)) {
+                if (commitTimes.seconds < parentSeconds) {
                     // Verifies that all parents are older than the child
                     groupCommitsByKey(erroringCommits, "commitsInOrder", commitHash);
                     commitsInOrder = false;
@@ -115,16 +152,26 @@ public class CommitAnalytics {
             // Skip merge commits
             if (rc.getParentCount() > 1) {
                 ++mergeCommits;
+                if (stats == null) {
+                    newStats.add(new CommitStats(commitHash, -1, commitTimes.commit, commitTimes.author,
+                            rc.getParentCount(), detectCommitBackdating(commitTimes)));
+                }
                 continue;
             }
 
-            if (detectCommitBackdating(commitTimes)) {
+            boolean backdated = stats != null ? stats.backdated() : detectCommitBackdating(commitTimes);
+            if (backdated) {
                 groupCommitsByKey(erroringCommits, "commitsBackdated", commitHash);
                 commitsBackdated = true;
             }
 
-            // Count changes in each commit
-            changesPerCommit.add(getNumChangesInCommit(diffFormatter, rc));
+            // Count changes in each commit, diffing new commits once the whole range is known
+            if (stats != null) {
+                changesPerCommit.add(stats.changes());
+            } else {
+                pendingDiffs.add(new PendingDiff(rc, changesPerCommit.size(), commitTimes, backdated));
+                changesPerCommit.add(null);
+            }
             groupCommitsByKey(commitsByTimestamp, commitTimes.seconds, commitHash);
 
             // Add the commit to results
@@ -133,6 +180,15 @@ public class CommitAnalytics {
             ++singleParentCommits;
         }
 
+        int[] changes = countChangesInCommits(git, pendingDiffs.stream().map(PendingDiff::commit).toList());
+        for (int i = 0; i < pendingDiffs.size(); ++i) {
+            PendingDiff pending = pendingDiffs.get(i);
+            changesPerCommit.set(pending.position(), changes[i]);
+            newStats.add(new CommitStats(pending.commit().getName(), changes[i], pending.times().commit,
+                    pending.times().author, pending.commit().getParentCount(), pending.backdated()));
+        }
+        saveNewStats(newStats);
+
         // Check for multiple commits with the same timestamp
         var duplicatedTimestampCommits = analyzeDuplicatedTimestamps(commitsByTimestamp);
         if (!duplicatedTimestampCommits.isEmpty()) {
@@ -147,6 +203,37 @@ public class CommitAnalytics {
                 lowerBound, upperBound);
     }
 
+    /**
+     * Looks up the saved stats of the given commits and their parents.
+     * Failing to read them only means the commits are analyzed again.
+     */
+    private static Map<String, CommitStats> getKnownStats(List<RevCommit> commits) {
+        Set<String> hashes = new HashSet<>();
+        for (RevCommit commit : commits) {
+            hashes.add(commit.getName());
+            for (RevCommit parent : commit.getParents()) {
+                hashes.add(parent.getName());
+            }
+        }
+        try {
+            return DaoService.getCommitStatsDao().getStats(hashes);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not read saved commit stats; analyzing every commit", e);
+            return Map.of();
+        }
+    }
+
+    private static void saveNewStats(List<CommitStats> newStats) {
+        if (newStats.isEmpty()) {
+            return;
+        }
+        try {
+            DaoService.getCommitStatsDao().insertStats(newStats);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not save the stats of {} commits", newStats.size(), e);
+        }
+    }
+
     private static <T> void groupCommitsByKey(Map<T, List<String>> dataMap, T groupId, String commitHash) {
         dataMap.putIfAbsent(groupId, new LinkedList<>());
         dataMap.get(groupId).add(commitHash);
@@ -162,37 +249,52 @@ public class CommitAnalytics {
     }
 
 
+    /**
+     * Returns the timestamps, in seconds, of the parents of the specified commit.
+     * Saved stats are used when every parent has them; otherwise the parents are read from the repo.
+     */
+    private static long[] getParentTimes(RevWalk revWalk, RevCommit commit, Map<String, CommitStats> knownStats)
+            throws IOException {
+        RevCommit[] parents = commit.getParents();
+        long[] parentTimes = new long[parents.length];
+        for (int i = 0; i < parents.length; ++i) {
+            CommitStats parentStats = knownStats.get(parents[i].getName());
+            if (parentStats == null) {
+                parentTimes = null;
+                break;
+            }
+            parentTimes[i] = getCommitTime(parentStats).seconds;
+        }
+        if (parentTimes != null) return parentTimes;
+
+        parents = getCommitParents(revWalk, commit);
+        parentTimes = new long[parents.length];
+        for (int i = 0; i < parents.length; ++i) {
+            parentTimes[i] = getCommitTime(parents[i]).seconds;
+        }
+        return parentTimes;
+    }
+
     /**
      * Returns the parents of the specified commit with a buffer included for detailed parsing.
-     * If the data isn't immediately available, it will be freshly retrieved from the repo.
+     * If the data isn't immediately available, it will be read on the same walk that produced the commit.
      * <br>
      * This method works even when the parents of the commit were marked as "uninteresting" during
      * initial processing. When this happens, the library includes the parents but excludes
      * all buffer data which causes a NPE when attempting to access their authorship data.
      *
-     * @param git The Git repo being processed
+     * @param revWalk The walk that produced the commit
      * @param commit An existing {@link RevCommit} that will be traversed.
      * @return An array of RevCommits representing all parents, or an empty array.
      * @throws IOException When Jgit has an issue reading the disk.
      */
-    private static RevCommit[] getCommitParents(Git git, RevCommit commit) throws IOException {
-        // If the parents are already available, return them. Otherwise, fetch them anew from Git with a RevWalk
-        var allParentsHaveBuffer = true;
+    private static RevCommit[] getCommitParents(RevWalk revWalk, RevCommit commit) throws IOException {
+        // Generally speaking, only the parents of the first commit authored after a passing submission lack a buffer.
         var parents = commit.getParents();
         for (var parent : parents) {
-            allParentsHaveBuffer &= parent.getRawBuffer() != null;
-        }
-
-        if (allParentsHaveBuffer) return parents;
-
-        // Replace existing parent commit objects with freshly loaded objects from the repo
-        // RevWalk.parseCommit is expensive and can be used multiple times, but only once per commit.
-        // That is sufficient for our purposes here.
-        // Generally speaking, this code will only on run the first commit authored after a passing submission.
-        var revWalk = new RevWalk(git.getRepository());
-        for (int i = 0; i < parents.length; ++i) {
-            if (parents[i].getRawBuffer() != null) continue;
-            parents[i] = revWalk.parseCommit(parents[i].toObjectId());
+            if (parent.getRawBuffer() == null) {
+                revWalk.parseBody(parent);
+            }
         }
         return parents;
     }
@@ -200,49 +302,88 @@ public class CommitAnalytics {
     /**
      * Responsible for providing an iterable of the commits to analyze for this phase,
      * along with some status flags indicating how they were retrieved.
-     *
+     * <br>
      * Generally, this will result in only the new commits since the last submission being evaluated.
-     * However, if the previous submission commit is missing, or if this is the first submission,
-     * then the entire history will be provided.
-     *
+     * If this is the first submission, then the entire history will be provided.
+     * <br>
+     * Commits are produced newest first by commit time. When there is no tail commit to stop at, because
+     * none was given or it is missing, the walk instead ends after producing one commit older than the
+     * lower bound, minus {@link #CLOCK_SKEW_SLACK}. That commit is enough to flag the history,
+     * and the rest of it is not read.
+     * <br>
      * If a tail commit was expected, but not found, that will be reported as a flag.
      *
-     * @param git An open Git repo
+     * @param revWalk A fresh walk over the repo
      * @param headHash The current head hash to evaluate.
-     * @param tailHash The previous submission head hash, if any.
+     * @param lowerBound The previous submission, if any.
      * @return {@link CommitsBetweenBounds} containing the iterable of commits and other flags.
      * @throws IncorrectObjectTypeException When the GitAPI is used incorrectly.
-     * @throws MissingObjectException When the ead hash cannot be found. If the tailhash cannot be found,
-     * the entire history will be evaluated and the issue flagged.
-     * @throws GitAPIException When the GitAPI has an issue
+     * @throws MissingObjectException When the head hash cannot be found. If the tail hash cannot be found,
+     * the history back to the lower bound will be evaluated and the issue flagged.
      */
     private static CommitsBetweenBounds getCommitsBetweenBounds(
-            Git git, @NonNull String headHash, @Nullable String tailHash)
-            throws IncorrectObjectTypeException, MissingObjectException, GitAPIException {
-        if (git == null || headHash == null) {
-            throw new RuntimeException("Git and headHash are both required parameters.");
+            RevWalk revWalk, @NonNull String headHash, @NonNull CommitThreshold lowerBound)
+            throws IOException {
+        if (revWalk == null || headHash == null) {
+            throw new RuntimeException("RevWalk and headHash are both required parameters.");
         }
 
-        ObjectId headObjId = ObjectId.fromString(headHash);
-
-        if (tailHash == null) {
-            return produceCommitIterable(git, headObjId, false);
-        } else {
-            ObjectId tailObjId = ObjectId.fromString(tailHash);
-            return produceCommitIterable(git, headObjId, tailObjId);
+        boolean missingTail = false;
+        String tailHash = lowerBound.commitHash();
+        if (tailHash != null) {
+            try {
+                revWalk.markUninteresting(revWalk.parseCommit(ObjectId.fromString(tailHash)));
+            } catch (MissingObjectException missingObjectException) {
+                missingTail = true;
+            }
         }
+        revWalk.markStart(revWalk.parseCommit(ObjectId.fromString(headHash)));
+        revWalk.sort(RevSort.COMMIT_TIME_DESC);
+
+        // With the tail marked uninteresting the walk already ends there, and cutting it off by time
+        // would drop old commits merged in since, such as a branch of backdated commits
+        Instant lowerTime = lowerBound.timestamp();
+        if ((tailHash == null || missingTail)
+                && lowerTime != null && lowerTime.isAfter(Instant.EPOCH.plus(CLOCK_SKEW_SLACK))) {
+            revWalk.setRevFilter(new StopBeforeFilter(lowerTime.minus(CLOCK_SKEW_SLACK).getEpochSecond()));
+        }
+        return new CommitsBetweenBounds(revWalk, missingTail);
     }
 
-    private static CommitsBetweenBounds produceCommitIterable(Git git, ObjectId headObjId, boolean missingTail)
-            throws IncorrectObjectTypeException, MissingObjectException, GitAPIException {
-        return new CommitsBetweenBounds(git.log().add(headObjId).call(), missingTail);
-    }
-    private static CommitsBetweenBounds produceCommitIterable(Git git, ObjectId headObjId, ObjectId tailObjId)
-            throws IncorrectObjectTypeException, MissingObjectException, GitAPIException {
-        try {
-            return new CommitsBetweenBounds(git.log().addRange(tailObjId, headObjId).call(), false);
-        } catch (MissingObjectException missingObjectException) {
-            return produceCommitIterable(git, headObjId, true);
+    /** How far commit times may be out of order before the walk stops at the lower bound. */
+    private static final Duration CLOCK_SKEW_SLACK = Duration.ofDays(1);
+
+    /**
+     * Ends a walk sorted by commit time once it has produced one commit older than a cutoff.
+     */
+    private static class StopBeforeFilter extends RevFilter {
+        private final long cutoffSecs;
+        private boolean producedOlderCommit = false;
+
+        private StopBeforeFilter(long cutoffSecs) {
+            this.cutoffSecs = cutoffSecs;
+        }
+
+        @Override
+        public boolean include(RevWalk walker, RevCommit commit) {
+            if (commit.getCommitTime() >= cutoffSecs) {
+                return true;
+            }
+            if (producedOlderCommit) {
+                throw StopWalkException.INSTANCE;
+            }
+            producedOlderCommit = true;
+            return true;
+        }
+
+        @Override
+        public RevFilter clone() {
+            return new StopBeforeFilter(cutoffSecs);
+        }
+
+        @Override
+        public boolean requiresCommitBody() {
+            return false;
         }
     }
 
@@ -277,6 +418,11 @@ public class CommitAnalytics {
         return new CommitTimestamps(commitTimestamp, authorTimestamp, bestTimestamp);
     }
 
+    private static CommitTimestamps getCommitTime(CommitStats stats) {
+        long bestTimestamp = stats.authorTime() != -1 ? stats.authorTime() : stats.commitTime();
+        return new CommitTimestamps(stats.commitTime(), stats.authorTime(), bestTimestamp);
+    }
+
     private static final long secondsInDay = 60*60*24;
 
     /**
@@ -306,6 +452,77 @@ public class CommitAnalytics {
     }
 
 
+    /**
+     * A commit whose changes still need to be counted.
+     *
+     * @param position the commit's index in <code>changesPerCommit</code>
+     */
+    private record PendingDiff(RevCommit commit, int position, CommitTimestamps times, boolean backdated) {}
+
+    /**
+     * Counts the changes in each commit, spreading the diffs across {@link #DIFF_POOL} when there are many.
+     * Each worker has its own {@link DiffFormatter}, and with it its own object reader, since neither is thread-safe.
+     *
+     * @param git     The Git repo the commits are in
+     * @param commits The non-merge commits to count
+     * @return The number of changed lines in each commit, in the same order as the commits
+     * @throws IOException When the system can't read the data properly.
+     */
+    private static int[] countChangesInCommits(Git git, List<RevCommit> commits) throws IOException {
+        return countChangesInCommits(git, commits, DIFF_POOL, MIN_DIFFS_PER_WORKER);
+    }
+
+    /**
+     * Counts the changes in each commit, spreading the diffs across a pool when there are at least
+     * <code>minDiffsPerWorker</code> for two of its workers.
+     *
+     * @param pool              Runs the diffs in parallel
+     * @param minDiffsPerWorker Below this many commits per worker, the diffs are run on the calling thread
+     * @see #countChangesInCommits(Git, List)
+     */
+    static int[] countChangesInCommits(Git git, List<RevCommit> commits, ForkJoinPool pool, int minDiffsPerWorker)
+            throws IOException {
+        int[] changes = new int[commits.size()];
+        int workers = Math.min(pool.getParallelism(), commits.size() / minDiffsPerWorker);
+        if (workers <= 1) {
+            try (DiffFormatter diffFormatter = prepareDiffFormatter(git)) {
+                for (int i = 0; i < commits.size(); ++i) {
+                    changes[i] = getNumChangesInCommit(diffFormatter, commits.get(i));
+                }
+            }
+            return changes;
+        }
+
+        // Workers take the next commit as they finish, so a few huge commits don't hold up one worker's share
+        AtomicInteger next = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int worker = 0; worker < workers; ++worker) {
+            tasks.add(() -> {
+                try (DiffFormatter diffFormatter = prepareDiffFormatter(git)) {
+                    int i;
+                    while ((i = next.getAndIncrement()) < commits.size()) {
+                        changes[i] = getNumChangesInCommit(diffFormatter, commits.get(i));
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while counting changes in commits", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to count changes in commits", e.getCause());
+        }
+        return changes;
+    }
+
     /**
      * Prepares a {@link DiffFormatter} for efficient use on multiple diffs later.
      * <br>
@@ -381,17 +598,21 @@ public class CommitAnalytics {
     ) { }
 
     /**
-     * generates a CSV-formatted string of all commit data
-     * takes around 5 minutes to run for 300+ students
+     * generates CSV-formatted commit data for every student, writing each row as it is produced
+     * the time it takes is mostly spent cloning student repos, see {@link #compile()}
      *
-     * @return a serialized version of the data
+     * @param writer where the rows are written
      */
-    public static String generateCSV() throws CanvasException, DataAccessException {
-        SubmissionDao submissionDao = DaoService.getSubmissionDao();
-
+    public static void writeCSV(Writer writer) throws CanvasException, DataAccessException, IOException {
         Map<String, Map<String, ArrayList<Integer>>> commitInfo = compile();
 
-        ArrayList<CommitDatum> csvData = new ArrayList<>();
+        Map<String, Map<Phase, Submission>> firstPassingSubmissions = new HashMap<>();
+        for (Submission submission : DaoService.getSubmissionDao().getAllFirstPassingSubmissions()) {
+            firstPassingSubmissions.computeIfAbsent(submission.netId(), netId -> new EnumMap<>(Phase.class))
+                    .put(submission.phase(), submission);
+        }
+
+        writer.write(CSV_HEADER);
         ArrayList<Phase> phases = new ArrayList<>();
         phases.add(Phase.Phase0);
         phases.add(Phase.Phase1);
@@ -402,14 +623,15 @@ public class CommitAnalytics {
         for (Map.Entry<String, Map<String, ArrayList<Integer>>> e : commitInfo.entrySet()) {
             for (Map.Entry<String, ArrayList<Integer>> entry : e.getValue().entrySet()) {
                 String netID = entry.getKey();
+                Map<Phase, Submission> studentSubmissions = firstPassingSubmissions.getOrDefault(netID, Map.of());
                 for (Phase phase : phases) {
-                    Submission submission = submissionDao.getFirstPassingSubmission(entry.getKey(), phase);
+                    Submission submission = studentSubmissions.get(phase);
                     if (submission == null) break;
                     Phase prevPhase = PhaseUtils.getPreviousPhase(phase);
 
                     long lowerBound = 0;
                     if (prevPhase != null) {
-                        Submission prevSubmission = submissionDao.getFirstPassingSubmission(netID, prevPhase);
+                        Submission prevSubmission = studentSubmissions.get(prevPhase);
                         if (prevSubmission != null) { // it should never be null due to passoff order enforcement
                             lowerBound = prevSubmission.timestamp().getEpochSecond();
                         }
@@ -420,74 +642,124 @@ public class CommitAnalytics {
                     CommitDatum row = new CommitDatum(netID, phase, chunk.size(), getNumDaysFromChunk(chunk),
                             e.getKey(), DateTimeUtils.getDateString(submission.timestamp().getEpochSecond(), true));
 
-                    csvData.add(row);
+                    writeCSVRow(writer, row);
                 }
 
             }
         }
-        return serializeDataToCSV(csvData);
     }
 
+    /** Repos cloned or skipped so far by the update in progress. */
+    private static final AtomicInteger compiledRepos = new AtomicInteger();
+
+    /** Repos the update in progress will clone, or -1 when no update is running. */
+    private static volatile int reposToCompile = -1;
+
+    /** How often, in repos, the progress of an update is logged. */
+    private static final int PROGRESS_LOG_INTERVAL = 25;
+
     /**
-     * Compiles git commit analytics for every student
+     * How far along an update of the commit analytics is
+     *
+     * @param completed repos cloned or skipped so far
+     * @param total     repos the update will clone
+     */
+    public record CompileProgress(int completed, int total) {}
+
+    /**
+     * @return the progress of the update in progress, or null if none is running
+     */
+    public static CompileProgress getCompileProgress() {
+        int total = reposToCompile;
+        return total < 0 ? null : new CompileProgress(compiledRepos.get(), total);
+    }
+
+    /**
+     * Compiles git commit analytics for every student.
+     * <br>
+     * Each student's {@link CommitIndex} is brought up to date concurrently on a pool of
+     * {@link ApplicationProperties#analyticsWorkers()} threads. A repo that takes longer than
+     * {@link ApplicationProperties#analyticsRepoTimeoutSeconds()}, or fails to fetch, is reported as last indexed.
      *
      * @return A map section to map of netID to list of timestamp
      */
     private static Map<String, Map<String, ArrayList<Integer>>> compile() throws CanvasException {
 
-        Map<String, Map<String, ArrayList<Integer>>> commitsBySection = new TreeMap<>();
-
+        // Look up every section's students first, so progress can be reported against the total
+        Map<String, Collection<User>> studentsBySection = new TreeMap<>();
         CanvasSection[] sections = CanvasService.getCanvasIntegration().getAllSections();
         for (CanvasSection section: sections) {
+            Collection<User> students = CanvasService.getCanvasIntegration().getAllStudentsBySection(section.id());
 
-            Collection<User> students;
-            Map<String, ArrayList<Integer>> commitMap = new TreeMap<>();
-
-            try {
-                students = CanvasService.getCanvasIntegration().getAllStudentsBySection(section.id());
-            } catch (CanvasException e) {
-                throw new RuntimeException("Canvas Exception: " + e.getMessage());
+            String sectionName = section.name();
+            if(sectionName.matches("C S 240(-[0-9]+): Adv Software Construction")) {
+                sectionName = String.valueOf(Integer.parseInt(sectionName.substring(8, sectionName.indexOf(':'))));
             }
 
-            for (User student : students) {
-                File repoPath = new File("./tmp-" + student.repoUrl().hashCode());
-
-                CloneCommand cloneCommand = Git.cloneRepository()
-                        .setURI(student.repoUrl())
-                        .setDirectory(repoPath);
+            studentsBySection.put(sectionName, students);
+        }
 
-                try (Git git = cloneCommand.call()) {
-                    Iterable<RevCommit> commits = git.log().all().call();
-                    ArrayList<Integer> timestamps = getAllTimestamps(commits);
-                    commitMap.put(student.netId(), timestamps);
-                } catch (Exception e) {
-                    FileUtils.removeDirectory(repoPath);
-                    continue;
+        Duration repoTimeout = Duration.ofSeconds(ApplicationProperties.analyticsRepoTimeoutSeconds());
+        ExecutorService executor = Executors.newFixedThreadPool(ApplicationProperties.analyticsWorkers(),
+                Thread.ofPlatform().name("commit-analytics-", 1).daemon().factory());
+        compiledRepos.set(0);
+        reposToCompile = studentsBySection.values().stream().mapToInt(Collection::size).sum();
+        try {
+            Map<String, Map<String, Future<ArrayList<Integer>>>> timestampsBySection = new TreeMap<>();
+            for (Map.Entry<String, Collection<User>> section : studentsBySection.entrySet()) {
+                Map<String, Future<ArrayList<Integer>>> sectionTimestamps = new TreeMap<>();
+                for (User student : section.getValue()) {
+                    sectionTimestamps.put(student.netId(), executor.submit(() -> {
+                        try {
+                            return new ArrayList<>(CommitIndex.update(student, repoTimeout));
+                        } finally {
+                            int completed = compiledRepos.incrementAndGet();
+                            if (completed % PROGRESS_LOG_INTERVAL == 0) {
+                                LOGGER.info("Compiled commit analytics for {}/{} repos", completed, reposToCompile);
+                            }
+                        }
+                    }));
                 }
-
-                FileUtils.removeDirectory(repoPath);
+                timestampsBySection.put(section.getKey(), sectionTimestamps);
             }
 
-            String sectionName = section.name();
-            if(sectionName.matches("C S 240(-[0-9]+): Adv Software Construction")) {
-                sectionName = String.valueOf(Integer.parseInt(sectionName.substring(8, sectionName.indexOf(':'))));
+            Map<String, Map<String, ArrayList<Integer>>> commitsBySection = new TreeMap<>();
+            for (Map.Entry<String, Map<String, Future<ArrayList<Integer>>>> section : timestampsBySection.entrySet()) {
+                Map<String, ArrayList<Integer>> commitMap = new TreeMap<>();
+                for (Map.Entry<String, Future<ArrayList<Integer>>> student : section.getValue().entrySet()) {
+                    try {
+                        commitMap.put(student.getKey(), student.getValue().get());
+                    } catch (ExecutionException e) {
+                        // Report what was indexed last time rather than leaving the student out
+                        LOGGER.debug("Could not update commit analytics for {}: {}", student.getKey(), e.getCause().getMessage());
+                        try {
+                            List<Integer> indexed = CommitIndex.getIndexed(student.getKey());
+                            if (indexed != null) {
+                                commitMap.put(student.getKey(), new ArrayList<>(indexed));
+                            }
+                        } catch (DataAccessException dataAccessException) {
+                            LOGGER.warn("Could not read the commit index of {}", student.getKey(), dataAccessException);
+                        }
+                    }
+                }
+                commitsBySection.put(section.getKey(), commitMap);
             }
-
-            commitsBySection.put(sectionName, commitMap);
+            return commitsBySection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while compiling commit analytics", e);
+        } finally {
+            executor.shutdownNow();
+            reposToCompile = -1;
         }
-
-        return commitsBySection;
     }
 
-    private static String serializeDataToCSV(ArrayList<CommitDatum> data) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("netID,phase,numCommits,numDays,section,timestamp\n");
-        for (CommitDatum cd : data) {
-            sb.append(cd.netId).append(",").append(PhaseUtils.getPhaseAsString(cd.phase)).append(",")
-                    .append(cd.commits).append(",").append(cd.days).append(",")
-                    .append(cd.section).append(",").append(cd.timestamp).append("\n");
-        }
-        return sb.toString();
+    private static final String CSV_HEADER = "netID,phase,numCommits,numDays,section,timestamp\n";
+
+    private static void writeCSVRow(Writer writer, CommitDatum cd) throws IOException {
+        writer.append(cd.netId).append(",").append(PhaseUtils.getPhaseAsString(cd.phase)).append(",")
+                .append(String.valueOf(cd.commits)).append(",").append(String.valueOf(cd.days)).append(",")
+                .append(cd.section).append(",").append(cd.timestamp).append("\n");
     }
 
     private static ArrayList<Integer> getChunkOfTimestamps(ArrayList<Integer> timestamps, long lowerBound, long upperBound) {
@@ -505,10 +777,4 @@ public class CommitAnalytics {
         }
         return days.size();
     }
-
-    private static ArrayList<Integer> getAllTimestamps(Iterable<RevCommit> commits) {
-        ArrayList<Integer> timestamps = new ArrayList<>();
-        for (RevCommit rc : commits) timestamps.add(rc.getCommitTime());
-        return timestamps;
-    }
 }
@@ -5,42 +5,122 @@ import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.util.DateTimeUtils;
 import edu.byu.cs.util.FileUtils;
 
-import java.io.File;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Handles different type of commit analytics requests
+ * <br>
+ * The most recent CSV is cached gzipped, so it can be sent as is to clients that accept gzip.
  */
 public class CommitAnalyticsRouter {
 
-    private static final String cacheDir = "commit-cache";
+    private static File cacheDir = new File("commit-cache");
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * Replaces the directory the CSV is cached in, for tests
+     */
+    static void setCacheDirectory(File directory) {
+        cacheDir = directory;
+    }
 
     /**
-     * Updates the commit analytics CSV file and returns it
+     * Updates the commit analytics CSV file, streaming it to the client as the rows are produced.
+     * Only one update runs at a time; a second request waits for the first to finish.
+     * If the update fails, what was sent to the client is left unfinished and unclosed.
      *
-     * @return the CSV data
+     * @param out  where the CSV is sent
+     * @param gzip whether to gzip what is sent
      */
-    public static String update() throws CanvasException, DataAccessException {
+    public static synchronized void update(OutputStream out, boolean gzip)
+            throws CanvasException, DataAccessException, IOException {
         long ts = Instant.now().getEpochSecond();
-        String data = CommitAnalytics.generateCSV();
+        FileUtils.createDirectory(cacheDir.getPath());
+        File file = new File(cacheDir, ts + ".csv" + GZIP_EXTENSION);
 
-        FileUtils.removeDirectory(new File(cacheDir));
-        FileUtils.createDirectory(cacheDir);
-        FileUtils.writeStringToFile(data, new File(cacheDir + "/" + ts + ".csv"));
+        Writer cacheWriter = new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8);
+        try {
+            Writer clientWriter = new OutputStreamWriter(gzip ? new GZIPOutputStream(out) : out, StandardCharsets.UTF_8);
+            Writer writer = new BufferedWriter(new TeeWriter(cacheWriter, clientWriter));
+            CommitAnalytics.writeCSV(writer);
+            // The client's gzip stream is only finished once the CSV is complete, so a failed one is not mistaken for it
+            writer.close();
+        } catch (CanvasException | DataAccessException | IOException | RuntimeException e) {
+            try {
+                cacheWriter.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+            throw e;
+        }
 
-        return data;
+        // Only replace the previous cache once the new one is complete
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File old : files) {
+                if (!old.equals(file) && !old.delete()) {
+                    old.deleteOnExit();
+                }
+            }
+        }
     }
 
     /**
-     * Returns the data stored in the most recently cached commit analytics CSV file
+     * Sends the data stored in the most recently cached commit analytics CSV file.
+     * A gzipped cache is sent straight from the file channel when the client accepts gzip.
+     * Nothing is sent if there is no cache. If reading the cache fails, what was sent is left unfinished.
      *
-     * @return the CSV data
+     * @param out  where the CSV is sent
+     * @param gzip whether to gzip what is sent
      */
-    public static String cached() {
-        File file = FileUtils.getLastAlphabeticalFile(new File(cacheDir));
-        if (file == null) return "";
+    public static void cached(OutputStream out, boolean gzip) throws IOException {
+        File file = FileUtils.getLastAlphabeticalFile(cacheDir);
+        if (file == null) return;
 
-        return FileUtils.readStringFromFile(file);
+        boolean cachedGzipped = file.getName().endsWith(GZIP_EXTENSION);
+        if (gzip == cachedGzipped) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = 0;
+                long size = channel.size();
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+            return;
+        }
+
+        try (InputStream in = cachedGzipped ?
+                new GZIPInputStream(new FileInputStream(file)) : new FileInputStream(file)) {
+            OutputStream target = gzip ? new GZIPOutputStream(out) : out;
+            in.transferTo(target);
+            target.close();
+        }
+    }
+
+    /**
+     * Returns how many student repos the update in progress has gone through
+     *
+     * @return "completed/total", or an empty string if no update is running
+     */
+    public static String progress() {
+        CommitAnalytics.CompileProgress progress = CommitAnalytics.getCompileProgress();
+        if (progress == null) return "";
+
+        return progress.completed() + "/" + progress.total();
     }
 
     /**
@@ -49,11 +129,45 @@ public class CommitAnalyticsRouter {
      * @return a formatted timestamp
      */
     public static String when() {
-        File file = FileUtils.getLastAlphabeticalFile(new File(cacheDir));
+        File file = FileUtils.getLastAlphabeticalFile(cacheDir);
         if (file == null) return "";
 
         long ts = Long.parseLong(file.getName().substring(0, 10));
 
         return DateTimeUtils.getDateString(ts, true);
     }
+
+    /**
+     * Writes everything to two writers
+     */
+    private static class TeeWriter extends Writer {
+        private final Writer first;
+        private final Writer second;
+
+        private TeeWriter(Writer first, Writer second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            first.write(cbuf, off, len);
+            second.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                first.close();
+            } finally {
+                second.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package edu.byu.cs.analytics;
+
+import edu.byu.cs.autograder.git.DeadlineProgressMonitor;
+import edu.byu.cs.autograder.git.GitHelper;
+import edu.byu.cs.autograder.git.RepoMirrorCache;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.CommitIndexEntry;
+import edu.byu.cs.model.User;
+import edu.byu.cs.util.FileUtils;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the commit times of each student's repo in a {@link edu.byu.cs.dataAccess.CommitIndexDao},
+ * so updating commit analytics only reads the commits made since the last update.
+ * <br>
+ * Repos are read through the shared repo mirrors when they are turned on, so only new commits are fetched.
+ * If a student changed their repo url, or rewrote history that was already indexed, their index is rebuilt.
+ */
+class CommitIndex {
+
+    /**
+     * Brings a student's index up to date with their repo
+     *
+     * @param student the student
+     * @param timeout how long fetching the repo may take before it is abandoned
+     * @return the commit time of every commit on the repo's branches and tags
+     */
+    static List<Integer> update(User student, Duration timeout)
+            throws GitAPIException, IOException, DataAccessException {
+        if (student.repoUrl() == null) {
+            throw new IllegalStateException("No repo url");
+        }
+        // An index of a different repo is of no use
+        CommitIndexEntry stored = DaoService.getCommitIndexDao().getEntry(student.netId());
+        CommitIndexEntry previous = stored != null && stored.repoUrl().equals(student.repoUrl()) ? stored : null;
+
+        ProgressMonitor monitor = new DeadlineProgressMonitor(timeout);
+        RepoMirrorCache mirrorCache = GitHelper.getMirrorCache();
+        CommitIndexEntry updated;
+        if (mirrorCache != null) {
+            updated = mirrorCache.readMirror(student.repoUrl(), timeout, monitor,
+                    mirror -> index(mirror, student.netId(), student.repoUrl(), previous));
+        } else {
+            File repoPath = new File("./tmp-analytics-" + student.netId());
+            FileUtils.removeDirectory(repoPath);
+            try (Git git = Git.cloneRepository()
+                    .setURI(student.repoUrl())
+                    .setDirectory(repoPath)
+                    .setBare(true)
+                    .setTimeout((int) timeout.toSeconds())
+                    .setProgressMonitor(monitor)
+                    .call()) {
+                updated = index(git.getRepository(), student.netId(), student.repoUrl(), previous);
+            } finally {
+                FileUtils.removeDirectory(repoPath);
+            }
+        }
+
+        DaoService.getCommitIndexDao().putEntry(updated);
+        return updated.timestamps();
+    }
+
+    /**
+     * @param netId the student
+     * @return the commit times indexed by the last update, or null if the student's repo has not been indexed
+     */
+    static List<Integer> getIndexed(String netId) throws DataAccessException {
+        CommitIndexEntry entry = DaoService.getCommitIndexDao().getEntry(netId);
+        return entry == null ? null : entry.timestamps();
+    }
+
+    /**
+     * Indexes the commits of a repo, starting from a previous index of it when that is still valid
+     *
+     * @param repo     the repo
+     * @param netId    the student the repo belongs to
+     * @param repoUrl  the url of the repo
+     * @param previous the previous index of the repo, or null
+     * @return the new index
+     */
+    static CommitIndexEntry index(Repository repo, String netId, String repoUrl, @Nullable CommitIndexEntry previous)
+            throws IOException {
+        try (RevWalk revWalk = new RevWalk(repo)) {
+            revWalk.setRetainBody(false);
+            List<RevCommit> tips = getTips(revWalk, repo);
+
+            List<Integer> timestamps = new ArrayList<>();
+            if (previous != null && isStillInHistory(revWalk, previous.tips(), tips)) {
+                timestamps.addAll(previous.timestamps());
+                for (String previousTip : previous.tips()) {
+                    revWalk.markUninteresting(revWalk.parseCommit(ObjectId.fromString(previousTip)));
+                }
+            }
+            for (RevCommit tip : tips) {
+                revWalk.markStart(tip);
+            }
+            for (RevCommit commit : revWalk) {
+                timestamps.add(commit.getCommitTime());
+            }
+
+            List<String> tipHashes = tips.stream().map(RevCommit::getName).toList();
+            return new CommitIndexEntry(netId, repoUrl, tipHashes, timestamps, Instant.now());
+        }
+    }
+
+    /**
+     * @return the commits the repo's branches and tags point to, without duplicates
+     */
+    private static List<RevCommit> getTips(RevWalk revWalk, Repository repo) throws IOException {
+        Set<RevCommit> tips = new LinkedHashSet<>();
+        for (Ref ref : repo.getRefDatabase().getRefs()) {
+            if (ref.getObjectId() == null) {
+                continue;
+            }
+            RevObject object = revWalk.peel(revWalk.parseAny(ref.getObjectId()));
+            if (object instanceof RevCommit commit) {
+                tips.add(commit);
+            }
+        }
+        return new ArrayList<>(tips);
+    }
+
+    /**
+     * Checks that every previously indexed tip still exists and is reachable from a current tip.
+     * Otherwise, history was rewritten, and commits in the previous index may no longer be in the repo.
+     */
+    private static boolean isStillInHistory(RevWalk revWalk, List<String> previousTips, List<RevCommit> tips)
+            throws IOException {
+        try {
+            for (String previousTip : previousTips) {
+                RevCommit previousCommit = revWalk.parseCommit(ObjectId.fromString(previousTip));
+                boolean reachable = false;
+                for (RevCommit tip : tips) {
+                    if (revWalk.isMergedInto(previousCommit, tip)) {
+                        reachable = true;
+                        break;
+                    }
+                }
+                if (!reachable) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (MissingObjectException e) {
+            // The previous tip is gone from the repo
+            return false;
+        } finally {
+            revWalk.reset();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package edu.byu.cs.autograder;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Rubric;
+import edu.byu.cs.model.RubricConfig;
+import edu.byu.cs.util.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Remembers the evaluated rubric of every graded commit, keyed by the commit hash, the phase,
+ * and a fingerprint of what it was graded with: the phase tests, the libraries and poms, the rubric config,
+ * and the autograder itself.
+ * Grading the same commit again with the same fingerprint can reuse the rubric instead of
+ * compiling and running the tests again.
+ * <br>
+ * The cache is best-effort: errors reading or writing it are logged and treated as a miss.
+ */
+public class GradedResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GradedResultCache.class);
+
+    private final File phasesDirectory;
+    private final File autograderCode;
+
+    /** Digest of every file under the phases directory, recomputed whenever {@link #phasesStamp} changes. */
+    private byte[] phasesDigest;
+
+    /** The number of files under the phases directory and the latest time one was modified. */
+    private List<Long> phasesStamp;
+
+    /** Digest of the autograder's own jar or classes, computed once since they do not change while running. */
+    private byte[] autograderDigest;
+
+    /**
+     * @param phasesDirectory the directory holding the tests, libraries, and poms every phase is graded with
+     */
+    public GradedResultCache(File phasesDirectory) {
+        this(phasesDirectory, autograderCodeLocation());
+    }
+
+    /**
+     * @param phasesDirectory the directory holding the tests, libraries, and poms every phase is graded with
+     * @param autograderCode  the jar or class directory the autograder is running from
+     */
+    public GradedResultCache(File phasesDirectory, File autograderCode) {
+        this.phasesDirectory = phasesDirectory;
+        this.autograderCode = autograderCode;
+    }
+
+    /**
+     * Identifies everything besides the student code that an evaluated rubric depends on.
+     * The tests of every phase are included since previous phase tests are rerun as well.
+     *
+     * @param rubricConfig the rubric config of the phase being graded
+     * @return a hex SHA-256 digest
+     */
+    public String fingerprint(RubricConfig rubricConfig) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(getPhasesDigest());
+        digest.update(getAutograderDigest());
+        digest.update(Serializer.serialize(rubricConfig).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the rubric previously evaluated for the commit, or null if there is none
+     */
+    public Rubric get(String headHash, Phase phase, String fingerprint) {
+        try {
+            return DaoService.getGradedResultDao().getResult(headHash, phase, fingerprint);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not read graded result for {} in {}", headHash, phase, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the evaluated rubric of a commit for later gradings
+     */
+    public void put(String headHash, Phase phase, String fingerprint, Rubric rubric) {
+        try {
+            DaoService.getGradedResultDao().insertResult(headHash, phase, fingerprint, rubric);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not save graded result for {} in {}", headHash, phase, e);
+        }
+    }
+
+    /**
+     * Reading the modification times is much cheaper than reading the files, so the phases are only
+     * digested again when a file was added, removed, or modified, ex. after the phases were replaced.
+     */
+    private synchronized byte[] getPhasesDigest() throws IOException {
+        List<Path> files = listFiles(phasesDirectory.toPath());
+        long lastModified = 0;
+        for (Path file : files) {
+            lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+        }
+        List<Long> stamp = List.of((long) files.size(), lastModified);
+        if (phasesDigest == null || !stamp.equals(phasesStamp)) {
+            phasesDigest = digestFiles(phasesDirectory.toPath(), files);
+            phasesStamp = stamp;
+        }
+        return phasesDigest;
+    }
+
+    private synchronized byte[] getAutograderDigest() throws IOException {
+        if (autograderDigest == null) {
+            Path code = autograderCode.toPath();
+            autograderDigest = Files.isDirectory(code) ?
+                    digestFiles(code, listFiles(code)) : digestFiles(code.getParent(), List.of(code));
+        }
+        return autograderDigest;
+    }
+
+    private static File autograderCodeLocation() {
+        try {
+            return new File(GradedResultCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Could not locate the autograder code", e);
+        }
+    }
+
+    private static List<Path> listFiles(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    private static byte[] digestFiles(Path root, List<Path> files) throws IOException {
+        MessageDigest digest = newDigest();
+        for (Path file : files) {
+            // Include the path so that moving a file changes the digest
+            digest.update(root.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
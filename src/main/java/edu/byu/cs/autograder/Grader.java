@@ -13,6 +13,7 @@ import edu.byu.cs.autograder.test.PreviousPhasePassoffTestGrader;
 import edu.byu.cs.autograder.test.UnitTestGrader;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.honorChecker.SimilarityChecker;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Rubric;
 import edu.byu.cs.model.RubricConfig;
@@ -20,14 +21,22 @@ import edu.byu.cs.model.Submission;
 import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.FileUtils;
 import edu.byu.cs.util.PhaseUtils;
+import edu.byu.cs.util.ProcessUtils;
 import edu.byu.cs.util.RepoUrlValidator;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.EnumMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A template for fetching, compiling, and running student code
@@ -35,6 +44,21 @@ import java.util.EnumMap;
 public class Grader implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(Grader.class);
 
+    /** The shared phases directory copied out of the resources on startup. */
+    private static final String PHASES_SOURCE_PATH = "./phases";
+
+    /** Files in the phases that a modifier writes to, so each grader needs a copy of its own */
+    private static final Set<Path> MODIFIED_PHASE_FILES = Set.of(Path.of("phase6/passoff/server/TestFactory.java"));
+
+    /**
+     * Source of unique salts for stage directories and student databases.
+     * Several graders may be constructed within the same second when running multiple workers.
+     */
+    private static final AtomicLong SALT_SEQUENCE = new AtomicLong();
+    private static final int SALT_NODE = new Random().nextInt(1000);
+
+    private static final GradedResultCache RESULT_CACHE = new GradedResultCache(new File(PHASES_SOURCE_PATH));
+
     /** DEV ONLY. Default: true. Skips compilation and evaluation of student projects. */
     private final boolean RUN_COMPILATION = ApplicationProperties.runCompilation();
 
@@ -47,6 +71,27 @@ public class Grader implements Runnable {
 
     protected GradingObserver observer;
 
+    /** Produced by {@link #fetchAndVerify()} and consumed by the later stages. */
+    private CommitVerificationResult commitVerificationResult;
+
+    /** Produced by {@link #evaluate()} and consumed by {@link #score()}. */
+    private Rubric rubric;
+
+    /** Set when the evaluated rubric should be saved to the result cache. */
+    private boolean cacheResult;
+
+    /** Set when {@link #fetchAndVerify()} found the rubric in the result cache, so nothing is evaluated. */
+    private boolean usedCachedResult;
+
+    /** Updated every time the grader reports progress; see {@link #isStalled(Duration)}. */
+    private volatile Instant lastHeartbeat = Instant.now();
+
+    /** The thread running the current stage, or null while waiting between stages. */
+    private volatile Thread stageThread;
+
+    private volatile boolean started;
+    private volatile boolean aborted;
+
     /**
      * Creates a new grader
      *
@@ -56,22 +101,37 @@ public class Grader implements Runnable {
      * @param phase    the phase to grade
      */
     public Grader(String repoUrl, String netId, GradingObserver observer, Phase phase, boolean admin) throws IOException, GradingException {
+        this(repoUrl, netId, observer, phase, admin, null);
+    }
+
+    /**
+     * Creates a new grader that regrades an earlier submission
+     *
+     * @param repoUrl  the url of the student repo
+     * @param netId    the netId of the student
+     * @param observer the observer to notify of updates
+     * @param phase    the phase to grade
+     * @param regrade  the submission to regrade, or null to grade the current head from the queue
+     */
+    public Grader(String repoUrl, String netId, GradingObserver observer, Phase phase, boolean admin, Regrade regrade)
+            throws IOException, GradingException {
         // Init files
         if (!admin) {
             repoUrl = RepoUrlValidator.clean(repoUrl);
         }
-        String phasesPath = new File("./phases").getCanonicalPath();
-        long salt = Instant.now().getEpochSecond();
+        long salt = nextSalt();
         String stagePath = new File("./tmp-" + repoUrl.hashCode() + "-" + salt).getCanonicalPath();
         File stageRepo = new File(stagePath, "repo");
+        // Each grader works from its own view of the phases since some modifiers write into it
+        String phasesPath = new File(stagePath, "phases").getCanonicalPath();
 
         // Init Grading Context
         CommitVerificationConfig cvConfig = PhaseUtils.shouldVerifyCommits(phase) ?
                 PhaseUtils.verificationConfig(phase) : null;
-        this.observer = observer;
+        this.observer = new HeartbeatObserver(observer);
         this.gradingContext = new GradingContext(
                     netId, phase, phasesPath, stagePath, repoUrl, stageRepo,
-                    cvConfig, observer, admin);
+                    cvConfig, this.observer, admin, regrade);
 
         // Init helpers
         this.dbHelper = new DatabaseHelper(salt, gradingContext);
@@ -79,37 +139,250 @@ public class Grader implements Runnable {
         this.compileHelper = new CompileHelper(gradingContext);
     }
 
+    /**
+     * Runs every grading stage in sequence on the calling thread.
+     *
+     * @see #fetchAndVerify()
+     * @see #evaluate()
+     * @see #score()
+     */
     public void run() {
+        if (fetchAndVerify() && evaluate()) {
+            score();
+        }
+    }
+
+    /**
+     * The network-bound stage: fetches the student repo, verifies its commit history,
+     * and prepares the student database.
+     * <br>
+     * On failure the student is notified and the stage resources are cleaned up.
+     *
+     * @return true if grading should continue with {@link #evaluate()}
+     */
+    public boolean fetchAndVerify() {
+        if (!beginStage()) return false;
+        started = true;
         observer.notifyStarted();
-        CommitVerificationResult commitVerificationResult = null;
         try {
-            // FIXME: remove this sleep. currently the grader is too quick for the client to keep up
-            Thread.sleep(1000);
             commitVerificationResult = gitHelper.setUpAndVerifyHistory();
+            throwIfAborted();
+            indexForSimilarityCheck();
+            if (lookUpCachedResult()) {
+                return true;
+            }
+            FileUtils.linkDirectory(new File(PHASES_SOURCE_PATH), new File(gradingContext.phasesPath()),
+                    MODIFIED_PHASE_FILES);
             dbHelper.setUp();
+            return true;
+        } catch (Exception e) {
+            handleStageException(e);
+            cleanUp();
+            return false;
+        } finally {
+            endStage();
+        }
+    }
+
+    /**
+     * The CPU-bound stage: compiles the student code and runs the tests and quality checks.
+     * <br>
+     * Always cleans up the stage directory and student database before returning,
+     * since the remaining stage does not need them. The processes of a regrade run at a lower priority.
+     *
+     * @return true if grading should continue with {@link #score()}
+     */
+    public boolean evaluate() {
+        if (!beginStage()) {
+            cleanUp();
+            return false;
+        }
+        File stageDirectory = new File(gradingContext.stagePath());
+        if (gradingContext.regrade() != null) {
+            ProcessUtils.lowerPriorityIn(stageDirectory);
+        }
+        try {
+            if (usedCachedResult) {
+                return true;
+            }
             if (RUN_COMPILATION && gradingContext.phase() != Phase.GitHub) {
                 compileHelper.compile();
                 new PreviousPhasePassoffTestGrader(gradingContext).runTests();
             }
 
             RubricConfig rubricConfig = DaoService.getRubricConfigDao().getRubricConfig(gradingContext.phase());
-            Rubric rubric = evaluateProject(RUN_COMPILATION ? rubricConfig : null, commitVerificationResult);
+            rubric = evaluateProject(RUN_COMPILATION ? rubricConfig : null, commitVerificationResult);
+            if (cacheResult) {
+                RESULT_CACHE.put(commitVerificationResult.headHash(), gradingContext.phase(),
+                        RESULT_CACHE.fingerprint(rubricConfig), rubric);
+            }
+            return true;
+        } catch (Exception e) {
+            handleStageException(e);
+            return false;
+        } finally {
+            ProcessUtils.restorePriorityIn(stageDirectory);
+            cleanUp();
+            endStage();
+        }
+    }
 
+    /**
+     * The external API stage: scores the rubric (posting to Canvas when appropriate),
+     * saves the submission, and notifies the student.
+     */
+    public void score() {
+        if (!beginStage()) return;
+        try {
             Submission submission = new Scorer(gradingContext).score(rubric, commitVerificationResult);
+            // The queue item is graded again elsewhere, which saves its own submission
+            if (aborted) return;
             DaoService.getSubmissionDao().insertSubmission(submission);
 
             observer.notifyDone(submission);
         } catch (Exception e) {
-            GradingException ge = e instanceof GradingException ? (GradingException) e : new GradingException(e);
-            handleException(ge, commitVerificationResult);
-            LOGGER.error("Error running grader for user {} and repository {}", gradingContext.netId(),
-                    gradingContext.repoUrl(), e);
+            handleStageException(e);
         } finally {
+            endStage();
+        }
+    }
+
+    public String netId() {
+        return gradingContext.netId();
+    }
+
+    /**
+     * @return true once grading has started, even if it is waiting between stages
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * A grader is stalled when the stage it is running has not reported any progress
+     * for longer than the given duration. Time spent waiting between stages does not count.
+     *
+     * @param timeout how long a stage may go without progress
+     * @return true if the grader appears to be stuck
+     */
+    public boolean isStalled(Duration timeout) {
+        return stageThread != null && lastHeartbeat.plus(timeout).isBefore(Instant.now());
+    }
+
+    /**
+     * Gives up on this grader: kills its child processes and interrupts the stage it is running.
+     * Once aborted, the grader no longer reports results or errors, since its queue item
+     * is expected to be graded again elsewhere. Its stage directory and database are still cleaned up.
+     */
+    public void abort() {
+        aborted = true;
+        ProcessUtils.killProcessesIn(new File(gradingContext.stagePath()));
+        Thread thread = stageThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private boolean beginStage() {
+        if (aborted) return false;
+        stageThread = Thread.currentThread();
+        heartbeat();
+        return true;
+    }
+
+    private void endStage() {
+        stageThread = null;
+    }
+
+    private void heartbeat() {
+        lastHeartbeat = Instant.now();
+    }
+
+    /**
+     * Stops a stage between steps that do not notice being interrupted, such as a clone
+     */
+    private void throwIfAborted() throws GradingException {
+        if (aborted) {
+            throw new GradingException("Grading was aborted");
+        }
+    }
+
+    private void handleStageException(Exception e) {
+        if (aborted) {
+            LOGGER.info("Grader for user {} was aborted during a stage: {}", gradingContext.netId(), e.getMessage());
+            return;
+        }
+        GradingException ge = e instanceof GradingException ? (GradingException) e : new GradingException(e);
+        handleException(ge, commitVerificationResult);
+        LOGGER.error("Error running grader for user {} and repository {}", gradingContext.netId(),
+                gradingContext.repoUrl(), e);
+    }
+
+    private void cleanUp() {
+        if (!usedCachedResult) {
             dbHelper.cleanUp();
-            FileUtils.removeDirectory(new File(gradingContext.stagePath()));
+        }
+        FileUtils.removeDirectory(new File(gradingContext.stagePath()));
+    }
+
+    /**
+     * Looks for a rubric already evaluated for the fetched commit with the current tests and rubric config.
+     * Commits that are not found are cached once evaluated. The GitHub phase is not cached since
+     * it runs no tests, and nothing is cached when compilation is turned off.
+     *
+     * @return true if the rubric was found and the evaluation can be skipped
+     */
+    private boolean lookUpCachedResult() throws DataAccessException, IOException {
+        if (!ApplicationProperties.useResultCache() || !RUN_COMPILATION || gradingContext.phase() == Phase.GitHub) {
+            return false;
+        }
+        RubricConfig rubricConfig = DaoService.getRubricConfigDao().getRubricConfig(gradingContext.phase());
+        if (rubricConfig == null) {
+            return false;
+        }
+        Rubric cached = RESULT_CACHE.get(commitVerificationResult.headHash(), gradingContext.phase(),
+                RESULT_CACHE.fingerprint(rubricConfig));
+        if (cached == null) {
+            cacheResult = true;
+            return false;
+        }
+        LOGGER.info("Reusing graded result of {} for {} in {}", commitVerificationResult.headHash(),
+                gradingContext.netId(), gradingContext.phase());
+        observer.update("This commit was already graded with the current tests. Reusing those results...");
+        rubric = cached;
+        usedCachedResult = true;
+        return true;
+    }
+
+    /**
+     * Fingerprints the fetched code for the honor checker's similarity check. Admin submissions and
+     * regrades are left out, and failing to fingerprint the code does not stop grading.
+     */
+    private void indexForSimilarityCheck() {
+        if (gradingContext.admin() || gradingContext.regrade() != null
+                || !SimilarityChecker.isChecked(gradingContext.phase())) {
+            return;
+        }
+        try (Git git = Git.open(gradingContext.stageRepo())) {
+            SimilarityChecker.indexSubmission(gradingContext.netId(), gradingContext.phase(), git.getRepository(),
+                    ObjectId.fromString(commitVerificationResult.headHash()));
+        } catch (IOException | DataAccessException | RuntimeException e) {
+            LOGGER.warn("Could not fingerprint the code of {} for the similarity check", gradingContext.netId(), e);
         }
     }
 
+    /**
+     * Returns a salt that is unique within this process and roughly tracks the current time.
+     * The random node suffix makes it very likely unique across grading workers on other machines
+     * sharing the same database server.
+     *
+     * @return the current epoch millisecond, or one more than the last one handed out, followed by the node
+     */
+    private static long nextSalt() {
+        long base = SALT_SEQUENCE.updateAndGet(last -> Math.max(last + 1, Instant.now().toEpochMilli()));
+        return base * 1000 + SALT_NODE;
+    }
+
     private Rubric evaluateProject(RubricConfig rubricConfig, CommitVerificationResult commitVerificationResult) throws GradingException, DataAccessException {
         EnumMap<Rubric.RubricType, Rubric.RubricItem> rubricItems = new EnumMap<>(Rubric.RubricType.class);
         if (rubricConfig == null) {
@@ -152,4 +425,49 @@ public class Grader implements Runnable {
         }
     }
 
+
+    /**
+     * Records a heartbeat whenever the grader reports progress, and silences the final
+     * result once the grader has been aborted.
+     */
+    private class HeartbeatObserver implements GradingObserver {
+        private final GradingObserver delegate;
+
+        private HeartbeatObserver(GradingObserver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void notifyStarted() {
+            heartbeat();
+            delegate.notifyStarted();
+        }
+
+        @Override
+        public void update(String message) {
+            heartbeat();
+            delegate.update(message);
+        }
+
+        @Override
+        public void notifyError(String message) {
+            if (!aborted) delegate.notifyError(message);
+        }
+
+        @Override
+        public void notifyError(String message, Submission submission) {
+            if (!aborted) delegate.notifyError(message, submission);
+        }
+
+        @Override
+        public void notifyWarning(String message) {
+            heartbeat();
+            delegate.notifyWarning(message);
+        }
+
+        @Override
+        public void notifyDone(Submission submission) {
+            if (!aborted) delegate.notifyDone(submission);
+        }
+    }
 }
@@ -15,6 +15,7 @@ import java.io.File;
  * @param verificationConfig Several variables related to commit verification
  * @param observer        Used to notify the user of changes as the game is played.
  * @param admin           If the submission is an admin submission
+ * @param regrade         Set when regrading an earlier submission rather than a new one from the queue
  */
 public record GradingContext(
         String netId,
@@ -29,5 +30,12 @@ public record GradingContext(
 
         // Others
         GradingObserver observer,
-        boolean admin
-) { }
+        boolean admin,
+        Regrade regrade
+) {
+    public GradingContext(String netId, Phase phase, String phasesPath, String stagePath, String repoUrl,
+                          File stageRepo, CommitVerificationConfig verificationConfig, GradingObserver observer,
+                          boolean admin) {
+        this(netId, phase, phasesPath, stagePath, repoUrl, stageRepo, verificationConfig, observer, admin, null);
+    }
+}
@@ -0,0 +1,66 @@
+package edu.byu.cs.autograder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A bounded log of the events sent to the subscribers of one grading job, so that clients
+ * which subscribe late (or reconnect) can be caught up on everything they missed.
+ * <br>
+ * Publishing an event and replaying the log to a new subscriber are serialized, so a
+ * subscriber never misses an event or sees one twice.
+ */
+public class GradingEventLog {
+
+    /** The most events kept per job. Once full, the oldest event is dropped. */
+    private static final int CAPACITY = 128;
+
+    private final Deque<Map<String, Object>> events = new ArrayDeque<>(CAPACITY);
+
+    private Instant finishedAt;
+
+    /**
+     * Appends an event to the log and sends it to the current subscribers
+     *
+     * @param event     the event
+     * @param broadcast sends the event to the current subscribers
+     */
+    public synchronized void publish(Map<String, Object> event, Consumer<Map<String, Object>> broadcast) {
+        if (events.size() == CAPACITY) {
+            events.removeFirst();
+        }
+        events.addLast(event);
+        broadcast.accept(event);
+    }
+
+    /**
+     * Sends every logged event to a new subscriber, then subscribes it before any new event is published
+     *
+     * @param subscriber receives each logged event, oldest first
+     * @param subscribe  adds the subscriber to the ones receiving new events
+     */
+    public synchronized void replay(Consumer<Map<String, Object>> subscriber, Runnable subscribe) {
+        events.forEach(subscriber);
+        subscribe.run();
+    }
+
+    /**
+     * Marks the job as finished. The log is kept around for a while afterward for clients
+     * that only subscribe once the job is already done.
+     */
+    public synchronized void finish() {
+        finishedAt = Instant.now();
+    }
+
+    /**
+     * @param retention how long a finished job's log is kept
+     * @return true if the job finished longer ago than the given retention
+     */
+    public synchronized boolean isExpired(Duration retention) {
+        return finishedAt != null && finishedAt.plus(retention).isBefore(Instant.now());
+    }
+}
@@ -3,28 +3,63 @@ package edu.byu.cs.autograder;
 import edu.byu.cs.controller.TrafficController;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.QueueDao;
 import edu.byu.cs.model.Submission;
+import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GradingObserverImpl implements GradingObserver {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GradingObserverImpl.class);
 
+    /** How long the event log of a finished job stays available for replay. */
+    private static final Duration EVENT_LOG_RETENTION = Duration.ofMinutes(5);
+
+    /** The event log of the latest grading job of each netId */
+    private static final Map<String, GradingEventLog> EVENT_LOGS = new ConcurrentHashMap<>();
+
     private final String netId;
 
+    private final GradingEventLog eventLog = new GradingEventLog();
+
     public GradingObserverImpl(String netId) {
         this.netId = netId;
+        EVENT_LOGS.values().removeIf(log -> log.isExpired(EVENT_LOG_RETENTION));
+        EVENT_LOGS.put(netId, eventLog);
+    }
+
+    /**
+     * Gets the event log of the latest grading job for a netId, whether it is still
+     * in progress or finished recently
+     *
+     * @param netId the netId of the student
+     * @return the event log, or null if there is none
+     */
+    public static GradingEventLog getEventLog(String netId) {
+        GradingEventLog log = EVENT_LOGS.get(netId);
+        if (log == null || log.isExpired(EVENT_LOG_RETENTION)) {
+            return null;
+        }
+        return log;
     }
 
     @Override
     public void notifyStarted() {
         try {
-            DaoService.getQueueDao().markStarted(netId);
+            Duration leaseDuration = Duration.ofSeconds(ApplicationProperties.gradingLeaseSeconds());
+            String workerId = ApplicationProperties.workerId();
+            // Grading workers have already claimed the item; graders queued by this process claim it now
+            QueueDao queueDao = DaoService.getQueueDao();
+            if (!queueDao.claim(netId, workerId, leaseDuration) && !queueDao.renewLease(netId, workerId, leaseDuration)) {
+                LOGGER.warn("Queue item for {} is leased to another worker", netId);
+            }
         } catch (DataAccessException e) {
             LOGGER.error("Error marking queue item as started", e);
             return;
@@ -32,11 +67,7 @@ public class GradingObserverImpl implements GradingObserver {
 
         notifySubscribers(Map.of("type", "started"));
 
-        try {
-            TrafficController.broadcastQueueStatus();
-        } catch (Exception e) {
-            LOGGER.error("Error broadcasting queue status", e);
-        }
+        TrafficController.queueItemChanged(netId);
     }
 
     @Override
@@ -75,18 +106,20 @@ public class GradingObserverImpl implements GradingObserver {
 
     private void notifySubscribers(Map<String, Object> contents) {
         try {
-            TrafficController.getInstance().notifySubscribers(netId, contents);
+            eventLog.publish(contents, event -> TrafficController.getInstance().notifySubscribers(netId, event));
         } catch (Exception e) {
             LOGGER.error("Error updating subscribers", e);
         }
     }
 
     private void removeFromQueue() {
+        eventLog.finish();
         TrafficController.sessions.remove(netId);
         try {
             DaoService.getQueueDao().remove(netId);
         } catch (DataAccessException e) {
             LOGGER.error("Error removing queue item", e);
         }
+        TrafficController.queueItemChanged(netId);
     }
 }
@@ -0,0 +1,13 @@
+package edu.byu.cs.autograder;
+
+import java.time.Instant;
+
+/**
+ * Describes a regrade of an earlier submission, as opposed to grading a new submission from the queue.
+ *
+ * @param commitHash   the commit that was originally submitted
+ * @param handInDate   when the commit was originally handed in; used in place of the queue time
+ *                     for late days and commit verification
+ * @param postToCanvas whether an improved score is sent to Canvas, or only recorded
+ */
+public record Regrade(String commitHash, Instant handInDate, boolean postToCanvas) {}
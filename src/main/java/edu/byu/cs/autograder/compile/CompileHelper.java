@@ -7,13 +7,48 @@ import edu.byu.cs.autograder.compile.modifiers.PomModifier;
 import edu.byu.cs.autograder.compile.modifiers.TestFactoryModifier;
 import edu.byu.cs.autograder.compile.verifers.*;
 import edu.byu.cs.model.Rubric;
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.util.FileUtils;
 import edu.byu.cs.util.ProcessUtils;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CompileHelper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompileHelper.class);
+
+    private static final List<String> PACKAGE_ARGS = List.of("package", "-DskipTests");
+    private static final long PACKAGE_TIMEOUT_MILLIS = 90000; //90 seconds
+
+    private static MavenDaemonPool daemonPool;
+    private static boolean daemonPoolUnavailable;
+
+    /** Published once resolved, so builds never wait on resolving it; see {@link #getDirectCompiler(File)} */
+    private static volatile DirectCompiler directCompiler;
+    private static volatile boolean directCompilerUnavailable;
+    private static final AtomicBoolean directCompilerResolving = new AtomicBoolean();
+
+    /** Runs the direct compiler, so a compile that does not finish in time can be given up on */
+    private static final ExecutorService DIRECT_COMPILE_EXECUTOR = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("direct-compile-", 1).daemon().factory());
+
+    /** Set once the offline repository is ready, after which every build runs offline */
+    private static volatile OfflineMavenRepository offlineRepository;
+
     private final GradingContext gradingContext;
 
     public CompileHelper(GradingContext gradingContext) {
@@ -60,11 +95,8 @@ public class CompileHelper {
     private void packageRepo() throws GradingException {
         gradingContext.observer().update("Compiling code...");
 
-        ProcessBuilder processBuilder = new ProcessBuilder();
-        processBuilder.directory(gradingContext.stageRepo());
-        processBuilder.command("mvn", "package", "-DskipTests");
         try {
-            ProcessUtils.ProcessOutput output = ProcessUtils.runProcess(processBuilder, 90000); //90 seconds
+            ProcessUtils.ProcessOutput output = build();
             if (output.statusCode() != 0) {
                 Rubric.Results results = Rubric.Results.textError("Your Java source code could not be compiled", getMavenError(output.stdOut()));
                 throw new GradingException("Failed to compile", results);
@@ -74,6 +106,155 @@ public class CompileHelper {
         }
     }
 
+    /**
+     * Compiles the student repo directly if possible, falling back to Maven if anything goes wrong.
+     * Compiling directly is given the same time as Maven, and is not retried with Maven if it runs out.
+     */
+    private ProcessUtils.ProcessOutput build() throws ProcessUtils.ProcessException {
+        DirectCompiler compiler = getDirectCompiler(new File(gradingContext.phasesPath()));
+        if (compiler != null) {
+            Future<ProcessUtils.ProcessOutput> task =
+                    DIRECT_COMPILE_EXECUTOR.submit(() -> compiler.compile(gradingContext.stageRepo()));
+            try {
+                return task.get(PACKAGE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                task.cancel(true);
+                throw new ProcessUtils.ProcessException("Compiling timed out. Try again or come see a TA if this error persists");
+            } catch (InterruptedException e) {
+                task.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new ProcessUtils.ProcessException(e);
+            } catch (ExecutionException e) {
+                LOGGER.warn("Could not compile {} directly, compiling with Maven instead", gradingContext.netId(),
+                        e.getCause());
+            }
+        }
+        return runMaven(gradingContext.stageRepo(), PACKAGE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Packages a project with Maven, offline against the offline repository once it is ready
+     */
+    private static ProcessUtils.ProcessOutput runMaven(File directory, long timeout) throws ProcessUtils.ProcessException {
+        OfflineMavenRepository repository = offlineRepository;
+        if (repository == null) {
+            return runMaven(directory, List.of(), timeout);
+        }
+
+        // Each build gets its own empty local repository, so builds never share anything they write
+        File localRepository;
+        try {
+            localRepository = Files.createTempDirectory("maven-repo").toFile();
+        } catch (IOException e) {
+            throw new ProcessUtils.ProcessException(e);
+        }
+        try {
+            return runMaven(directory, repository.offlineArgs(localRepository), timeout);
+        } finally {
+            FileUtils.removeDirectory(localRepository);
+        }
+    }
+
+    private static ProcessUtils.ProcessOutput runMaven(File directory, List<String> extraArgs, long timeout)
+            throws ProcessUtils.ProcessException {
+        MavenDaemonPool pool = getDaemonPool();
+        // The daemons are shared at normal priority, so low priority builds start their own Maven
+        if (pool != null && !ProcessUtils.isLowPriority(directory)) {
+            List<String> args = new ArrayList<>(PACKAGE_ARGS);
+            args.addAll(extraArgs);
+            args.add("--batch-mode");
+            return pool.build(directory, args, timeout);
+        }
+
+        ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.directory(directory);
+        List<String> command = new ArrayList<>();
+        command.add("mvn");
+        command.addAll(PACKAGE_ARGS);
+        command.addAll(extraArgs);
+        processBuilder.command(command);
+        String maxHeap = ApplicationProperties.gradingWorkerMaxHeap();
+        if (maxHeap != null) {
+            // Keep any options the operator set, letting our heap limit win since it comes last
+            processBuilder.environment().merge("MAVEN_OPTS", "-Xmx" + maxHeap, (set, ours) -> set + " " + ours);
+        }
+        return ProcessUtils.runProcess(processBuilder, timeout);
+    }
+
+    /**
+     * Sets up the offline Maven repository and resolves the dependencies of our POMs for compiling
+     * without Maven, so the first submission does not have to. Does nothing for features that are turned off.
+     *
+     * @param phasesPath the phases directory holding our POMs
+     */
+    public static void prepare(File phasesPath) {
+        String repositoryPath = ApplicationProperties.mavenOfflineRepo();
+        if (repositoryPath != null) {
+            OfflineMavenRepository repository = new OfflineMavenRepository(new File(repositoryPath));
+            try {
+                repository.prepare(phasesPath, CompileHelper::runMaven);
+                offlineRepository = repository;
+                LOGGER.info("Building offline with the Maven repository at {}", repositoryPath);
+            } catch (IOException e) {
+                LOGGER.error("Could not set up the offline Maven repository, building online instead", e);
+            }
+        }
+        getDirectCompiler(phasesPath);
+    }
+
+    /**
+     * Resolves the direct compiler on the first call. Calls made while another thread is resolving it
+     * return null rather than waiting, so those builds use Maven in the meantime.
+     *
+     * @param phasesPath the phases directory holding our POMs
+     * @return the direct compiler, or null if it is turned off, being resolved,
+     * or its dependencies could not be resolved
+     */
+    private static DirectCompiler getDirectCompiler(File phasesPath) {
+        DirectCompiler compiler = directCompiler;
+        if (compiler != null || !ApplicationProperties.directCompile() || directCompilerUnavailable
+                || !directCompilerResolving.compareAndSet(false, true)) {
+            return compiler;
+        }
+        try {
+            compiler = DirectCompiler.resolve(phasesPath, CompileHelper::runMaven);
+            directCompiler = compiler;
+            LOGGER.info("Resolved dependencies for compiling without Maven");
+            return compiler;
+        } catch (IOException e) {
+            LOGGER.error("Could not set up compiling without Maven, compiling with Maven instead", e);
+            directCompilerUnavailable = true;
+            return null;
+        } finally {
+            directCompilerResolving.set(false);
+        }
+    }
+
+    /**
+     * @return the shared Maven daemons, or null if they are turned off or Maven could not be found
+     */
+    private static synchronized MavenDaemonPool getDaemonPool() {
+        int size = ApplicationProperties.mavenDaemons();
+        if (size <= 0 || daemonPoolUnavailable) {
+            return null;
+        }
+        if (daemonPool == null) {
+            File mavenHome = MavenDaemonPool.findMavenHome(ApplicationProperties.mavenHome());
+            try {
+                if (mavenHome == null) {
+                    throw new IOException("Could not find the Maven installation");
+                }
+                daemonPool = new MavenDaemonPool(mavenHome, size, ApplicationProperties.gradingWorkerMaxHeap(),
+                        ApplicationProperties.mavenDaemonMaxBuilds());
+            } catch (IOException e) {
+                LOGGER.error("Could not set up the Maven daemons, compiling with mvn instead", e);
+                daemonPoolUnavailable = true;
+                return null;
+            }
+        }
+        return daemonPool;
+    }
+
     /**
      * Retrieves maven error output from maven package stdout
      *
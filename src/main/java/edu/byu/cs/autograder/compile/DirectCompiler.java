@@ -0,0 +1,291 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.util.FileUtils;
+import edu.byu.cs.util.ProcessUtils;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+
+/**
+ * Compiles a student's project with the JDK's compiler in this JVM instead of running Maven.
+ * <br>
+ * Every student's POMs are replaced by ours, so every project has the same modules and dependencies.
+ * Maven is run once on an empty copy of our project, which downloads the dependencies and packages a
+ * <code>&lt;module&gt;-test-dependencies.jar</code> for each module holding only them. A student's modules
+ * are compiled against those jars, and each module's jar is made by adding the compiled classes to a
+ * copy of the one Maven packaged.
+ * <br>
+ * Main code is compiled against the module's test dependencies, so it may use a few libraries
+ * Maven would only allow in tests.
+ */
+public class DirectCompiler {
+
+    /** The modules, each after the ones it depends on */
+    private static final List<String> MODULES = List.of("shared", "server", "client");
+
+    /** The output directories of other modules each module's main code depends on */
+    private static final Map<String, List<String>> MAIN_DEPENDENCIES = Map.of(
+            "shared", List.of(),
+            "server", List.of("shared/target/classes"),
+            "client", List.of("shared/target/classes"));
+
+    /** The output directories of other modules each module's tests additionally depend on */
+    private static final Map<String, List<String>> TEST_DEPENDENCIES = Map.of(
+            "shared", List.of(),
+            "server", List.of("shared/target/test-classes"),
+            "client", List.of("server/target/classes"));
+
+    /** Matches the source and target of our POMs. None of the dependencies have annotation processors. */
+    private static final List<String> JAVAC_OPTIONS =
+            List.of("-source", "21", "-target", "21", "-encoding", "UTF-8", "-g", "-nowarn", "-proc:none");
+
+    private static final long RESOLVE_TIMEOUT_MILLIS = 600000; //10 minutes
+
+    /**
+     * Stops the compiler between files once its thread is interrupted, which it otherwise ignores.
+     * The compiler rethrows the exception wrapped in a {@link RuntimeException}.
+     */
+    private static final TaskListener STOP_WHEN_INTERRUPTED = new TaskListener() {
+        @Override
+        public void started(TaskEvent e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Compiling was interrupted");
+            }
+        }
+    };
+
+    /**
+     * Runs <code>mvn package</code> in a directory
+     */
+    @FunctionalInterface
+    public interface MavenBuild {
+        ProcessUtils.ProcessOutput run(File directory, long timeout) throws ProcessUtils.ProcessException;
+    }
+
+    private final JavaCompiler compiler;
+    private final Map<String, File> dependencyJars;
+
+    /**
+     * @param dependencyJars the jar of every module's test dependencies, without any of the modules' own classes
+     * @throws IOException if this JVM has no Java compiler
+     */
+    public DirectCompiler(Map<String, File> dependencyJars) throws IOException {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("The autograder is not running on a JDK");
+        }
+        this.dependencyJars = Map.copyOf(dependencyJars);
+    }
+
+    /**
+     * Packages an empty copy of our project with Maven to find the dependencies of each module
+     *
+     * @param phasesPath the phases directory holding our POMs and passoff dependencies
+     * @param maven      runs Maven
+     * @return a compiler using the dependency jars Maven packaged
+     * @throws IOException if Maven failed or this JVM has no Java compiler
+     */
+    public static DirectCompiler resolve(File phasesPath, MavenBuild maven) throws IOException {
+        File scaffold = OfflineMavenRepository.createScaffold(phasesPath);
+
+        ProcessUtils.ProcessOutput output;
+        try {
+            output = maven.run(scaffold, RESOLVE_TIMEOUT_MILLIS);
+        } catch (ProcessUtils.ProcessException e) {
+            throw new IOException("Could not run Maven to resolve dependencies", e);
+        }
+        if (output.statusCode() != 0) {
+            throw new IOException("Could not resolve dependencies:\n" + output.stdOut() + output.stdErr());
+        }
+
+        Map<String, File> dependencyJars = new HashMap<>();
+        for (String module : MODULES) {
+            File jar = testDependenciesJar(scaffold, module);
+            if (!jar.isFile()) {
+                throw new IOException("Maven did not package " + jar);
+            }
+            dependencyJars.put(module, jar);
+        }
+        return new DirectCompiler(dependencyJars);
+    }
+
+    /**
+     * Compiles the main code and tests of every module and packages each module's test dependencies jar,
+     * like <code>mvn package -DskipTests</code> with our POMs. Stops at the first module that does not compile.
+     *
+     * @param stageRepo the student's project
+     * @return the compile errors as <code>[ERROR]</code> lines in standard out, like Maven's,
+     * and 0 if everything compiled or 1 if not
+     * @throws IOException if the project could not be read or written
+     * @throws RuntimeException if the thread was interrupted while compiling
+     */
+    public ProcessUtils.ProcessOutput compile(File stageRepo) throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (String module : MODULES) {
+            File moduleDirectory = new File(stageRepo, module);
+            File target = new File(moduleDirectory, "target");
+            File classes = new File(target, "classes");
+            File testClasses = new File(target, "test-classes");
+            // Students sometimes commit target, which Maven would reuse
+            FileUtils.removeDirectory(target);
+
+            List<File> mainClasspath = new ArrayList<>();
+            mainClasspath.add(dependencyJars.get(module));
+            for (String dependency : MAIN_DEPENDENCIES.get(module)) {
+                mainClasspath.add(new File(stageRepo, dependency));
+            }
+            if (!javac(new File(moduleDirectory, "src/main/java"), classes, mainClasspath, log)) {
+                return new ProcessUtils.ProcessOutput(log.toString(), "", 1);
+            }
+            copyResources(new File(moduleDirectory, "src/main/resources"), classes);
+
+            List<File> testClasspath = new ArrayList<>();
+            testClasspath.add(classes);
+            testClasspath.addAll(mainClasspath);
+            for (String dependency : TEST_DEPENDENCIES.get(module)) {
+                testClasspath.add(new File(stageRepo, dependency));
+            }
+            if (!javac(new File(moduleDirectory, "src/test/java"), testClasses, testClasspath, log)) {
+                return new ProcessUtils.ProcessOutput(log.toString(), "", 1);
+            }
+            copyResources(new File(moduleDirectory, "src/test/resources"), testClasses);
+
+            packageModule(stageRepo, module);
+        }
+        return new ProcessUtils.ProcessOutput(log.toString(), "", 0);
+    }
+
+    /**
+     * Compiles every Java file in a source directory, writing any errors to the log
+     *
+     * @return false if there were compile errors
+     */
+    private boolean javac(File sourceDirectory, File output, List<File> classpath, StringBuilder log)
+            throws IOException {
+        List<File> sources = findFiles(sourceDirectory).stream()
+                .filter(file -> file.getName().endsWith(".java"))
+                .toList();
+        if (sources.isEmpty()) {
+            return true;
+        }
+        Files.createDirectories(output.toPath());
+
+        List<String> options = new ArrayList<>(JAVAC_OPTIONS);
+        options.add("-d");
+        options.add(output.getAbsolutePath());
+        options.add("-classpath");
+        options.add(String.join(File.pathSeparator, classpath.stream().map(File::getAbsolutePath).toList()));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StringWriter otherOutput = new StringWriter();
+        boolean success;
+        try (StandardJavaFileManager fileManager =
+                     compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(otherOutput, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources));
+            if (task instanceof JavacTask javacTask) {
+                javacTask.addTaskListener(STOP_WHEN_INTERRUPTED);
+            }
+            success = task.call();
+        }
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                log.append(formatError(diagnostic));
+            }
+        }
+        if (!success && !otherOutput.toString().isBlank()) {
+            otherOutput.toString().lines().forEach(line -> log.append("[ERROR] ").append(line).append("\n"));
+        }
+        return success;
+    }
+
+    /**
+     * Formats an error the way Maven does, ex. <code>[ERROR] /path/A.java:[3,9] cannot find symbol</code>,
+     * with every further line of the message also marked as an error
+     */
+    private static String formatError(Diagnostic<? extends JavaFileObject> diagnostic) {
+        StringBuilder error = new StringBuilder("[ERROR] ");
+        if (diagnostic.getSource() != null) {
+            error.append(new File(diagnostic.getSource().toUri()).getAbsolutePath());
+            if (diagnostic.getLineNumber() != Diagnostic.NOPOS) {
+                error.append(":[").append(diagnostic.getLineNumber())
+                        .append(",").append(diagnostic.getColumnNumber()).append("]");
+            }
+            error.append(" ");
+        }
+        error.append(String.join("\n[ERROR] ", diagnostic.getMessage(null).lines().toList())).append("\n");
+        return error.toString();
+    }
+
+    private static void copyResources(File resourceDirectory, File output) throws IOException {
+        Path source = resourceDirectory.toPath();
+        for (File file : findFiles(resourceDirectory)) {
+            Path target = output.toPath().resolve(source.relativize(file.toPath()));
+            Files.createDirectories(target.getParent());
+            Files.copy(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Copies the module's dependency jar and adds the classes of the module and of the modules it depends on.
+     * The module's own classes are added last, so like with Maven they win over anything with the same name.
+     */
+    private void packageModule(File stageRepo, String module) throws IOException {
+        File jar = testDependenciesJar(stageRepo, module);
+        Files.copy(dependencyJars.get(module).toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        List<File> outputs = new ArrayList<>();
+        for (String dependency : MAIN_DEPENDENCIES.get(module)) {
+            outputs.add(new File(stageRepo, dependency));
+        }
+        for (String dependency : TEST_DEPENDENCIES.get(module)) {
+            outputs.add(new File(stageRepo, dependency));
+        }
+        outputs.add(new File(stageRepo, module + "/target/classes"));
+
+        // Entries already in the jar are copied over as they are, without compressing them again
+        try (FileSystem zip = FileSystems.newFileSystem(jar.toPath())) {
+            for (File output : outputs) {
+                Path source = output.toPath();
+                for (File file : findFiles(output)) {
+                    Path entry = zip.getPath("/", source.relativize(file.toPath()).toString()
+                            .replace(File.separatorChar, '/'));
+                    Files.createDirectories(entry.getParent());
+                    Files.copy(file.toPath(), entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    private static File testDependenciesJar(File project, String module) {
+        return new File(project, module + "/target/" + module + "-test-dependencies.jar");
+    }
+
+    /**
+     * @return every file under a directory, in a stable order, or nothing if the directory does not exist
+     */
+    private static List<File> findFiles(File directory) throws IOException {
+        if (!directory.isDirectory()) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            return paths.filter(Files::isRegularFile).sorted().map(Path::toFile).toList();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.byu.cs.autograder.compile;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * The main class of a warm Maven build daemon started by {@link MavenDaemonPool}.
+ * <br>
+ * It runs in its own JVM with only Maven's own jars and this class on the classpath, so it must not use
+ * any other class of the autograder. Each line read from standard in is a build request made of
+ * tab separated fields: the project directory, the file to write the build log to, and the Maven arguments.
+ * Maven is run in this JVM, and {@link #DONE} followed by its exit code is written to standard out.
+ * The daemon exits when standard in is closed.
+ */
+public class MavenDaemon {
+
+    static final String READY = "READY";
+    static final String DONE = "DONE ";
+
+    public static void main(String[] args) throws Exception {
+        // Builds redirect System.out, so responses go straight to the original standard out
+        PrintStream responses = System.out;
+        PrintStream idleOutput = System.err;
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+
+        Class<?> mavenCli = Class.forName("org.apache.maven.cli.MavenCli");
+        Method doMain = mavenCli.getMethod("doMain", String[].class, String.class, PrintStream.class, PrintStream.class);
+        responses.println(READY);
+        responses.flush();
+
+        String request;
+        while ((request = requests.readLine()) != null) {
+            String[] fields = request.split("\t");
+            String directory = fields[0];
+            String[] mavenArgs = Arrays.copyOfRange(fields, 2, fields.length);
+
+            int status;
+            // Maven sets -D arguments as system properties, which must not carry over to the next build
+            Properties properties = (Properties) System.getProperties().clone();
+            try (PrintStream log = new PrintStream(new FileOutputStream(fields[1]), true, StandardCharsets.UTF_8)) {
+                System.setOut(log);
+                System.setErr(log);
+                System.setProperty("maven.multiModuleProjectDirectory", directory);
+                try {
+                    Object cli = mavenCli.getConstructor().newInstance();
+                    status = (int) doMain.invoke(cli, mavenArgs, directory, log, log);
+                } catch (Exception e) {
+                    e.printStackTrace(log);
+                    status = -1;
+                } finally {
+                    System.setOut(idleOutput);
+                    System.setErr(idleOutput);
+                    System.setProperties(properties);
+                }
+            }
+            responses.println(DONE + status);
+            responses.flush();
+        }
+    }
+}
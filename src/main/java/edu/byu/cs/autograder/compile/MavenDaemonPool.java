@@ -0,0 +1,240 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.util.ProcessUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of warm JVMs that run Maven builds, so a build does not pay for starting a JVM, loading Maven,
+ * and warming up the JIT every time.
+ * <br>
+ * Each daemon runs one build at a time. Daemons are started as builds need them, up to the pool size,
+ * and are kept between builds. A daemon that times out, dies, or fails to answer is killed and replaced
+ * by a new one on a later build. Daemons are also replaced after a number of builds, since state
+ * left behind in a JVM by one build can leak into the next.
+ * <br>
+ * Unlike a plain <code>mvn</code>, the daemons ignore a project's <code>.mvn/jvm.config</code>.
+ * Daemons exit on their own when the autograder does, since their standard in is closed.
+ */
+public class MavenDaemonPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MavenDaemonPool.class);
+
+    private static final String DAEMON_CLASS_FILE = MavenDaemon.class.getSimpleName() + ".class";
+
+    private final File mavenHome;
+    private final String maxHeap;
+    private final int maxBuilds;
+
+    private final File workDirectory;
+    private final Semaphore permits;
+    private final BlockingQueue<Daemon> idle = new LinkedBlockingQueue<>();
+    private final AtomicLong buildSequence = new AtomicLong();
+
+    /**
+     * @param mavenHome the Maven installation the daemons run
+     * @param size      the most daemons running at once
+     * @param maxHeap   the max heap of each daemon (ex. 512m), or null for the JVM default
+     * @param maxBuilds how many builds a daemon runs before it is replaced
+     * @throws IOException if the daemon's class could not be set up
+     */
+    public MavenDaemonPool(File mavenHome, int size, String maxHeap, int maxBuilds) throws IOException {
+        this.mavenHome = mavenHome;
+        this.maxHeap = maxHeap;
+        this.maxBuilds = maxBuilds;
+        this.permits = new Semaphore(size, true);
+
+        // The daemon class is copied out on its own, so none of the autograder's dependencies clash with Maven's
+        this.workDirectory = Files.createTempDirectory("maven-daemons").toFile();
+        File classFile = new File(workDirectory, "classes/" +
+                MavenDaemon.class.getPackageName().replace('.', '/') + "/" + DAEMON_CLASS_FILE);
+        Files.createDirectories(classFile.getParentFile().toPath());
+        try (InputStream in = MavenDaemon.class.getResourceAsStream(DAEMON_CLASS_FILE)) {
+            if (in == null) {
+                throw new IOException("Could not find " + DAEMON_CLASS_FILE);
+            }
+            Files.copy(in, classFile.toPath());
+        }
+    }
+
+    /**
+     * Runs Maven in a directory on one of the daemons, waiting for a daemon to be free if they are all busy
+     *
+     * @param directory the project directory
+     * @param args      the Maven arguments
+     * @param timeout   how long the build may take in ms, not counting the wait for a free daemon
+     * @return the build's log as standard out, and Maven's exit code
+     * @throws ProcessUtils.ProcessException if the build timed out or could not be run
+     */
+    public ProcessUtils.ProcessOutput build(File directory, List<String> args, long timeout)
+            throws ProcessUtils.ProcessException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessUtils.ProcessException(e);
+        }
+        Daemon daemon = null;
+        File log = new File(workDirectory, "build-" + buildSequence.incrementAndGet() + ".log");
+        try {
+            daemon = idle.poll();
+            if (daemon == null) {
+                daemon = startDaemon();
+            }
+            int status = daemon.build(directory, log, args, timeout);
+            String output = Files.readString(log.toPath(), StandardCharsets.UTF_8);
+            // A daemon whose build threw may be left in a bad state
+            if (status >= 0 && daemon.builds < maxBuilds) {
+                idle.add(daemon);
+                daemon = null;
+            }
+            return new ProcessUtils.ProcessOutput(output, "", status);
+        } catch (TimeoutException e) {
+            throw new ProcessUtils.ProcessException("Process timed out. Try again or come see a TA if this error persists");
+        } catch (IOException | ExecutionException e) {
+            LOGGER.warn("Maven daemon failed, replacing it", e);
+            throw new ProcessUtils.ProcessException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessUtils.ProcessException(e);
+        } finally {
+            if (daemon != null) {
+                daemon.process.destroyForcibly();
+            }
+            if (!log.delete()) {
+                log.deleteOnExit();
+            }
+            permits.release();
+        }
+    }
+
+    private Daemon startDaemon() throws IOException, ExecutionException, InterruptedException, TimeoutException {
+        List<String> classpath = new ArrayList<>();
+        classpath.add(new File(workDirectory, "classes").getAbsolutePath());
+        classpath.add(new File(mavenHome, "conf/logging").getAbsolutePath());
+        classpath.addAll(jars(new File(mavenHome, "boot")));
+        classpath.addAll(jars(new File(mavenHome, "lib/ext")));
+        classpath.addAll(jars(new File(mavenHome, "lib")));
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (maxHeap != null) {
+            command.add("-Xmx" + maxHeap);
+        }
+        command.add("-Dmaven.home=" + mavenHome.getAbsolutePath());
+        command.add("-Dmaven.conf=" + new File(mavenHome, "conf").getAbsolutePath());
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classpath));
+        command.add(MavenDaemon.class.getName());
+
+        Process process = new ProcessBuilder(command)
+                .directory(workDirectory)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        Daemon daemon = new Daemon(process);
+        try {
+            String ready = daemon.readLine(TimeUnit.MINUTES.toMillis(1));
+            if (!MavenDaemon.READY.equals(ready)) {
+                throw new IOException("Maven daemon did not start: " + ready);
+            }
+        } catch (IOException | ExecutionException | InterruptedException | TimeoutException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+        LOGGER.debug("Started Maven daemon {}", process.pid());
+        return daemon;
+    }
+
+    private static List<String> jars(File directory) {
+        File[] jars = directory.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null) {
+            return List.of();
+        }
+        return Arrays.stream(jars).map(File::getAbsolutePath).sorted().toList();
+    }
+
+    /**
+     * Finds the Maven installation the <code>mvn</code> command would run
+     *
+     * @param configured the configured Maven home, or null
+     * @return the Maven home, or null if it could not be found
+     */
+    public static File findMavenHome(String configured) {
+        List<String> candidates = new ArrayList<>();
+        if (configured != null) candidates.add(configured);
+        if (System.getenv("MAVEN_HOME") != null) candidates.add(System.getenv("MAVEN_HOME"));
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String directory : path.split(File.pathSeparator)) {
+                File mvn = new File(directory, "mvn");
+                if (mvn.isFile()) {
+                    try {
+                        // bin/mvn is usually a symlink into the installation
+                        candidates.add(mvn.toPath().toRealPath().getParent().getParent().toString());
+                    } catch (IOException e) {
+                        LOGGER.debug("Could not resolve {}", mvn, e);
+                    }
+                }
+            }
+        }
+        for (String candidate : candidates) {
+            File home = new File(candidate);
+            if (new File(home, "lib").isDirectory() && new File(home, "boot").isDirectory()) {
+                return home;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A running daemon and its pipes
+     */
+    private static class Daemon {
+        private final Process process;
+        private final BufferedReader responses;
+        private final Writer requests;
+        private int builds;
+
+        private Daemon(Process process) {
+            this.process = process;
+            this.responses = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            this.requests = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        }
+
+        private int build(File directory, File log, List<String> args, long timeout)
+                throws IOException, ExecutionException, InterruptedException, TimeoutException {
+            builds++;
+            List<String> fields = new ArrayList<>();
+            fields.add(directory.getAbsolutePath());
+            fields.add(log.getAbsolutePath());
+            fields.addAll(args);
+            requests.write(String.join("\t", fields) + "\n");
+            requests.flush();
+
+            String response = readLine(timeout);
+            if (response == null || !response.startsWith(MavenDaemon.DONE)) {
+                throw new IOException("Maven daemon stopped unexpectedly: " + response);
+            }
+            return Integer.parseInt(response.substring(MavenDaemon.DONE.length()));
+        }
+
+        /**
+         * Reads the daemon's next response on another thread, since reading from a pipe cannot time out
+         */
+        private String readLine(long timeout)
+                throws ExecutionException, InterruptedException, TimeoutException {
+            FutureTask<String> line = new FutureTask<>(responses::readLine);
+            Thread.ofVirtual().start(line);
+            return line.get(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.util.FileUtils;
+import edu.byu.cs.util.ProcessUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * A local Maven repository holding every plugin and dependency needed to package our project, so grading
+ * builds can run offline.
+ * <br>
+ * The repository is seeded by packaging an empty copy of our project, unless it already has everything,
+ * for example after being copied onto a grading machine without network access. Builds use it as
+ * a read-only tail of their own empty local repository (<code>maven.repo.local.tail</code>, Maven 3.9+).
+ * Maven never writes to or locks the tail, so any number of builds can share it.
+ */
+public class OfflineMavenRepository {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OfflineMavenRepository.class);
+
+    private static final long SEED_TIMEOUT_MILLIS = 600000; //10 minutes
+
+    /**
+     * Runs <code>mvn package</code> in a directory with extra arguments
+     */
+    @FunctionalInterface
+    public interface MavenRun {
+        ProcessUtils.ProcessOutput run(File directory, List<String> args, long timeout)
+                throws ProcessUtils.ProcessException;
+    }
+
+    private final File repository;
+
+    /**
+     * @param repository the directory of the repository, which is created if needed
+     */
+    public OfflineMavenRepository(File repository) {
+        this.repository = repository.getAbsoluteFile();
+    }
+
+    /**
+     * Seeds the repository if it is missing anything, then checks our project can be packaged offline with it
+     *
+     * @param phasesPath the phases directory holding our POMs and passoff dependencies
+     * @param maven      runs Maven
+     * @throws IOException if the repository could not be seeded
+     */
+    public void prepare(File phasesPath, MavenRun maven) throws IOException {
+        if (packagesOffline(phasesPath, maven)) {
+            return;
+        }
+        LOGGER.info("Seeding the offline Maven repository at {}", repository);
+        Files.createDirectories(repository.toPath());
+        ProcessUtils.ProcessOutput output = run(maven, phasesPath,
+                List.of("-Dmaven.repo.local=" + repository.getPath()));
+        if (output.statusCode() != 0) {
+            throw new IOException("Could not seed the repository:\n" + output.stdOut() + output.stdErr());
+        }
+        if (!packagesOffline(phasesPath, maven)) {
+            throw new IOException("The repository was seeded but our project still cannot be packaged offline");
+        }
+    }
+
+    /**
+     * @param localRepository an empty directory for the build's own local repository
+     * @return the Maven arguments for building offline with this repository
+     */
+    public List<String> offlineArgs(File localRepository) {
+        return List.of("--offline",
+                "-Dmaven.repo.local=" + localRepository.getAbsolutePath(),
+                "-Dmaven.repo.local.tail=" + repository.getPath());
+    }
+
+    private boolean packagesOffline(File phasesPath, MavenRun maven) throws IOException {
+        if (!repository.isDirectory()) {
+            return false;
+        }
+        File localRepository = Files.createTempDirectory("maven-repo").toFile();
+        try {
+            return run(maven, phasesPath, offlineArgs(localRepository)).statusCode() == 0;
+        } finally {
+            FileUtils.removeDirectory(localRepository);
+        }
+    }
+
+    /**
+     * Packages a new copy of our project with no code
+     */
+    private static ProcessUtils.ProcessOutput run(MavenRun maven, File phasesPath, List<String> args)
+            throws IOException {
+        File scaffold = createScaffold(phasesPath);
+        try {
+            return maven.run(scaffold, args, SEED_TIMEOUT_MILLIS);
+        } catch (ProcessUtils.ProcessException e) {
+            throw new IOException("Could not run Maven", e);
+        } finally {
+            FileUtils.removeDirectory(scaffold);
+        }
+    }
+
+    /**
+     * Copies our POMs and passoff dependencies into a new project with no code
+     *
+     * @param phasesPath the phases directory holding our POMs and passoff dependencies
+     * @return the project's directory
+     */
+    static File createScaffold(File phasesPath) throws IOException {
+        File scaffold = Files.createTempDirectory("maven-scaffold").toFile();
+        FileUtils.copyDirectory(new File(phasesPath, "pom"), scaffold);
+        Files.createDirectories(new File(scaffold, "server/lib").toPath());
+        Files.copy(new File(phasesPath, "libs/passoff-dependencies.jar").toPath(),
+                new File(scaffold, "server/lib/passoff-dependencies.jar").toPath());
+        return scaffold;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.byu.cs.autograder.git;
+
+import org.eclipse.jgit.lib.EmptyProgressMonitor;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Cancels the git operation it monitors once a deadline has passed
+ */
+public class DeadlineProgressMonitor extends EmptyProgressMonitor {
+    private final Instant deadline;
+
+    /**
+     * @param timeout how long from now the operation may run
+     */
+    public DeadlineProgressMonitor(Duration timeout) {
+        this.deadline = Instant.now().plus(timeout);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return Instant.now().isAfter(deadline);
+    }
+}
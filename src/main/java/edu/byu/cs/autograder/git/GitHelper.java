@@ -10,13 +10,17 @@ import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.dataAccess.SubmissionDao;
 import edu.byu.cs.model.Submission;
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.util.FileUtils;
 import edu.byu.cs.util.PhaseUtils;
+import edu.byu.cs.util.SubmissionUtils;
 import org.eclipse.jgit.annotations.NonNull;
 import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RevWalkException;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -26,9 +30,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Set;
 
 public class GitHelper {
     private static final Logger LOGGER = LoggerFactory.getLogger(GitHelper.class);
@@ -37,6 +43,14 @@ public class GitHelper {
 
     public static final CommitThreshold MIN_COMMIT_THRESHOLD = new CommitThreshold(Instant.MIN, null);
 
+    /**
+     * How far before the previous passing submission a shallow clone reaches,
+     * to allow for commit times that differ from the hand in time.
+     */
+    private static final Duration SHALLOW_MARGIN = Duration.ofDays(1);
+
+    private static RepoMirrorCache mirrorCache;
+
     public GitHelper(GradingContext gradingContext) {
         this.gradingContext = gradingContext;
     }
@@ -88,15 +102,133 @@ public class GitHelper {
     private void fetchRepo(File intoDirectory) throws GradingException {
         gradingContext.observer().update("Fetching repo...");
 
-        CloneCommand cloneCommand = Git.cloneRepository()
-                .setURI(gradingContext.repoUrl())
-                .setDirectory(intoDirectory);
+        if (!cloneFromMirror(intoDirectory)) {
+            CloneCommand cloneCommand = Git.cloneRepository()
+                    .setURI(gradingContext.repoUrl())
+                    .setDirectory(intoDirectory);
+            if (ApplicationProperties.shallowClone()) {
+                limitHistory(cloneCommand);
+            }
+
+            try (Git git = cloneCommand.call()) {
+                LOGGER.info("Cloned repo to {}", git.getRepository().getDirectory());
+            } catch (GitAPIException e) {
+                throw new GradingException("Failed to clone repo: " + e.getMessage(), e);
+            }
+        }
+
+        if (gradingContext.regrade() != null) {
+            // Regrades grade the commit that was originally submitted, not whatever is there now
+            try (Git git = Git.open(intoDirectory)) {
+                git.checkout().setName(gradingContext.regrade().commitHash()).call();
+            } catch (IOException | GitAPIException e) {
+                throw new GradingException("Failed to check out submitted commit: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Limits a clone to the history commit verification is expected to need:
+     * only the head commit when no history is verified, the commits since shortly before the
+     * previous passing submission when there is one, and everything otherwise.
+     * If the history turns out to be too short, verification deepens it; see {@link #deepenIfTruncated}.
+     */
+    private void limitHistory(CloneCommand cloneCommand) throws GradingException {
+        if (gradingContext.regrade() != null) {
+            // The submitted commit may be anywhere in the history
+            return;
+        }
+        try {
+            if (!shouldVerifyCommits() || preserveOriginalVerification() != null) {
+                cloneCommand.setDepth(1);
+                return;
+            }
+            Instant lastPassingHandIn = null;
+            for (Submission submission : getPassingSubmissions()) {
+                if (!PhaseUtils.isPhaseGraded(submission.phase())) continue;
+                if (lastPassingHandIn == null || submission.timestamp().isAfter(lastPassingHandIn)) {
+                    lastPassingHandIn = submission.timestamp();
+                }
+            }
+            if (lastPassingHandIn != null) {
+                cloneCommand.setShallowSince(lastPassingHandIn.minus(SHALLOW_MARGIN));
+            }
+        } catch (DataAccessException e) {
+            throw new GradingException("Failed to read previous submissions: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fetches the rest of the history of a shallow clone if the commits since the previous
+     * passing submission reach past what was cloned
+     *
+     * @return true if the history was deepened
+     */
+    boolean deepenIfTruncated(Git git, CommitThreshold lowerThreshold) throws IOException, GitAPIException {
+        Set<ObjectId> shallowCommits = git.getRepository().getObjectDatabase().getShallowCommits();
+        if (shallowCommits.isEmpty()) {
+            return false;
+        }
+        boolean truncated = lowerThreshold.commitHash() == null;
+        if (!truncated) {
+            try {
+                Iterable<RevCommit> commits = git.log()
+                        .addRange(ObjectId.fromString(lowerThreshold.commitHash()), ObjectId.fromString(headHash))
+                        .call();
+                for (RevCommit commit : commits) {
+                    if (shallowCommits.contains(commit)) {
+                        truncated = true;
+                        break;
+                    }
+                }
+            } catch (MissingObjectException | RevWalkException e) {
+                truncated = true;
+            }
+        }
+        if (truncated) {
+            LOGGER.info("Fetching full history of {} for commit verification", gradingContext.repoUrl());
+            git.fetch().setUnshallow(true).call();
+        }
+        return truncated;
+    }
+
+    /**
+     * Checks out the repo from its local mirror, fetching only what changed since it was last graded
+     *
+     * @return true if the repo was checked out, false if it should be cloned directly instead
+     */
+    private boolean cloneFromMirror(File intoDirectory) {
+        RepoMirrorCache mirrorCache = getMirrorCache();
+        if (mirrorCache == null) {
+            return false;
+        }
+        try {
+            // Reuse the head hash looked up when the submission was made, rather than asking the remote again
+            String knownHeadHash = gradingContext.regrade() == null ?
+                    SubmissionUtils.getRecentRemoteHeadHash(gradingContext.repoUrl()) : null;
+            mirrorCache.cloneInto(gradingContext.repoUrl(), intoDirectory, knownHeadHash,
+                    Duration.ofSeconds(ApplicationProperties.repoFetchTimeoutSeconds()));
+            LOGGER.info("Checked out repo from mirror to {}", intoDirectory);
+            return true;
+        } catch (IOException | GitAPIException | RuntimeException e) {
+            LOGGER.warn("Could not check out {} from its mirror; cloning it directly", gradingContext.repoUrl(), e);
+            FileUtils.removeDirectory(intoDirectory);
+            return false;
+        }
+    }
 
-        try (Git git = cloneCommand.call()) {
-            LOGGER.info("Cloned repo to {}", git.getRepository().getDirectory());
-        } catch (GitAPIException e) {
-            throw new GradingException("Failed to clone repo: " + e.getMessage(), e);
+    /**
+     * @return the shared mirror cache, or null if mirroring is turned off
+     */
+    public static synchronized RepoMirrorCache getMirrorCache() {
+        long budgetBytes = ApplicationProperties.repoMirrorBudgetMb() * 1024L * 1024L;
+        if (budgetBytes <= 0) {
+            return null;
         }
+        if (mirrorCache == null) {
+            mirrorCache = new RepoMirrorCache(new File(ApplicationProperties.repoMirrorPath()), budgetBytes);
+        }
+        return mirrorCache;
     }
 
     // Early decisions
@@ -138,6 +270,10 @@ public class GitHelper {
 
             try (Git git = Git.open(stageRepo)) {
                 CommitThreshold lowerThreshold = getMostRecentPassingSubmission(git, passingSubmissions);
+                if (deepenIfTruncated(git, lowerThreshold)) {
+                    // The previous submission's commit may only be known now
+                    lowerThreshold = getMostRecentPassingSubmission(git, passingSubmissions);
+                }
                 CommitThreshold upperThreshold = constructCurrentThreshold(git);
 
                 return verifyRegularCommits(git, lowerThreshold, upperThreshold);
@@ -329,7 +465,7 @@ public class GitHelper {
      */
     @NonNull
     private CommitThreshold constructCurrentThreshold(Git git) throws IOException, GradingException, DataAccessException {
-        var handInTimestamp = ScorerHelper.getHandInDateInstant(gradingContext.netId());
+        var handInTimestamp = ScorerHelper.getHandInDateInstant(gradingContext);
         var forgivenessMinutesHead = gradingContext.verificationConfig().forgivenessMinutesHead();
         if (handInTimestamp != null) {
             handInTimestamp = handInTimestamp.plusSeconds(forgivenessMinutesHead * 60L);
@@ -366,7 +502,14 @@ public class GitHelper {
     // Helpers
 
     private Collection<Submission> getPassingSubmissions() throws DataAccessException {
-        return DaoService.getSubmissionDao().getAllPassingSubmissions(gradingContext.netId());
+        Collection<Submission> passingSubmissions =
+                DaoService.getSubmissionDao().getAllPassingSubmissions(gradingContext.netId());
+        if (gradingContext.regrade() == null) {
+            return passingSubmissions;
+        }
+        // A regrade is verified as of its hand in date, so later submissions, such as of a later phase, don't count
+        Instant handInDate = gradingContext.regrade().handInDate();
+        return passingSubmissions.stream().filter(submission -> submission.timestamp().isBefore(handInDate)).toList();
     }
     private Submission getFirstPassingSubmission() throws DataAccessException {
         // CONSIDER: Rather than resolving this as a second database call,
@@ -0,0 +1,305 @@
+package edu.byu.cs.autograder.git;
+
+import edu.byu.cs.util.FileUtils;
+import edu.byu.cs.util.RepoUrlValidator;
+import org.eclipse.jgit.api.FetchCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a bare mirror of every student repo that has been graded, so repeat submissions only fetch
+ * the commits pushed since the last one instead of cloning the whole history again.
+ * <br>
+ * Mirrors are keyed by the cleaned repo url. Jobs for the same repo take turns with its mirror,
+ * while jobs for different repos proceed in parallel. When the mirrors grow past the disk budget,
+ * the least recently used ones are deleted.
+ */
+public class RepoMirrorCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepoMirrorCache.class);
+
+    private static final List<RefSpec> MIRROR_REF_SPECS = List.of(
+            new RefSpec("+refs/heads/*:refs/heads/*"),
+            new RefSpec("+refs/tags/*:refs/tags/*"));
+
+    private final File root;
+    private final long budgetBytes;
+
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    /** Size and last use of every mirror on disk, by mirror directory name. Loaded on first use. */
+    private Map<String, MirrorUsage> usage;
+
+    private record MirrorUsage(long sizeBytes, long lastUsedMillis) {}
+
+    /**
+     * @param root        the directory holding the mirrors
+     * @param budgetBytes how much disk the mirrors may take before the least recently used are deleted
+     */
+    public RepoMirrorCache(File root, long budgetBytes) {
+        this.root = root;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Brings the mirror of a repo up to date and checks out a working copy of it.
+     * The working copy's origin points at the repo itself rather than the mirror.
+     *
+     * @param repoUrl       the url of the repo
+     * @param intoDirectory where to check out the working copy
+     * @param knownHeadHash the remote HEAD if it was just looked up, or null. When the mirror's HEAD
+     *                      is already at this commit, the fetch is skipped.
+     * @param timeout       how long the fetch may wait on the remote before it is abandoned
+     * @throws IOException     if the mirror could not be read or written
+     * @throws GitAPIException if fetching or checking out failed
+     */
+    public void cloneInto(String repoUrl, File intoDirectory, String knownHeadHash, Duration timeout)
+            throws IOException, GitAPIException {
+        String name = mirrorName(repoUrl);
+        File mirror = new File(root, name);
+        ReentrantLock lock = locks.computeIfAbsent(name, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (!isAt(mirror, knownHeadHash)) {
+                fetchOrDiscard(repoUrl, name, mirror, timeout, NullProgressMonitor.INSTANCE);
+            }
+
+            try (Git git = Git.cloneRepository()
+                    .setURI(mirror.toURI().toString())
+                    .setDirectory(intoDirectory)
+                    .call()) {
+                StoredConfig config = git.getRepository().getConfig();
+                config.setString("remote", Constants.DEFAULT_REMOTE_NAME, "url", repoUrl);
+                config.save();
+            }
+            recordUse(name, mirror);
+        } finally {
+            lock.unlock();
+        }
+        evictOverBudget(name);
+    }
+
+    /**
+     * Something read from a mirror while it is locked
+     */
+    public interface MirrorReader<T> {
+        T read(Repository mirror) throws IOException;
+    }
+
+    /**
+     * Brings the mirror of a repo up to date and reads from it, without checking out a working copy.
+     *
+     * @param repoUrl the url of the repo
+     * @param timeout how long the fetch may wait on the remote before it is abandoned
+     * @param monitor follows the fetch, and can cancel it
+     * @param reader  reads from the mirror. The mirror cannot change while it runs.
+     * @return what the reader returned
+     * @throws IOException     if the mirror could not be read or written
+     * @throws GitAPIException if fetching failed
+     */
+    public <T> T readMirror(String repoUrl, Duration timeout, ProgressMonitor monitor, MirrorReader<T> reader)
+            throws IOException, GitAPIException {
+        String name = mirrorName(repoUrl);
+        File mirror = new File(root, name);
+        ReentrantLock lock = locks.computeIfAbsent(name, key -> new ReentrantLock());
+        T result;
+        lock.lock();
+        try {
+            fetchOrDiscard(repoUrl, name, mirror, timeout, monitor);
+            try (Git git = Git.open(mirror)) {
+                result = reader.read(git.getRepository());
+            }
+            recordUse(name, mirror);
+        } finally {
+            lock.unlock();
+        }
+        evictOverBudget(name);
+        return result;
+    }
+
+    private void fetchOrDiscard(String repoUrl, String name, File mirror, Duration timeout, ProgressMonitor monitor)
+            throws IOException, GitAPIException {
+        try {
+            fetch(repoUrl, mirror, timeout, monitor);
+        } catch (IOException | GitAPIException | RuntimeException e) {
+            // A half-written or corrupted mirror is not worth repairing; start it over next time
+            FileUtils.removeDirectory(mirror);
+            forget(name);
+            throw e;
+        }
+    }
+
+    /**
+     * The timeout bounds each wait on the remote, so a stalled connection fails instead of holding
+     * the mirror's lock. The monitor is only consulted as the fetch reports progress.
+     */
+    private void fetch(String repoUrl, File mirror, Duration timeout, ProgressMonitor monitor)
+            throws IOException, GitAPIException {
+        boolean created = !mirror.exists();
+        try (Git git = created ?
+                Git.init().setBare(true).setDirectory(mirror).call() :
+                Git.open(mirror)) {
+            FetchCommand fetchCommand = git.fetch()
+                    .setRemote(repoUrl)
+                    .setRefSpecs(MIRROR_REF_SPECS)
+                    .setRemoveDeletedRefs(true)
+                    .setTimeout((int) timeout.toSeconds())
+                    .setProgressMonitor(monitor);
+            FetchResult result = fetchCommand.call();
+            updateHead(git.getRepository(), result);
+            LOGGER.debug("{} mirror of {} at {}", created ? "Created" : "Updated", repoUrl, mirror);
+        }
+    }
+
+    private static boolean isAt(File mirror, String headHash) throws IOException {
+        if (headHash == null || !mirror.exists()) {
+            return false;
+        }
+        try (Repository repository = Git.open(mirror).getRepository()) {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            return head != null && head.getName().equals(headHash);
+        }
+    }
+
+    /**
+     * Points the mirror's HEAD at the repo's default branch, so working copies check out the same branch
+     * a plain clone would. Fetching only updates the branches themselves.
+     */
+    private static void updateHead(Repository mirror, FetchResult result) throws IOException {
+        Ref remoteHead = result.getAdvertisedRef(Constants.HEAD);
+        if (remoteHead == null) {
+            return;
+        }
+        String target = null;
+        if (remoteHead.isSymbolic()) {
+            target = remoteHead.getTarget().getName();
+        } else if (remoteHead.getObjectId() != null) {
+            for (Ref ref : result.getAdvertisedRefs()) {
+                if (ref.getName().startsWith(Constants.R_HEADS) && remoteHead.getObjectId().equals(ref.getObjectId())) {
+                    target = ref.getName();
+                    break;
+                }
+            }
+        }
+        Ref currentHead = mirror.exactRef(Constants.HEAD);
+        if (target == null || (currentHead != null && currentHead.isSymbolic()
+                && currentHead.getTarget().getName().equals(target))) {
+            return;
+        }
+        RefUpdate update = mirror.updateRef(Constants.HEAD);
+        update.disableRefLog();
+        update.link(target);
+    }
+
+    private synchronized void recordUse(String name, File mirror) throws IOException {
+        loadUsage();
+        usage.put(name, new MirrorUsage(directorySize(mirror.toPath()), System.currentTimeMillis()));
+        if (!mirror.setLastModified(System.currentTimeMillis())) {
+            LOGGER.debug("Could not touch {}", mirror);
+        }
+    }
+
+    private synchronized void forget(String name) {
+        if (usage != null) {
+            usage.remove(name);
+        }
+    }
+
+    /**
+     * Deletes the least recently used mirrors until the rest fit in the disk budget.
+     * Mirrors in use, and the one just used, are never deleted.
+     */
+    private synchronized void evictOverBudget(String justUsed) {
+        long total = usage.values().stream().mapToLong(MirrorUsage::sizeBytes).sum();
+        if (total <= budgetBytes) {
+            return;
+        }
+        List<Map.Entry<String, MirrorUsage>> leastRecentlyUsed = new ArrayList<>(usage.entrySet());
+        leastRecentlyUsed.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsedMillis()));
+        for (Map.Entry<String, MirrorUsage> entry : leastRecentlyUsed) {
+            if (total <= budgetBytes) {
+                break;
+            }
+            String name = entry.getKey();
+            if (name.equals(justUsed)) {
+                continue;
+            }
+            ReentrantLock lock = locks.computeIfAbsent(name, key -> new ReentrantLock());
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                FileUtils.removeDirectory(new File(root, name));
+                usage.remove(name);
+                total -= entry.getValue().sizeBytes();
+                LOGGER.info("Evicted repo mirror {} ({} bytes)", name, entry.getValue().sizeBytes());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void loadUsage() throws IOException {
+        if (usage != null) {
+            return;
+        }
+        usage = new HashMap<>();
+        File[] mirrors = root.listFiles(File::isDirectory);
+        if (mirrors == null) {
+            return;
+        }
+        for (File mirror : mirrors) {
+            usage.put(mirror.getName(), new MirrorUsage(directorySize(mirror.toPath()), mirror.lastModified()));
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    /**
+     * Names the mirror of a repo after a digest of its cleaned url, so different spellings
+     * of the same url share a mirror
+     */
+    private static String mirrorName(String repoUrl) {
+        String key;
+        try {
+            key = RepoUrlValidator.clean(repoUrl);
+        } catch (RepoUrlValidator.InvalidRepoUrlException e) {
+            // Admin submissions may use urls the validator does not accept
+            key = repoUrl;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest) + ".git";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
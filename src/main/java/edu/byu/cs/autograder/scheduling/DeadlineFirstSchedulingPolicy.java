@@ -0,0 +1,98 @@
+package edu.byu.cs.autograder.scheduling;
+
+import edu.byu.cs.autograder.score.LateDayCalculator;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.util.PhaseUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Grades submissions whose phase is due soonest first.
+ * <br>
+ * Submissions already past their due date, and those without one, come after every submission
+ * with an upcoming due date: their late days are fixed by the time they were queued,
+ * so grading them sooner cannot help. Ties are broken by queue order.
+ * <br>
+ * Due dates come from Canvas, since extensions make them differ by student. They are looked up in the
+ * background the first time an item is ordered, so ordering never waits on Canvas; until its due date
+ * arrives, an item is ordered as if it had none.
+ */
+public class DeadlineFirstSchedulingPolicy implements SchedulingPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeadlineFirstSchedulingPolicy.class);
+
+    /** Due dates of the waiting items, looked up once per item. Empty when there is no due date. */
+    private final Map<QueueItem, Optional<Instant>> dueDates = new ConcurrentHashMap<>();
+
+    /** Items whose due dates are being looked up */
+    private final Set<QueueItem> lookingUp = ConcurrentHashMap.newKeySet();
+
+    private final Executor lookups;
+
+    /** Only used by the lookups, one at a time */
+    private LateDayCalculator lateDayCalculator;
+
+    public DeadlineFirstSchedulingPolicy() {
+        this(Executors.newSingleThreadExecutor(Thread.ofPlatform().name("due-date-lookup").daemon().factory()));
+    }
+
+    /**
+     * @param lookups runs the due date lookups, one at a time
+     */
+    DeadlineFirstSchedulingPolicy(Executor lookups) {
+        this.lookups = lookups;
+    }
+
+    @Override
+    public List<QueueItem> order(Collection<QueueItem> waiting) {
+        dueDates.keySet().retainAll(new HashSet<>(waiting));
+        Instant now = Instant.now();
+        Comparator<QueueItem> byUpcomingDueDate = Comparator.comparing(
+                item -> dueDate(item).filter(now::isBefore).orElse(Instant.MAX));
+        return waiting.stream()
+                .sorted(byUpcomingDueDate.thenComparing(FifoSchedulingPolicy.QUEUE_ORDER))
+                .toList();
+    }
+
+    /**
+     * @return the item's due date if it has been looked up, starting the lookup if it has not
+     */
+    private Optional<Instant> dueDate(QueueItem item) {
+        if (!ApplicationProperties.useCanvas() || !PhaseUtils.isPhaseGraded(item.phase())) {
+            return Optional.empty();
+        }
+        Optional<Instant> dueDate = dueDates.get(item);
+        if (dueDate != null) {
+            return dueDate;
+        }
+        if (lookingUp.add(item)) {
+            lookups.execute(() -> {
+                try {
+                    dueDates.put(item, lookUpDueDate(item));
+                } finally {
+                    lookingUp.remove(item);
+                }
+            });
+        }
+        return dueDates.getOrDefault(item, Optional.empty());
+    }
+
+    private Optional<Instant> lookUpDueDate(QueueItem item) {
+        try {
+            if (lateDayCalculator == null) {
+                lateDayCalculator = new LateDayCalculator();
+            }
+            return Optional.of(lateDayCalculator.getDueDate(item.phase(), item.netId()).toInstant());
+        } catch (Exception e) {
+            LOGGER.warn("Could not get due date of {} for {}; scheduling it without one", item.phase(), item.netId(), e);
+            return Optional.empty();
+        }
+    }
+}
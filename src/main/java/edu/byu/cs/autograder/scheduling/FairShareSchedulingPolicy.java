@@ -0,0 +1,26 @@
+package edu.byu.cs.autograder.scheduling;
+
+import edu.byu.cs.model.QueueItem;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Takes turns between students: submissions from students who have had fewer submissions graded
+ * in the last day go first, so frequent resubmitters cannot crowd out everyone else.
+ * Ties are broken by queue order.
+ */
+public class FairShareSchedulingPolicy implements SchedulingPolicy {
+
+    private final SubmissionHistory history = new SubmissionHistory();
+
+    @Override
+    public synchronized List<QueueItem> order(Collection<QueueItem> waiting) {
+        history.retain(waiting);
+        return waiting.stream()
+                .sorted(Comparator.comparingInt(history::countForStudent)
+                        .thenComparing(FifoSchedulingPolicy.QUEUE_ORDER))
+                .toList();
+    }
+}
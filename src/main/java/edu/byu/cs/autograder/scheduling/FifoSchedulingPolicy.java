@@ -0,0 +1,21 @@
+package edu.byu.cs.autograder.scheduling;
+
+import edu.byu.cs.model.QueueItem;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Grades submissions in the order they were added to the queue
+ */
+public class FifoSchedulingPolicy implements SchedulingPolicy {
+
+    static final Comparator<QueueItem> QUEUE_ORDER =
+            Comparator.comparing(QueueItem::timeAdded).thenComparing(QueueItem::netId);
+
+    @Override
+    public List<QueueItem> order(Collection<QueueItem> waiting) {
+        return waiting.stream().sorted(QUEUE_ORDER).toList();
+    }
+}
@@ -0,0 +1,44 @@
+package edu.byu.cs.autograder.scheduling;
+
+import edu.byu.cs.model.QueueItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Moves submissions from students who have already resubmitted the same phase too many times
+ * in the last day behind all other submissions. Within each group, the wrapped policy decides.
+ */
+public class ResubmissionCapSchedulingPolicy implements SchedulingPolicy {
+
+    private final SchedulingPolicy policy;
+
+    private final int cap;
+
+    private final SubmissionHistory history = new SubmissionHistory();
+
+    /**
+     * @param policy orders the submissions within the capped and uncapped groups
+     * @param cap    the number of graded submissions of a phase per day after which a student is deprioritized
+     */
+    public ResubmissionCapSchedulingPolicy(SchedulingPolicy policy, int cap) {
+        this.policy = policy;
+        this.cap = cap;
+    }
+
+    @Override
+    public List<QueueItem> order(Collection<QueueItem> waiting) {
+        List<QueueItem> ordered = policy.order(waiting);
+        List<QueueItem> withinCap = new ArrayList<>();
+        List<QueueItem> overCap = new ArrayList<>();
+        synchronized (history) {
+            history.retain(waiting);
+            for (QueueItem item : ordered) {
+                (history.countForPhase(item) >= cap ? overCap : withinCap).add(item);
+            }
+        }
+        withinCap.addAll(overCap);
+        return withinCap;
+    }
+}
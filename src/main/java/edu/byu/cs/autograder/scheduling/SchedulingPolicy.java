@@ -0,0 +1,44 @@
+package edu.byu.cs.autograder.scheduling;
+
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.properties.ApplicationProperties;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Decides the order in which waiting submissions are graded.
+ * <br>
+ * A policy only changes when a submission is graded, never its hand in date: that is always the
+ * time the submission was added to the queue (see {@link edu.byu.cs.autograder.score.ScorerHelper}),
+ * so late days are unaffected by how long a submission waits.
+ */
+public interface SchedulingPolicy {
+
+    /**
+     * Orders the waiting queue items. This is called whenever a grader frees up and whenever queue
+     * positions are broadcast, while grading is held up, so implementations should cache anything
+     * expensive to look up, and look up anything slow, such as from Canvas, in the background.
+     *
+     * @param waiting the queue items that have not started grading
+     * @return the same items, with the one to grade next first
+     */
+    List<QueueItem> order(Collection<QueueItem> waiting);
+
+    /**
+     * Creates the policy configured with <code>--scheduling-policy</code> and <code>--resubmission-cap</code>
+     *
+     * @return the configured policy
+     */
+    static SchedulingPolicy fromProperties() {
+        SchedulingPolicy policy = switch (ApplicationProperties.schedulingPolicy()) {
+            case "fifo" -> new FifoSchedulingPolicy();
+            case "deadline" -> new DeadlineFirstSchedulingPolicy();
+            case "fair" -> new FairShareSchedulingPolicy();
+            default -> throw new IllegalArgumentException(
+                    "Unknown scheduling policy: " + ApplicationProperties.schedulingPolicy());
+        };
+        int resubmissionCap = ApplicationProperties.resubmissionCap();
+        return resubmissionCap > 0 ? new ResubmissionCapSchedulingPolicy(policy, resubmissionCap) : policy;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.byu.cs.autograder.scheduling;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.Submission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * The recent submissions of the students with waiting queue items, looked up once per queue item
+ */
+class SubmissionHistory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubmissionHistory.class);
+
+    /** How far back submissions count toward a student's recent history */
+    static final Duration WINDOW = Duration.ofHours(24);
+
+    private final Map<QueueItem, Collection<Submission>> recentSubmissions = new HashMap<>();
+
+    /**
+     * Forgets the history of items that are no longer waiting
+     */
+    void retain(Collection<QueueItem> waiting) {
+        recentSubmissions.keySet().retainAll(waiting);
+    }
+
+    /**
+     * @return how many submissions the item's student has had graded recently, in any phase
+     */
+    int countForStudent(QueueItem item) {
+        return recent(item).size();
+    }
+
+    /**
+     * @return how many submissions the item's student has had graded recently for the item's phase
+     */
+    int countForPhase(QueueItem item) {
+        return (int) recent(item).stream().filter(submission -> submission.phase() == item.phase()).count();
+    }
+
+    private Collection<Submission> recent(QueueItem item) {
+        return recentSubmissions.computeIfAbsent(item, SubmissionHistory::lookUpRecent);
+    }
+
+    private static Collection<Submission> lookUpRecent(QueueItem item) {
+        Instant since = item.timeAdded().minus(WINDOW);
+        try {
+            return DaoService.getSubmissionDao().getSubmissionsForUser(item.netId()).stream()
+                    .filter(submission -> submission.timestamp().isAfter(since))
+                    .toList();
+        } catch (Exception e) {
+            LOGGER.warn("Could not get recent submissions for {}", item.netId(), e);
+            return List.of();
+        }
+    }
+}
@@ -40,21 +40,31 @@ public class LateDayCalculator {
         initializePublicHolidays(getEncodedPublicHolidays());
     }
 
-    public int calculateLateDays(Phase phase, String netId) throws GradingException, DataAccessException {
+    public int calculateLateDays(Phase phase, String netId, ZonedDateTime handInDate) throws GradingException, DataAccessException {
         if (!ApplicationProperties.useCanvas()) return 0;
 
+        ZonedDateTime dueDate = getDueDate(phase, netId);
+
+        return Math.min(getNumDaysLate(handInDate, dueDate), MAX_LATE_DAYS_TO_PENALIZE);
+    }
+
+    /**
+     * Gets the due date of a phase for a student from Canvas, including any extensions
+     *
+     * @param phase the phase
+     * @param netId the student
+     * @return the due date
+     * @throws GradingException if Canvas could not provide the due date
+     */
+    public ZonedDateTime getDueDate(Phase phase, String netId) throws GradingException, DataAccessException {
         int assignmentNum = PhaseUtils.getPhaseAssignmentNumber(phase);
         int canvasUserId = DaoService.getUserDao().getUser(netId).canvasUserId();
 
-        ZonedDateTime dueDate;
         try {
-            dueDate = CanvasService.getCanvasIntegration().getAssignmentDueDateForStudent(canvasUserId, assignmentNum);
+            return CanvasService.getCanvasIntegration().getAssignmentDueDateForStudent(canvasUserId, assignmentNum);
         } catch (CanvasException e) {
             throw new GradingException("Failed to get due date for assignment " + assignmentNum + " for user " + netId, e);
         }
-
-        ZonedDateTime handInDate = ScorerHelper.getHandInDateZoned(netId);
-        return Math.min(getNumDaysLate(handInDate, dueDate), MAX_LATE_DAYS_TO_PENALIZE);
     }
 
     /**
@@ -63,7 +63,8 @@ public class Scorer {
             return generateSubmissionObject(rubric, commitVerificationResult, 0, getScores(rubric), "");
         }
 
-        int daysLate = new LateDayCalculator().calculateLateDays(gradingContext.phase(), gradingContext.netId());
+        int daysLate = new LateDayCalculator().calculateLateDays(gradingContext.phase(), gradingContext.netId(),
+                ScorerHelper.getHandInDateZoned(gradingContext));
         rubric = applyLatePenalty(rubric, daysLate);
         ScorePair scores = getScores(rubric);
 
@@ -118,6 +119,10 @@ public class Scorer {
             return generateSubmissionObject(rubric, commitVerificationResult, daysLate, scores,
                     "Would have attempted grade-book submission, but skipped due to application properties.");
         }
+        if (gradingContext.regrade() != null && !gradingContext.regrade().postToCanvas()) {
+            return generateSubmissionObject(rubric, commitVerificationResult, daysLate, scores,
+                    "Regraded without submitting to the grade-book.");
+        }
 
         AssessmentSubmittalRemnants submittalRemnants = attemptSendToCanvas(rubric, commitVerificationResult);
         return generateSubmissionObject(rubric, commitVerificationResult, daysLate, scores, submittalRemnants.notes);
@@ -397,7 +402,7 @@ public class Scorer {
         if (numDaysLate > 0)
             notes += " " + numDaysLate + " days late. -" + (int)(numDaysLate * PER_DAY_LATE_PENALTY * 100) + "%";
 
-        ZonedDateTime handInDate = ScorerHelper.getHandInDateZoned(netId);
+        ZonedDateTime handInDate = ScorerHelper.getHandInDateZoned(gradingContext);
         Submission.VerifiedStatus verifiedStatus;
         if (commitVerificationResult.verified()) {
             verifiedStatus = commitVerificationResult.isCachedResponse() ?
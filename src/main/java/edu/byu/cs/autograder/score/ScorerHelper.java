@@ -1,5 +1,6 @@
 package edu.byu.cs.autograder.score;
 
+import edu.byu.cs.autograder.GradingContext;
 import edu.byu.cs.autograder.GradingException;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
@@ -11,15 +12,18 @@ import java.time.ZonedDateTime;
 
 public class ScorerHelper {
     /**
-     * Returns the HandInDate of the provided student as an {@link Instant}.
+     * Returns the HandInDate of the submission being graded as an {@link Instant}.
      * This should only be used while processing a submission from a student.
      *
-     * @param netId The student to look up
-     * @return The instant the queue entry was added
+     * @param gradingContext The grading of the submission
+     * @return The original hand in date when regrading, otherwise the instant the queue entry was added
      * @throws GradingException If no queue item exists for the student
      */
-    public static Instant getHandInDateInstant(String netId) throws GradingException, DataAccessException {
-        QueueItem studentQueueItem = DaoService.getQueueDao().get(netId);
+    public static Instant getHandInDateInstant(GradingContext gradingContext) throws GradingException, DataAccessException {
+        if (gradingContext.regrade() != null) {
+            return gradingContext.regrade().handInDate();
+        }
+        QueueItem studentQueueItem = DaoService.getQueueDao().get(gradingContext.netId());
         if (studentQueueItem == null) {
             throw new GradingException("Cannot resolve hand in date without student queue item");
         }
@@ -27,15 +31,15 @@ public class ScorerHelper {
     }
 
     /**
-     * Returns the HandInDate of the provided student as a {@link ZonedDateTime}.
-     * @see ScorerHelper#getHandInDateZoned(String)
+     * Returns the HandInDate of the submission being graded as a {@link ZonedDateTime}.
+     * @see ScorerHelper#getHandInDateInstant(GradingContext)
      *
-     * @param netId The student to look up
+     * @param gradingContext The grading of the submission
      * @return The {@link ZonedDateTime} representing the hand in date
      * @throws GradingException if no queue item exists for the student
      */
-    public static ZonedDateTime getHandInDateZoned(String netId) throws GradingException, DataAccessException {
+    public static ZonedDateTime getHandInDateZoned(GradingContext gradingContext) throws GradingException, DataAccessException {
         // TODO: Read in this timezone from a dynamic location. See #156.
-        return getHandInDateInstant(netId).atZone(ZoneId.of("America/Denver"));
+        return getHandInDateInstant(gradingContext).atZone(ZoneId.of("America/Denver"));
     }
 }
@@ -26,7 +26,7 @@ public class PreviousPhasePassoffTestGrader extends TestGrader {
 
     @Override
     protected Set<File> testsToCompile() throws GradingException {
-        return allPreviousPhases((p) -> Set.of(new File("./phases/phase" + PhaseUtils.getPhaseAsString(p))));
+        return allPreviousPhases((p) -> Set.of(new File(gradingContext.phasesPath(), "phase" + PhaseUtils.getPhaseAsString(p))));
     }
 
     @Override
@@ -40,7 +40,7 @@ public abstract class TestGrader {
     public TestGrader(GradingContext gradingContext) {
         this.gradingContext = gradingContext;
         this.stageTestsPath = new File(gradingContext.stagePath() + "/tests");
-        this.phaseTests = new File("./phases/phase" + PhaseUtils.getPhaseAsString(gradingContext.phase()));
+        this.phaseTests = new File(gradingContext.phasesPath(), "phase" + PhaseUtils.getPhaseAsString(gradingContext.phase()));
         this.module = PhaseUtils.getModuleUnderTest(gradingContext.phase());
     }
 
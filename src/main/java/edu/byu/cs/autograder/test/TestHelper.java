@@ -3,6 +3,7 @@ package edu.byu.cs.autograder.test;
 import edu.byu.cs.autograder.GradingException;
 import edu.byu.cs.model.Rubric;
 import edu.byu.cs.model.TestAnalysis;
+import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.FileUtils;
 import edu.byu.cs.util.ProcessUtils;
 import org.slf4j.Logger;
@@ -156,6 +157,10 @@ public class TestHelper {
     private static List<String> getRunCommands(Set<String> packagesToTest, String uberJarPath) {
         List<String> commands = new ArrayList<>();
         commands.add("java");
+        String maxHeap = ApplicationProperties.gradingWorkerMaxHeap();
+        if (maxHeap != null) {
+            commands.add("-Xmx" + maxHeap);
+        }
         commands.add("-jar");
         commands.add(standaloneJunitJarPath);
         commands.add("execute");
@@ -4,15 +4,20 @@ import edu.byu.cs.canvas.CanvasException;
 import edu.byu.cs.canvas.model.CanvasSection;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.dataAccess.ItemNotFoundException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.SimilarPair;
 import edu.byu.cs.model.User;
 import edu.byu.cs.service.AdminService;
 import edu.byu.cs.util.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Response;
 import spark.Route;
 
 import java.io.OutputStream;
 import java.util.Collection;
+import java.util.List;
 
 import static edu.byu.cs.util.JwtUtils.generateToken;
 import static spark.Spark.halt;
@@ -21,6 +26,8 @@ public class AdminController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AdminController.class);
 
+    private static final int DEFAULT_SIMILAR_PAIRS = 100;
+
     public static final Route usersGet = (req, res) -> {
         Collection<User> users;
         try {
@@ -57,6 +64,25 @@ public class AdminController {
         String option = req.params(":option");
         String data;
 
+        if (AdminService.isCommitAnalyticsStream(option)) {
+            String acceptEncoding = req.headers("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            res.type("text/csv");
+            if (gzip) res.header("Content-Encoding", "gzip");
+            res.status(200);
+
+            OutputStream os = res.raw().getOutputStream();
+            try {
+                AdminService.streamCommitAnalytics(option, os, gzip);
+                os.close();
+            } catch (Exception e) {
+                LOGGER.error("Error sending commit analytics", e);
+                abortResponse(res, e);
+            }
+
+            return res.raw();
+        }
+
         try {
             data = AdminService.getCommitAnalytics(option);
         } catch (Exception e) {
@@ -74,24 +100,95 @@ public class AdminController {
     public static final Route honorCheckerZipGet = (req, res) -> {
         String sectionStr = req.params(":section");
 
-        try (OutputStream os = res.raw().getOutputStream()) {
-            AdminService.streamHonorCheckerZip(sectionStr, os);
+        // The zip is streamed as it is built, so the headers have to be set first
+        res.status(200);
+        res.header("Content-Type", "application/zip");
+        res.header("Content-Disposition", "attachment; filename=" + "downloaded_file.zip");
 
+        OutputStream os = res.raw().getOutputStream();
+        try {
+            AdminService.streamHonorCheckerZip(sectionStr, os);
+            os.close();
         } catch (Exception e) {
             LOGGER.error("Error compiling honor checker", e);
+            if (res.raw().isCommitted()) {
+                // Part of the zip has been sent, so the download has to be cut off for it to be seen as failed
+                abortResponse(res, e);
+                return res.raw();
+            }
+            res.raw().reset();
             res.status(500);
             return e.getMessage();
         }
 
+        return res.raw();
+
+    };
+
+    public static final Route similarityGet = (req, res) -> {
+        Phase phase = parsePhase(req);
+        int limit = DEFAULT_SIMILAR_PAIRS;
+        if (req.queryParams("limit") != null) {
+            try {
+                limit = Integer.parseInt(req.queryParams("limit"));
+            } catch (NumberFormatException e) {
+                halt(400, "Invalid limit");
+            }
+            if (limit < 1) {
+                halt(400, "Invalid limit");
+            }
+        }
+
+        List<SimilarPair> pairs;
+        try {
+            pairs = AdminService.getSimilarPairs(phase, limit);
+        } catch (DataAccessException e) {
+            LOGGER.error("Error checking similarity", e);
+            halt(500);
+            return null;
+        }
+
+        res.type("application/json");
         res.status(200);
+        return Serializer.serialize(pairs);
+    };
 
-        res.header("Content-Type", "application/zip");
-        res.header("Content-Disposition", "attachment; filename=" + "downloaded_file.zip");
+    public static final Route similarityIndexPost = (req, res) -> {
+        Phase phase = parsePhase(req);
 
-        return res.raw();
+        int indexed;
+        try {
+            indexed = AdminService.indexSimilarity(phase);
+        } catch (DataAccessException e) {
+            LOGGER.error("Error indexing submissions for the similarity check", e);
+            halt(500);
+            return null;
+        }
 
+        res.type("application/json");
+        res.status(200);
+        return Serializer.serialize(indexed);
     };
 
+    /**
+     * Cuts the connection of a response whose status and first bytes were already sent,
+     * since an error can then only be reported by the response not finishing
+     */
+    private static void abortResponse(Response res, Exception e) {
+        if (res.raw() instanceof org.eclipse.jetty.server.Response jettyResponse) {
+            jettyResponse.getHttpChannel().abort(e);
+        }
+    }
+
+    private static Phase parsePhase(Request req) {
+        try {
+            return Phase.valueOf(req.params(":phase"));
+        } catch (IllegalArgumentException e) {
+            halt(400, "Invalid phase");
+            return null;
+        }
+    }
+
     public static Route sectionsGet = (req, res) -> {
         try {
             CanvasSection[] sections = AdminService.getAllSections();
@@ -0,0 +1,80 @@
+package edu.byu.cs.controller;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Estimates how long a waiting submission will take to be graded, from the rolling
+ * average duration of each grading stage over recent submissions.
+ */
+class GradingTimeEstimator {
+
+    enum Stage { FETCH, EVALUATE, SCORE }
+
+    /** How many recent durations are averaged per stage. */
+    private static final int SAMPLE_SIZE = 50;
+
+    private final Map<Stage, Deque<Duration>> samples = new EnumMap<>(Stage.class);
+    private final Map<Stage, Integer> workers;
+
+    /**
+     * @param workers how many threads run each stage concurrently
+     */
+    GradingTimeEstimator(Map<Stage, Integer> workers) {
+        this.workers = workers;
+        for (Stage stage : Stage.values()) {
+            samples.put(stage, new ArrayDeque<>(SAMPLE_SIZE));
+        }
+    }
+
+    /**
+     * Records how long a stage took for a submission that completed it
+     */
+    synchronized void record(Stage stage, Duration duration) {
+        Deque<Duration> stageSamples = samples.get(stage);
+        if (stageSamples.size() == SAMPLE_SIZE) {
+            stageSamples.removeFirst();
+        }
+        stageSamples.addLast(duration);
+    }
+
+    /**
+     * Estimates the time until a submission at the given queue position has its results.
+     * The stages run as a pipeline, so the queue drains at the pace of the slowest stage,
+     * after which the submission still goes through every stage itself.
+     *
+     * @param position the 1-based queue position of the submission
+     * @return the estimate, or null until a submission has been fully graded
+     */
+    synchronized Duration estimateWait(int position) {
+        Duration slowestStageInterval = Duration.ZERO;
+        Duration ownGradingTime = Duration.ZERO;
+        for (Stage stage : Stage.values()) {
+            Duration average = average(stage);
+            if (average == null) {
+                return null;
+            }
+            Duration interval = average.dividedBy(Math.max(1, workers.get(stage)));
+            if (interval.compareTo(slowestStageInterval) > 0) {
+                slowestStageInterval = interval;
+            }
+            ownGradingTime = ownGradingTime.plus(average);
+        }
+        return slowestStageInterval.multipliedBy(Math.max(0, position - 1)).plus(ownGradingTime);
+    }
+
+    private Duration average(Stage stage) {
+        Deque<Duration> stageSamples = samples.get(stage);
+        if (stageSamples.isEmpty()) {
+            return null;
+        }
+        Duration total = Duration.ZERO;
+        for (Duration sample : stageSamples) {
+            total = total.plus(sample);
+        }
+        return total.dividedBy(stageSamples.size());
+    }
+}
@@ -0,0 +1,82 @@
+package edu.byu.cs.controller;
+
+import edu.byu.cs.autograder.scheduling.SchedulingPolicy;
+import edu.byu.cs.model.QueueItem;
+
+import java.util.*;
+
+/**
+ * An in-memory index of the queue items waiting to be graded.
+ * It mirrors the waiting rows of the <code>queue</code> table so queue positions can be computed
+ * without reading the whole table. Items are kept in queue order; the scheduling policy decides the grading order.
+ */
+class QueueIndex {
+
+    private static final Comparator<QueueItem> QUEUE_ORDER =
+            Comparator.comparing(QueueItem::timeAdded).thenComparing(QueueItem::netId);
+
+    private final NavigableSet<QueueItem> waiting = new TreeSet<>(QUEUE_ORDER);
+    private final Map<String, QueueItem> itemsByNetId = new HashMap<>();
+
+    /**
+     * Updates the index with the current state of one queue row
+     *
+     * @param netId the netId of the row
+     * @param item  the row, or null if it was removed from the queue
+     */
+    synchronized void update(String netId, QueueItem item) {
+        QueueItem previous = itemsByNetId.remove(netId);
+        if (previous != null) {
+            waiting.remove(previous);
+        }
+        if (item != null && !item.started()) {
+            itemsByNetId.put(netId, item);
+            waiting.add(item);
+        }
+    }
+
+    /**
+     * Replaces the contents of the index with the given queue rows
+     *
+     * @param items every row of the queue table
+     */
+    synchronized void reset(Collection<QueueItem> items) {
+        waiting.clear();
+        itemsByNetId.clear();
+        for (QueueItem item : items) {
+            update(item.netId(), item);
+        }
+    }
+
+    /**
+     * @return the number of waiting items
+     */
+    synchronized int size() {
+        return waiting.size();
+    }
+
+    /**
+     * @param netId the netId of a queue row
+     * @return the row, or null if it is not waiting
+     */
+    synchronized QueueItem get(String netId) {
+        return itemsByNetId.get(netId);
+    }
+
+    /**
+     * @param policy decides the order the waiting items will be graded in
+     * @return the 1-based queue position of every waiting netId, in grading order
+     */
+    LinkedHashMap<String, Integer> positions(SchedulingPolicy policy) {
+        List<QueueItem> items;
+        synchronized (this) {
+            items = new ArrayList<>(waiting);
+        }
+        LinkedHashMap<String, Integer> positions = new LinkedHashMap<>();
+        int position = 1;
+        for (QueueItem item : policy.order(items)) {
+            positions.put(item.netId(), position++);
+        }
+        return positions;
+    }
+}
@@ -1,12 +1,16 @@
 package edu.byu.cs.controller;
 
 import edu.byu.cs.controller.exception.BadRequestException;
+import edu.byu.cs.controller.exception.TooManyRequestsException;
 import edu.byu.cs.controller.netmodel.ApprovalRequest;
+import edu.byu.cs.controller.netmodel.BatchRegradeRequest;
 import edu.byu.cs.controller.netmodel.GradeRequest;
 import edu.byu.cs.dataAccess.*;
+import edu.byu.cs.model.BatchRegradeStatus;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Submission;
 import edu.byu.cs.model.User;
+import edu.byu.cs.service.BatchRegradeService;
 import edu.byu.cs.service.SubmissionService;
 import edu.byu.cs.util.Serializer;
 import org.slf4j.Logger;
@@ -14,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Route;
 
+import java.time.Duration;
 import java.util.*;
 
 import static spark.Spark.halt;
@@ -35,6 +40,10 @@ public class SubmissionController {
         } catch (BadRequestException e) {
             halt(400, e.getMessage());
             return null;
+        } catch (TooManyRequestsException e) {
+            res.header("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            halt(429, e.getMessage());
+            return null;
         } catch (DataAccessException e) {
             halt(500, e.getMessage());
             return null;
@@ -102,9 +111,22 @@ public class SubmissionController {
 
         boolean inQueue = SubmissionService.isAlreadyInQueue(netId);
 
+        Map<String, Object> response = new HashMap<>();
+        response.put("inQueue", inQueue);
+        if (inQueue) {
+            Integer position = TrafficController.getInstance().getQueuePosition(netId);
+            if (position != null) {
+                response.put("position", position);
+                Duration estimatedWait = TrafficController.getInstance().estimateWait(position);
+                if (estimatedWait != null) {
+                    response.put("estimatedWaitSeconds", estimatedWait.toSeconds());
+                }
+            }
+        }
+
         res.status(200);
 
-        return Serializer.serialize(Map.of("inQueue", inQueue));
+        return Serializer.serialize(response);
     };
 
     public static final Route latestSubmissionForMeGet = (req, res) -> {
@@ -217,4 +239,74 @@ public class SubmissionController {
         return Serializer.serialize(Map.of("message", "re-running submissions in queue"));
     };
 
+    public static final Route batchRegradePost = (req, res) -> {
+        User adminUser = req.session().attribute("user");
+
+        BatchRegradeRequest request;
+        try {
+            request = Serializer.deserialize(req.body(), BatchRegradeRequest.class);
+        } catch (Serializer.SerializationException e) {
+            halt(400, "Request must be valid json");
+            return null;
+        }
+
+        BatchRegradeStatus status;
+        try {
+            status = BatchRegradeService.start(adminUser.netId(), request);
+        } catch (BadRequestException e) {
+            halt(400, e.getMessage());
+            return null;
+        } catch (DataAccessException e) {
+            halt(500, e.getMessage());
+            return null;
+        }
+
+        res.status(200);
+        res.type("application/json");
+
+        return Serializer.serialize(status);
+    };
+
+    public static final Route batchRegradesGet = (req, res) -> {
+        res.status(200);
+        res.type("application/json");
+
+        return Serializer.serialize(BatchRegradeService.getAll());
+    };
+
+    public static final Route batchRegradeGet = (req, res) -> {
+        BatchRegradeStatus status = BatchRegradeService.get(parseBatchId(req));
+        if (status == null) {
+            halt(404, "No batch regrade with that id");
+            return null;
+        }
+
+        res.status(200);
+        res.type("application/json");
+
+        return Serializer.serialize(status);
+    };
+
+    public static final Route batchRegradeCancelPost = (req, res) -> {
+        BatchRegradeStatus status = BatchRegradeService.cancel(parseBatchId(req));
+        if (status == null) {
+            halt(404, "No batch regrade with that id");
+            return null;
+        }
+
+        res.status(200);
+        res.type("application/json");
+
+        return Serializer.serialize(status);
+    };
+
+    private static int parseBatchId(Request req) {
+        try {
+            return Integer.parseInt(req.params(":id"));
+        } catch (NumberFormatException e) {
+            halt(400, "Invalid batch id");
+            return -1;
+        }
+    }
+
 }
@@ -1,33 +1,104 @@
 package edu.byu.cs.controller;
 
 import edu.byu.cs.autograder.Grader;
+import edu.byu.cs.autograder.scheduling.SchedulingPolicy;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.service.QueueLeaseService;
+import edu.byu.cs.util.Serializer;
 import org.eclipse.jetty.websocket.api.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Controller for handling the queue of graders
  */
 public class TrafficController {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrafficController.class);
+
     /**
      * A map of netIds to sessions that are subscribed to updates for that netId
      */
     public static final ConcurrentHashMap<String, List<Session>> sessions = new ConcurrentHashMap<>();
 
     /**
-     * The executor service that runs the graders
+     * Runs the network-bound stage of each grader: cloning and commit verification.
+     */
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(
+            ApplicationProperties.gradingFetchWorkers(),
+            Thread.ofPlatform().name("grading-fetch-", 1).factory());
+
+    /**
+     * The executor service that runs the CPU-bound stage of the graders. Each thread is a grading worker;
+     * the number of workers is configured with the <code>--grading-workers</code> option.
+     */
+    private final ExecutorService executorService = Executors.newFixedThreadPool(
+            ApplicationProperties.gradingWorkers(),
+            Thread.ofPlatform().name("grading-worker-", 1).factory());
+
+    /**
+     * Runs the external API stage of each grader: scoring and posting to Canvas.
+     */
+    private final ExecutorService scoreExecutor = Executors.newFixedThreadPool(
+            ApplicationProperties.gradingScoreWorkers(),
+            Thread.ofPlatform().name("grading-score-", 1).factory());
+
+    /**
+     * Bounds the number of graders holding a stage directory and student database.
+     * Fetch workers may only run ahead of the grading workers by one submission each.
+     * A permit is taken when a grader is dispatched and returned once it no longer needs its stage.
+     */
+    private final Semaphore stagedGraders = new Semaphore(
+            ApplicationProperties.gradingWorkers() + ApplicationProperties.gradingFetchWorkers());
+
+    /**
+     * When grading happens on separate workers, the time each watched queue item was added
+     * and whether its subscribers have been told it started.
      */
-    private final ExecutorService executorService = Executors.newFixedThreadPool(1);
+    private final Map<String, Boolean> remoteStartAnnounced = new ConcurrentHashMap<>();
+    private final Map<String, Instant> remoteTimeAdded = new ConcurrentHashMap<>();
+
+    private static final long BROADCAST_TICK_MILLIS = 250;
+    private static final long INDEX_RESYNC_SECONDS = 5;
+
+    /** The queue items waiting to be graded, kept in step with the queue table. */
+    private final QueueIndex queueIndex = new QueueIndex();
+
+    /** The queue position each waiting netId was last sent. */
+    private final Map<String, Integer> lastSentPositions = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean broadcastPending = new AtomicBoolean();
+
+    /** Decides which waiting submission is graded next, and so the queue positions. */
+    private final SchedulingPolicy schedulingPolicy = SchedulingPolicy.fromProperties();
+
+    private final GradingTimeEstimator gradingTimeEstimator = new GradingTimeEstimator(Map.of(
+            GradingTimeEstimator.Stage.FETCH, ApplicationProperties.gradingFetchWorkers(),
+            GradingTimeEstimator.Stage.EVALUATE, ApplicationProperties.gradingWorkers(),
+            GradingTimeEstimator.Stage.SCORE, ApplicationProperties.gradingScoreWorkers()));
+
+    /** Graders added to this process that are waiting for a free slot, by netId. There is at most one per student. */
+    private final Map<String, Grader> waitingGraders = new ConcurrentHashMap<>();
 
     private static final TrafficController trafficController = new TrafficController();
 
@@ -39,38 +110,265 @@ public class TrafficController {
     }
 
     /**
-     * Broadcasts the current queue status to all connected clients.
-     * Each client will be notified of their specific position in the queue.
+     * Requests that the current queue status be broadcast to the connected clients.
+     * Requests are coalesced into at most one broadcast per tick, and each client is only sent
+     * its position in the queue when it has changed since the last one it was sent.
+     * Items currently being graded by any worker are not counted as waiting.
      */
-    public static void broadcastQueueStatus() throws DataAccessException {
+    public static void broadcastQueueStatus() {
+        getInstance().broadcastPending.set(true);
+    }
 
-        List<QueueItem> usersWaitingInQueue = new ArrayList<>();
-        for (QueueItem item : DaoService.getQueueDao().getAll())
-            if (!item.started())
-                usersWaitingInQueue.add(item);
+    /**
+     * Updates the queue index from the current state of one row of the queue table
+     * and requests a broadcast of the resulting queue positions.
+     * Must be called whenever a row is added, started, put back to waiting, or removed.
+     *
+     * @param netId the netId of the queue row that changed
+     */
+    public static void queueItemChanged(String netId) {
+        try {
+            getInstance().queueIndex.update(netId, DaoService.getQueueDao().get(netId));
+        } catch (DataAccessException e) {
+            LOGGER.error("Error reading queue item for {}", netId, e);
+        }
+        broadcastQueueStatus();
+    }
 
-        usersWaitingInQueue.sort(Comparator.comparing(QueueItem::timeAdded));
+    /**
+     * Makes sure the next broadcast sends a client its queue position, such as after it subscribes
+     *
+     * @param netId the netId of the client
+     */
+    public static void resendQueueStatus(String netId) {
+        getInstance().lastSentPositions.remove(netId);
+        broadcastQueueStatus();
+    }
 
-        int i = 1;
-        for (QueueItem item : usersWaitingInQueue) {
-            getInstance().notifySubscribers(item.netId(), Map.of(
-                    "type", "queueStatus",
-                    "position", i,
-                    "total", usersWaitingInQueue.size()
-            ));
-            i++;
-        }
+    /**
+     * Starts sending coalesced queue status broadcasts. The queue index is also periodically
+     * rebuilt from the queue table to pick up changes made by other processes.
+     */
+    public void startQueueStatusBroadcaster() {
+        ScheduledExecutorService broadcaster = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("queue-status-broadcaster").daemon().factory());
+        broadcaster.scheduleWithFixedDelay(() -> {
+            try {
+                if (broadcastPending.getAndSet(false)) {
+                    sendQueuePositionChanges();
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error broadcasting queue status", e);
+            }
+        }, BROADCAST_TICK_MILLIS, BROADCAST_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        broadcaster.scheduleWithFixedDelay(() -> {
+            try {
+                queueIndex.reset(DaoService.getQueueDao().getAll());
+                broadcastQueueStatus();
+            } catch (Exception e) {
+                LOGGER.error("Error rebuilding queue index", e);
+            }
+        }, 0, INDEX_RESYNC_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void sendQueuePositionChanges() {
+        Map<String, Integer> positions = queueIndex.positions(schedulingPolicy);
+        lastSentPositions.keySet().retainAll(positions.keySet());
+        positions.forEach((netId, position) -> {
+            if (!position.equals(lastSentPositions.put(netId, position))) {
+                Map<String, Object> message = new HashMap<>(Map.of(
+                        "type", "queueStatus",
+                        "position", position,
+                        "total", positions.size()
+                ));
+                Duration estimatedWait = estimateWait(position);
+                if (estimatedWait != null) {
+                    message.put("estimatedWaitSeconds", estimatedWait.toSeconds());
+                }
+                notifySubscribers(netId, message);
+            }
+        });
     }
 
     /**
-     * Adds a grader to the queue. The grader will be run when there is an available thread
+     * Adds a grader to the queue. The scheduling policy decides which waiting grader starts whenever
+     * a grading slot frees up. Each stage of the grader runs on its own executor,
+     * so the next submission can be fetched while the current one compiles and tests,
+     * and Canvas posting does not hold up a grading worker.
+     *
+     * A student has one queue item, so a grader is rejected if this process is already grading the student.
      *
      * @param grader the grader to add
+     * @return false if the grader was rejected
      */
-    public void addGrader(Grader grader) {
-        executorService.submit(grader);
+    public boolean addGrader(Grader grader) {
+        if (!QueueLeaseService.register(grader)) {
+            LOGGER.warn("Already grading a submission for {}; not adding another grader", grader.netId());
+            return false;
+        }
+        waitingGraders.put(grader.netId(), grader);
+        dispatchGraders();
+        return true;
     }
 
+    /**
+     * Starts waiting graders, in the order chosen by the scheduling policy, while there are free slots
+     */
+    private synchronized void dispatchGraders() {
+        while (!waitingGraders.isEmpty() && stagedGraders.tryAcquire()) {
+            Grader grader = nextGrader();
+            waitingGraders.remove(grader.netId());
+            startPipeline(grader);
+        }
+    }
+
+    /**
+     * Graders whose queue row is not waiting, such as one being rerun, go first.
+     */
+    private Grader nextGrader() {
+        List<QueueItem> waitingItems = new ArrayList<>();
+        for (Map.Entry<String, Grader> entry : waitingGraders.entrySet()) {
+            QueueItem item = queueIndex.get(entry.getKey());
+            if (item == null) {
+                return entry.getValue();
+            }
+            waitingItems.add(item);
+        }
+        return waitingGraders.get(schedulingPolicy.order(waitingItems).getFirst().netId());
+    }
+
+    private void startPipeline(Grader grader) {
+        CompletableFuture
+                .supplyAsync(() -> fetchStage(grader), fetchExecutor)
+                .thenCompose(fetched -> !fetched ? CompletableFuture.completedFuture(false) :
+                        CompletableFuture.supplyAsync(() -> evaluateStage(grader), executorService))
+                .thenCompose(evaluated -> !evaluated ? CompletableFuture.completedFuture(null) :
+                        CompletableFuture.runAsync(() -> scoreStage(grader), scoreExecutor))
+                .exceptionally(throwable -> {
+                    LOGGER.error("Grading pipeline failed unexpectedly", throwable);
+                    return null;
+                })
+                .thenRun(() -> QueueLeaseService.unregister(grader));
+    }
+
+    private boolean fetchStage(Grader grader) {
+        boolean fetched = false;
+        Instant start = Instant.now();
+        try {
+            fetched = grader.fetchAndVerify();
+            if (fetched) recordStage(GradingTimeEstimator.Stage.FETCH, start);
+            return fetched;
+        } finally {
+            if (!fetched) releaseSlot();
+        }
+    }
+
+    private boolean evaluateStage(Grader grader) {
+        Instant start = Instant.now();
+        try {
+            boolean evaluated = grader.evaluate();
+            if (evaluated) recordStage(GradingTimeEstimator.Stage.EVALUATE, start);
+            return evaluated;
+        } finally {
+            releaseSlot();
+        }
+    }
+
+    private void scoreStage(Grader grader) {
+        Instant start = Instant.now();
+        grader.score();
+        recordStage(GradingTimeEstimator.Stage.SCORE, start);
+    }
+
+    private void recordStage(GradingTimeEstimator.Stage stage, Instant start) {
+        gradingTimeEstimator.record(stage, Duration.between(start, Instant.now()));
+    }
+
+    /**
+     * @param netId the netId of a student
+     * @return the student's 1-based position among the submissions waiting to be graded, or null if not waiting
+     */
+    public Integer getQueuePosition(String netId) {
+        return queueIndex.positions(schedulingPolicy).get(netId);
+    }
+
+    /**
+     * @return the number of submissions waiting to be graded
+     */
+    public int getWaitingCount() {
+        return queueIndex.size();
+    }
+
+    /**
+     * Estimates how long until a submission at the given queue position has its results,
+     * based on how long recent submissions took in each grading stage.
+     *
+     * @param position the 1-based queue position
+     * @return the estimate, or null if there is not enough history yet
+     */
+    public Duration estimateWait(int position) {
+        return gradingTimeEstimator.estimateWait(position);
+    }
+
+    private void releaseSlot() {
+        stagedGraders.release();
+        dispatchGraders();
+    }
+
+    /**
+     * Used with <code>--remote-grading</code>. Grading workers run in other processes and cannot
+     * reach the websocket sessions held here, so this periodically checks the queue rows of every
+     * subscribed user and relays when their submission starts and finishes.
+     */
+    public void startRemoteGradingMonitor() {
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("remote-grading-monitor").daemon().factory());
+        monitor.scheduleWithFixedDelay(() -> {
+            try {
+                checkRemoteGraders();
+            } catch (Exception e) {
+                LOGGER.error("Error checking on remote graders", e);
+            }
+        }, 2, 2, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Used with <code>--remote-grading</code>. Remembers when a submission was queued, so its result can be
+     * told apart from older ones even if a worker grades it before the monitor first sees its queue row.
+     *
+     * @param item the queue item that was just added
+     */
+    public void watchRemoteSubmission(QueueItem item) {
+        remoteTimeAdded.put(item.netId(), item.timeAdded());
+    }
+
+    private void checkRemoteGraders() throws DataAccessException {
+        for (String netId : sessions.keySet()) {
+            QueueItem item = DaoService.getQueueDao().get(netId);
+            if (item != null) {
+                remoteTimeAdded.putIfAbsent(netId, item.timeAdded());
+                if (item.started() && remoteStartAnnounced.put(netId, true) == null) {
+                    notifySubscribers(netId, Map.of("type", "started"));
+                    queueIndex.update(netId, item);
+                    broadcastQueueStatus();
+                }
+                continue;
+            }
+
+            Instant timeAdded = remoteTimeAdded.remove(netId);
+            remoteStartAnnounced.remove(netId);
+            Submission submission = DaoService.getSubmissionDao().getLastSubmissionForUser(netId);
+            if (submission != null && timeAdded != null &&
+                    !submission.timestamp().isBefore(timeAdded.truncatedTo(ChronoUnit.SECONDS))) {
+                notifySubscribers(netId, Map.of("type", "results", "results", Serializer.serialize(submission)));
+            } else {
+                notifySubscribers(netId, Map.of("type", "error", "message", "There was an error grading your submission"));
+            }
+            sessions.remove(netId);
+            queueIndex.update(netId, null);
+            broadcastQueueStatus();
+        }
+    }
 
     public void notifySubscribers(String netId, Map<String, Object> message) {
         List<Session> sessionList = sessions.get(netId);
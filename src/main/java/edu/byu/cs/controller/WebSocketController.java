@@ -1,6 +1,7 @@
 package edu.byu.cs.controller;
 
-import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.autograder.GradingEventLog;
+import edu.byu.cs.autograder.GradingObserverImpl;
 import edu.byu.cs.util.JwtUtils;
 import edu.byu.cs.util.Serializer;
 import org.eclipse.jetty.websocket.api.CloseException;
@@ -11,6 +12,7 @@ import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 
 @WebSocket
@@ -36,22 +38,28 @@ public class WebSocketController {
             return;
         }
 
-        if (!TrafficController.sessions.containsKey(netId)) {
-            sendError(session, "You are not in the queue");
-            session.close();
+        GradingEventLog eventLog = GradingObserverImpl.getEventLog(netId);
+        List<Session> sessionList = TrafficController.sessions.get(netId);
+        if (sessionList == null) {
+            if (eventLog == null) {
+                sendError(session, "You are not in the queue");
+                session.close();
+            } else {
+                // Grading already finished; catch the client up, ending with the results
+                eventLog.replay(event -> send(session, event), () -> {});
+            }
             return;
         }
 
-        if (TrafficController.sessions.get(netId).contains(session))
+        if (sessionList.contains(session))
             return;
 
-        TrafficController.sessions.get(netId).add(session);
-        try {
-            TrafficController.broadcastQueueStatus();
-        } catch (DataAccessException e) {
-            LOGGER.error("Error broadcasting queue status", e);
-            throw new RuntimeException("Error broadcasting queue status", e);
+        if (eventLog == null) {
+            sessionList.add(session);
+        } else {
+            eventLog.replay(event -> send(session, event), () -> sessionList.add(session));
         }
+        TrafficController.resendQueueStatus(netId);
     }
 
     /**
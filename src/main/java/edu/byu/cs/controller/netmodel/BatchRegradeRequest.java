@@ -0,0 +1,12 @@
+package edu.byu.cs.controller.netmodel;
+
+import edu.byu.cs.model.Phase;
+
+import java.util.List;
+
+/**
+ * @param phase        the phase to regrade
+ * @param netIds       the students whose latest submission of the phase is regraded, or null for every student
+ * @param postToCanvas whether improved scores are sent to Canvas, or only recorded
+ */
+public record BatchRegradeRequest(Phase phase, List<String> netIds, boolean postToCanvas) {}
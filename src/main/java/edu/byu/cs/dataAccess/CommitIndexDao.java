@@ -0,0 +1,23 @@
+package edu.byu.cs.dataAccess;
+
+import edu.byu.cs.model.CommitIndexEntry;
+
+/**
+ * Stores the commit times indexed from each student's repo, so commit analytics
+ * only has to read the commits made since the last update.
+ */
+public interface CommitIndexDao {
+
+    /**
+     * @param netId the student
+     * @return the student's index, or null if their repo has not been indexed
+     */
+    CommitIndexEntry getEntry(String netId) throws DataAccessException;
+
+    /**
+     * Saves a student's index, replacing the previous one
+     *
+     * @param entry the index
+     */
+    void putEntry(CommitIndexEntry entry) throws DataAccessException;
+}
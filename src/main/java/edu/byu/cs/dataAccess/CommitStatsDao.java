@@ -0,0 +1,28 @@
+package edu.byu.cs.dataAccess;
+
+import edu.byu.cs.model.CommitStats;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stores the per-commit results of commit verification so that commits seen in an earlier
+ * submission do not have to be diffed again.
+ */
+public interface CommitStatsDao {
+
+    /**
+     * Gets the saved stats of the given commits
+     *
+     * @param hashes the commit hashes to look up
+     * @return the stats of every commit that has been saved, by hash
+     */
+    Map<String, CommitStats> getStats(Collection<String> hashes) throws DataAccessException;
+
+    /**
+     * Saves the stats of commits. Commits that are already saved are left as they are.
+     *
+     * @param stats the stats to save
+     */
+    void insertStats(Collection<CommitStats> stats) throws DataAccessException;
+}
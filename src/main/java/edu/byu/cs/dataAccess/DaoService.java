@@ -11,6 +11,10 @@ public class DaoService {
     private static RubricConfigDao rubricConfigDao = new RubricConfigMemoryDao();
     private static ConfigurationDao configurationDao = new ConfigurationMemoryDao();
     private static RepoUpdateDao repoUpdateDao = new RepoUpdateMemoryDao();
+    private static GradedResultDao gradedResultDao = new GradedResultMemoryDao();
+    private static CommitStatsDao commitStatsDao = new CommitStatsMemoryDao();
+    private static CommitIndexDao commitIndexDao = new CommitIndexMemoryDao();
+    private static SourceFingerprintDao sourceFingerprintDao = new SourceFingerprintMemoryDao();
 
     public static UserDao getUserDao() {
         return userDao;
@@ -58,6 +62,38 @@ public class DaoService {
 
     public static RepoUpdateDao getRepoUpdateDao() { return repoUpdateDao; }
 
+    public static GradedResultDao getGradedResultDao() {
+        return gradedResultDao;
+    }
+
+    public static void setGradedResultDao(GradedResultDao gradedResultDao) {
+        DaoService.gradedResultDao = gradedResultDao;
+    }
+
+    public static CommitStatsDao getCommitStatsDao() {
+        return commitStatsDao;
+    }
+
+    public static void setCommitStatsDao(CommitStatsDao commitStatsDao) {
+        DaoService.commitStatsDao = commitStatsDao;
+    }
+
+    public static CommitIndexDao getCommitIndexDao() {
+        return commitIndexDao;
+    }
+
+    public static void setCommitIndexDao(CommitIndexDao commitIndexDao) {
+        DaoService.commitIndexDao = commitIndexDao;
+    }
+
+    public static SourceFingerprintDao getSourceFingerprintDao() {
+        return sourceFingerprintDao;
+    }
+
+    public static void setSourceFingerprintDao(SourceFingerprintDao sourceFingerprintDao) {
+        DaoService.sourceFingerprintDao = sourceFingerprintDao;
+    }
+
     /** Create and set a memory DAO for every DAO. Used for testing purposes. */
     public static void initializeMemoryDAOs() {
         DaoService.setRubricConfigDao(new RubricConfigMemoryDao());
@@ -66,6 +102,10 @@ public class DaoService {
         DaoService.setSubmissionDao(new SubmissionMemoryDao());
         DaoService.setConfigurationDao(new ConfigurationMemoryDao());
         DaoService.setRepoUpdateDao(new RepoUpdateMemoryDao());
+        DaoService.setGradedResultDao(new GradedResultMemoryDao());
+        DaoService.setCommitStatsDao(new CommitStatsMemoryDao());
+        DaoService.setCommitIndexDao(new CommitIndexMemoryDao());
+        DaoService.setSourceFingerprintDao(new SourceFingerprintMemoryDao());
     }
 
     public static void initializeSqlDAOs() throws DataAccessException {
@@ -76,5 +116,9 @@ public class DaoService {
         DaoService.setSubmissionDao(new SubmissionSqlDao());
         DaoService.setUserDao(new UserSqlDao());
         DaoService.setRepoUpdateDao(new RepoUpdateSqlDao());
+        DaoService.setGradedResultDao(new GradedResultSqlDao());
+        DaoService.setCommitStatsDao(new CommitStatsSqlDao());
+        DaoService.setCommitIndexDao(new CommitIndexSqlDao());
+        DaoService.setSourceFingerprintDao(new SourceFingerprintSqlDao());
     }
 }
@@ -0,0 +1,31 @@
+package edu.byu.cs.dataAccess;
+
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Rubric;
+
+/**
+ * Stores the evaluated rubrics of previously graded commits so that the same code
+ * graded by the same tests does not have to be compiled and tested again.
+ */
+public interface GradedResultDao {
+
+    /**
+     * Gets the evaluated rubric of a commit
+     *
+     * @param headHash    the hash of the graded commit
+     * @param phase       the phase it was graded for
+     * @param fingerprint identifies the tests, libraries and rubric config it was graded with
+     * @return the rubric, or null if the commit has not been graded with that fingerprint
+     */
+    Rubric getResult(String headHash, Phase phase, String fingerprint) throws DataAccessException;
+
+    /**
+     * Saves the evaluated rubric of a commit, replacing any saved with the same key
+     *
+     * @param headHash    the hash of the graded commit
+     * @param phase       the phase it was graded for
+     * @param fingerprint identifies the tests, libraries and rubric config it was graded with
+     * @param rubric      the rubric before scoring
+     */
+    void insertResult(String headHash, Phase phase, String fingerprint, Rubric rubric) throws DataAccessException;
+}
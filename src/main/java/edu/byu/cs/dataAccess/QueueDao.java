@@ -2,6 +2,7 @@ package edu.byu.cs.dataAccess;
 
 import edu.byu.cs.model.QueueItem;
 
+import java.time.Duration;
 import java.util.Collection;
 
 public interface QueueDao {
@@ -19,6 +20,50 @@ public interface QueueDao {
      */
     QueueItem pop() throws DataAccessException;
 
+    /**
+     * Atomically claims the oldest item that is waiting to be graded, or whose lease has expired,
+     * for the given worker. The claimed item is marked as started and leased until
+     * <code>leaseDuration</code> from now.
+     * <br>
+     * Several grading workers, possibly on different machines, may call this concurrently;
+     * each item is only ever handed to one of them at a time.
+     *
+     * @param workerId      identifies the worker claiming the item
+     * @param leaseDuration how long the worker may hold the item before others may claim it
+     * @return the claimed item, or null if no item is available
+     */
+    QueueItem claim(String workerId, Duration leaseDuration) throws DataAccessException;
+
+    /**
+     * Atomically claims a specific waiting item for the given worker, like {@link #claim(String, Duration)}.
+     * Used when a scheduling policy, rather than queue order, picks the next item.
+     *
+     * @param netId         the netId of the item to claim
+     * @param workerId      identifies the worker claiming the item
+     * @param leaseDuration how long the worker may hold the item before others may claim it
+     * @return false if the item is gone or was already claimed
+     */
+    boolean claim(String netId, String workerId, Duration leaseDuration) throws DataAccessException;
+
+    /**
+     * Extends a worker's lease on an item it holds. An item whose lease was released, such as by
+     * {@link #releaseExpiredLeases()}, is not taken back: it has to be claimed again.
+     *
+     * @param netId         the netId of the item
+     * @param workerId      the worker holding the item
+     * @param leaseDuration how long from now the lease should last
+     * @return false if the item is gone or the worker no longer holds it
+     */
+    boolean renewLease(String netId, String workerId, Duration leaseDuration) throws DataAccessException;
+
+    /**
+     * Puts every started item whose lease has expired, or that never received a lease,
+     * back into the waiting state so it can be graded again.
+     *
+     * @return the items that were released
+     */
+    Collection<QueueItem> releaseExpiredLeases() throws DataAccessException;
+
     /**
      * Removes an item from the queue
      *
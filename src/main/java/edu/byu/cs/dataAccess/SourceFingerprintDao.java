@@ -0,0 +1,42 @@
+package edu.byu.cs.dataAccess;
+
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.SourceFingerprint;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stores the fingerprints of each student's latest submitted code for each phase,
+ * so the honor checker's similarity index can be rebuilt without fetching every repo again.
+ */
+public interface SourceFingerprintDao {
+
+    /**
+     * @param phase the phase
+     * @return the fingerprints of every student with code indexed for the phase
+     */
+    Collection<SourceFingerprint> getFingerprints(Phase phase) throws DataAccessException;
+
+    /**
+     * @param phase  the phase
+     * @param netIds the students to look up
+     * @return the fingerprints of those of the students with code indexed for the phase
+     */
+    Collection<SourceFingerprint> getFingerprints(Phase phase, Collection<String> netIds) throws DataAccessException;
+
+    /**
+     * Looks up which commit each student's fingerprints were taken from, without reading the fingerprints
+     *
+     * @param phase the phase
+     * @return the head hash of every student with code indexed for the phase, by net ID
+     */
+    Map<String, String> getHeadHashes(Phase phase) throws DataAccessException;
+
+    /**
+     * Saves a student's fingerprints for a phase, replacing the previous ones
+     *
+     * @param fingerprint the fingerprints
+     */
+    void putFingerprints(SourceFingerprint fingerprint) throws DataAccessException;
+}
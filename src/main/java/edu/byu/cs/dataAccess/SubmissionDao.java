@@ -67,6 +67,14 @@ public interface SubmissionDao {
      */
     Submission getFirstPassingSubmission(String netId, Phase phase) throws DataAccessException;
 
+    /**
+     * Gets the first passing submission chronologically of every student for every phase they passed,
+     * in one query rather than one per student and phase
+     *
+     * @return the submissions
+     */
+    Collection<Submission> getAllFirstPassingSubmissions() throws DataAccessException;
+
     /**
      * Retrieves the highest scoring submission of a student's submissions for a phase.
      * <br>
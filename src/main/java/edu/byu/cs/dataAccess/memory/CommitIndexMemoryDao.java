@@ -0,0 +1,22 @@
+package edu.byu.cs.dataAccess.memory;
+
+import edu.byu.cs.dataAccess.CommitIndexDao;
+import edu.byu.cs.model.CommitIndexEntry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CommitIndexMemoryDao implements CommitIndexDao {
+
+    private final Map<String, CommitIndexEntry> entries = new HashMap<>();
+
+    @Override
+    public synchronized CommitIndexEntry getEntry(String netId) {
+        return entries.get(netId);
+    }
+
+    @Override
+    public synchronized void putEntry(CommitIndexEntry entry) {
+        entries.put(entry.netId(), entry);
+    }
+}
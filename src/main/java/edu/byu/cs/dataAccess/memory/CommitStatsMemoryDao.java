@@ -0,0 +1,32 @@
+package edu.byu.cs.dataAccess.memory;
+
+import edu.byu.cs.dataAccess.CommitStatsDao;
+import edu.byu.cs.model.CommitStats;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CommitStatsMemoryDao implements CommitStatsDao {
+
+    private final Map<String, CommitStats> statsByHash = new HashMap<>();
+
+    @Override
+    public synchronized Map<String, CommitStats> getStats(Collection<String> hashes) {
+        Map<String, CommitStats> found = new HashMap<>();
+        for (String hash : hashes) {
+            CommitStats stats = statsByHash.get(hash);
+            if (stats != null) {
+                found.put(hash, stats);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized void insertStats(Collection<CommitStats> stats) {
+        for (CommitStats commitStats : stats) {
+            statsByHash.putIfAbsent(commitStats.hash(), commitStats);
+        }
+    }
+}
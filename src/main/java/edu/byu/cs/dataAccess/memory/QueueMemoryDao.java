@@ -3,19 +3,22 @@ package edu.byu.cs.dataAccess.memory;
 import edu.byu.cs.dataAccess.QueueDao;
 import edu.byu.cs.model.QueueItem;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
 
 public class QueueMemoryDao implements QueueDao {
     private final List<QueueItem> queue = new ArrayList<>();
+    private final Map<String, Instant> leaseExpirations = new HashMap<>();
+    private final Map<String, String> leaseHolders = new HashMap<>();
+
     @Override
-    public void add(QueueItem item) {
+    public synchronized void add(QueueItem item) {
         queue.add(item);
     }
 
     @Override
-    public QueueItem pop() {
+    public synchronized QueueItem pop() {
         if (queue.isEmpty()) {
             return null;
         }
@@ -25,22 +28,74 @@ public class QueueMemoryDao implements QueueDao {
     }
 
     @Override
-    public void remove(String netId) {
+    public synchronized QueueItem claim(String workerId, Duration leaseDuration) {
+        Instant now = Instant.now();
+        QueueItem claimed = queue.stream()
+                .filter(item -> !item.started() || now.isAfter(leaseExpirations.getOrDefault(item.netId(), Instant.MAX)))
+                .min(Comparator.comparing(QueueItem::timeAdded))
+                .orElse(null);
+        if (claimed == null) {
+            return null;
+        }
+        markStarted(claimed.netId());
+        leaseExpirations.put(claimed.netId(), now.plus(leaseDuration));
+        leaseHolders.put(claimed.netId(), workerId);
+        return get(claimed.netId());
+    }
+
+    @Override
+    public synchronized boolean claim(String netId, String workerId, Duration leaseDuration) {
+        QueueItem item = get(netId);
+        if (item == null || item.started()) {
+            return false;
+        }
+        markStarted(netId);
+        leaseExpirations.put(netId, Instant.now().plus(leaseDuration));
+        leaseHolders.put(netId, workerId);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean renewLease(String netId, String workerId, Duration leaseDuration) {
+        if (get(netId) == null || !workerId.equals(leaseHolders.get(netId))) {
+            return false;
+        }
+        leaseExpirations.put(netId, Instant.now().plus(leaseDuration));
+        return true;
+    }
+
+    @Override
+    public synchronized Collection<QueueItem> releaseExpiredLeases() {
+        Instant now = Instant.now();
+        List<QueueItem> expired = queue.stream()
+                .filter(QueueItem::started)
+                .filter(item -> !now.isBefore(leaseExpirations.getOrDefault(item.netId(), Instant.MIN)))
+                .toList();
+        for (QueueItem item : expired) {
+            markNotStarted(item.netId());
+        }
+        return expired;
+    }
+
+    @Override
+    public synchronized void remove(String netId) {
         queue.removeIf(item -> item.netId().equals(netId));
+        leaseExpirations.remove(netId);
+        leaseHolders.remove(netId);
     }
 
     @Override
-    public Collection<QueueItem> getAll() {
-        return queue;
+    public synchronized Collection<QueueItem> getAll() {
+        return new ArrayList<>(queue);
     }
 
     @Override
-    public boolean isAlreadyInQueue(String netId) {
+    public synchronized boolean isAlreadyInQueue(String netId) {
         return queue.stream().anyMatch(item -> item.netId().equals(netId));
     }
 
     @Override
-    public void markStarted(String netId) {
+    public synchronized void markStarted(String netId) {
         for (int i = 0; i < queue.size(); i++) {
             if (queue.get(i).netId().equals(netId)) {
                 QueueItem oldItem = queue.get(i);
@@ -52,7 +107,9 @@ public class QueueMemoryDao implements QueueDao {
     }
 
     @Override
-    public void markNotStarted(String netId) {
+    public synchronized void markNotStarted(String netId) {
+        leaseExpirations.remove(netId);
+        leaseHolders.remove(netId);
         for (int i = 0; i < queue.size(); i++) {
             if (queue.get(i).netId().equals(netId)) {
                 QueueItem oldItem = queue.get(i);
@@ -64,7 +121,7 @@ public class QueueMemoryDao implements QueueDao {
     }
 
     @Override
-    public QueueItem get(String netId) {
+    public synchronized QueueItem get(String netId) {
         return queue.stream().filter(item -> item.netId().equals(netId)).findFirst().orElse(null);
     }
 }
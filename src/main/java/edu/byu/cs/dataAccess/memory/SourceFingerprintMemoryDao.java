@@ -0,0 +1,44 @@
+package edu.byu.cs.dataAccess.memory;
+
+import edu.byu.cs.dataAccess.SourceFingerprintDao;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.SourceFingerprint;
+
+import java.util.*;
+
+public class SourceFingerprintMemoryDao implements SourceFingerprintDao {
+
+    private final Map<Phase, Map<String, SourceFingerprint>> fingerprints = new EnumMap<>(Phase.class);
+
+    @Override
+    public synchronized Collection<SourceFingerprint> getFingerprints(Phase phase) {
+        return new ArrayList<>(fingerprints.getOrDefault(phase, Map.of()).values());
+    }
+
+    @Override
+    public synchronized Collection<SourceFingerprint> getFingerprints(Phase phase, Collection<String> netIds) {
+        Map<String, SourceFingerprint> phaseFingerprints = fingerprints.getOrDefault(phase, Map.of());
+        Collection<SourceFingerprint> found = new ArrayList<>();
+        for (String netId : new HashSet<>(netIds)) {
+            SourceFingerprint fingerprint = phaseFingerprints.get(netId);
+            if (fingerprint != null) {
+                found.add(fingerprint);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized Map<String, String> getHeadHashes(Phase phase) {
+        Map<String, String> headHashes = new HashMap<>();
+        fingerprints.getOrDefault(phase, Map.of()).forEach((netId, fingerprint) ->
+                headHashes.put(netId, fingerprint.headHash()));
+        return headHashes;
+    }
+
+    @Override
+    public synchronized void putFingerprints(SourceFingerprint fingerprint) {
+        fingerprints.computeIfAbsent(fingerprint.phase(), phase -> new HashMap<>())
+                .put(fingerprint.netId(), fingerprint);
+    }
+}
@@ -15,6 +15,8 @@ public class SubmissionMemoryDao implements SubmissionDao {
 
     private final Deque<Submission> submissions = new LinkedList<>();
 
+    private record StudentPhase(String netId, Phase phase) {}
+
     @Override
     public void insertSubmission(Submission submission) {
         submissions.add(submission);
@@ -94,6 +96,17 @@ public class SubmissionMemoryDao implements SubmissionDao {
         return earliest;
     }
 
+    @Override
+    public Collection<Submission> getAllFirstPassingSubmissions() {
+        HashMap<StudentPhase, Submission> firstSubmissions = new HashMap<>();
+        for (Submission submission : submissions) {
+            if (!submission.passed()) continue;
+            firstSubmissions.merge(new StudentPhase(submission.netId(), submission.phase()), submission,
+                    (a, b) -> b.timestamp().isBefore(a.timestamp()) ? b : a);
+        }
+        return firstSubmissions.values();
+    }
+
     @Override
     public Submission getBestSubmissionForPhase(String netId, Phase phase) {
         Collection<Submission> submissions = getSubmissionsForPhase(netId, phase);
@@ -0,0 +1,61 @@
+package edu.byu.cs.dataAccess.sql;
+
+import edu.byu.cs.dataAccess.CommitIndexDao;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.CommitIndexEntry;
+import edu.byu.cs.util.Serializer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+public class CommitIndexSqlDao implements CommitIndexDao {
+
+    @Override
+    public CommitIndexEntry getEntry(String netId) throws DataAccessException {
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     SELECT repo_url, tips, timestamps, updated_at
+                     FROM commit_index
+                     WHERE net_id = ?
+                     """)) {
+            statement.setString(1, netId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new CommitIndexEntry(
+                        netId,
+                        rs.getString("repo_url"),
+                        List.of(Serializer.deserialize(rs.getString("tips"), String[].class)),
+                        List.of(Serializer.deserialize(rs.getString("timestamps"), Integer[].class)),
+                        rs.getTimestamp("updated_at").toInstant());
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting commit index", e);
+        }
+    }
+
+    @Override
+    public void putEntry(CommitIndexEntry entry) throws DataAccessException {
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT INTO commit_index (net_id, repo_url, tips, timestamps, updated_at)
+                     VALUES (?, ?, ?, ?, ?)
+                     ON DUPLICATE KEY UPDATE repo_url = VALUES(repo_url), tips = VALUES(tips),
+                        timestamps = VALUES(timestamps), updated_at = VALUES(updated_at)
+                     """)) {
+            statement.setString(1, entry.netId());
+            statement.setString(2, entry.repoUrl());
+            statement.setString(3, Serializer.serialize(entry.tips()));
+            statement.setString(4, Serializer.serialize(entry.timestamps()));
+            statement.setTimestamp(5, Timestamp.from(entry.updatedAt()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving commit index", e);
+        }
+    }
+}
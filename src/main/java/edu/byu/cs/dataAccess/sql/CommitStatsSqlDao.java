@@ -0,0 +1,78 @@
+package edu.byu.cs.dataAccess.sql;
+
+import edu.byu.cs.dataAccess.CommitStatsDao;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.CommitStats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+public class CommitStatsSqlDao implements CommitStatsDao {
+
+    /** How many hashes are looked up per query, to keep statements a reasonable size. */
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    @Override
+    public Map<String, CommitStats> getStats(Collection<String> hashes) throws DataAccessException {
+        Map<String, CommitStats> found = new HashMap<>();
+        List<String> remaining = new ArrayList<>(new HashSet<>(hashes));
+        try (Connection connection = SqlDb.getConnection()) {
+            for (int start = 0; start < remaining.size(); start += LOOKUP_CHUNK_SIZE) {
+                List<String> chunk = remaining.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE, remaining.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT hash, changes, commit_time, author_time, parent_count, backdated
+                        FROM commit_stats
+                        WHERE hash IN (%s)
+                        """.formatted(placeholders))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            CommitStats stats = new CommitStats(
+                                    rs.getString("hash"),
+                                    rs.getInt("changes"),
+                                    rs.getLong("commit_time"),
+                                    rs.getLong("author_time"),
+                                    rs.getInt("parent_count"),
+                                    rs.getBoolean("backdated"));
+                            found.put(stats.hash(), stats);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting commit stats", e);
+        }
+        return found;
+    }
+
+    @Override
+    public void insertStats(Collection<CommitStats> stats) throws DataAccessException {
+        if (stats.isEmpty()) {
+            return;
+        }
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT IGNORE INTO commit_stats (hash, changes, commit_time, author_time, parent_count, backdated)
+                     VALUES (?, ?, ?, ?, ?, ?)
+                     """)) {
+            for (CommitStats commitStats : stats) {
+                statement.setString(1, commitStats.hash());
+                statement.setInt(2, commitStats.changes());
+                statement.setLong(3, commitStats.commitTime());
+                statement.setLong(4, commitStats.authorTime());
+                statement.setInt(5, commitStats.parentCount());
+                statement.setBoolean(6, commitStats.backdated());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error inserting commit stats", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package edu.byu.cs.dataAccess.sql;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.GradedResultDao;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Rubric;
+import edu.byu.cs.util.Serializer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+public class GradedResultSqlDao implements GradedResultDao {
+
+    @Override
+    public Rubric getResult(String headHash, Phase phase, String fingerprint) throws DataAccessException {
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     SELECT rubric
+                     FROM graded_result
+                     WHERE head_hash = ? AND phase = ? AND fingerprint = ?
+                     """)) {
+            statement.setString(1, headHash);
+            statement.setString(2, phase.toString());
+            statement.setString(3, fingerprint);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? Serializer.deserialize(rs.getString("rubric"), Rubric.class) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting graded result", e);
+        }
+    }
+
+    @Override
+    public void insertResult(String headHash, Phase phase, String fingerprint, Rubric rubric) throws DataAccessException {
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT INTO graded_result (head_hash, phase, fingerprint, rubric, graded_at)
+                     VALUES (?, ?, ?, ?, ?)
+                     ON DUPLICATE KEY UPDATE rubric = VALUES(rubric), graded_at = VALUES(graded_at)
+                     """)) {
+            statement.setString(1, headHash);
+            statement.setString(2, phase.toString());
+            statement.setString(3, fingerprint);
+            statement.setString(4, Serializer.serialize(rubric));
+            statement.setTimestamp(5, Timestamp.from(Instant.now()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error inserting graded result", e);
+        }
+    }
+}
@@ -9,6 +9,10 @@ import edu.byu.cs.model.QueueItem;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 
 public class QueueSqlDao implements QueueDao {
@@ -56,6 +60,110 @@ public class QueueSqlDao implements QueueDao {
         }
     }
 
+    @Override
+    public QueueItem claim(String workerId, Duration leaseDuration) throws DataAccessException {
+        Instant now = Instant.now();
+        try (var connection = SqlDb.getConnection()) {
+            connection.setAutoCommit(false);
+            try (var selectStatement = connection.prepareStatement(
+                    sqlReader.selectAllStmt("""
+                            WHERE started = 0 OR started IS NULL OR lease_expires < ?
+                            ORDER BY time_added
+                            LIMIT 1
+                            FOR UPDATE SKIP LOCKED
+                            """));
+                 var updateStatement = connection.prepareStatement(
+                         """
+                            UPDATE %s
+                            SET started = 1, worker_id = ?, lease_expires = ?
+                            WHERE net_id = ?
+                            """.formatted(sqlReader.getTableName()))) {
+                selectStatement.setTimestamp(1, Timestamp.from(now));
+                QueueItem item = sqlReader.expectOneItem(sqlReader.readItems(selectStatement));
+                if (item == null) {
+                    connection.commit();
+                    return null;
+                }
+
+                updateStatement.setString(1, workerId);
+                updateStatement.setTimestamp(2, Timestamp.from(now.plus(leaseDuration)));
+                updateStatement.setString(3, item.netId());
+                updateStatement.executeUpdate();
+                connection.commit();
+                return new QueueItem(item.netId(), item.phase(), item.timeAdded(), true);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error claiming item from queue", e);
+        }
+    }
+
+    @Override
+    public boolean claim(String netId, String workerId, Duration leaseDuration) throws DataAccessException {
+        try (var connection = SqlDb.getConnection();
+             var statement = connection.prepareStatement(
+                     """
+                        UPDATE %s
+                        SET started = 1, worker_id = ?, lease_expires = ?
+                        WHERE net_id = ? AND (started = 0 OR started IS NULL)
+                        """.formatted(sqlReader.getTableName()))) {
+            statement.setString(1, workerId);
+            statement.setTimestamp(2, Timestamp.from(Instant.now().plus(leaseDuration)));
+            statement.setString(3, netId);
+            return statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error claiming item from queue", e);
+        }
+    }
+
+    @Override
+    public boolean renewLease(String netId, String workerId, Duration leaseDuration) throws DataAccessException {
+        try (var connection = SqlDb.getConnection();
+             var statement = connection.prepareStatement(
+                     """
+                        UPDATE %s
+                        SET lease_expires = ?
+                        WHERE net_id = ? AND worker_id = ?
+                        """.formatted(sqlReader.getTableName()))) {
+            statement.setTimestamp(1, Timestamp.from(Instant.now().plus(leaseDuration)));
+            statement.setString(2, netId);
+            statement.setString(3, workerId);
+            return statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error renewing queue lease", e);
+        }
+    }
+
+    @Override
+    public Collection<QueueItem> releaseExpiredLeases() throws DataAccessException {
+        String expiredCondition = "started = 1 AND (lease_expires IS NULL OR lease_expires < ?)";
+        Collection<QueueItem> released = new ArrayList<>();
+        try (var connection = SqlDb.getConnection();
+             var selectStatement = connection.prepareStatement(sqlReader.selectAllStmt("WHERE " + expiredCondition));
+             var releaseStatement = connection.prepareStatement(
+                     """
+                        UPDATE %s
+                        SET started = 0, worker_id = NULL, lease_expires = NULL
+                        WHERE net_id = ? AND %s
+                        """.formatted(sqlReader.getTableName(), expiredCondition))) {
+            Timestamp now = Timestamp.from(Instant.now());
+            selectStatement.setTimestamp(1, now);
+            for (QueueItem item : sqlReader.readItems(selectStatement)) {
+                // Only report the items this call released, in case another server released or claimed it first
+                releaseStatement.setString(1, item.netId());
+                releaseStatement.setTimestamp(2, now);
+                if (releaseStatement.executeUpdate() > 0) {
+                    released.add(new QueueItem(item.netId(), item.phase(), item.timeAdded(), false));
+                }
+            }
+            return released;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error releasing expired queue leases", e);
+        }
+    }
+
     @Override
     public void remove(String netId) throws DataAccessException {
         sqlReader.executeUpdate(
@@ -82,25 +190,26 @@ public class QueueSqlDao implements QueueDao {
 
     @Override
     public void markStarted(String netId) throws DataAccessException {
-        updatedStartedField(netId, true);
+        sqlReader.executeUpdate(
+                """
+                     UPDATE %s
+                     SET started = 1
+                     WHERE net_id = ?
+                     """.formatted(sqlReader.getTableName()),
+                ps -> ps.setString(1, netId)
+        );
     }
 
     @Override
     public void markNotStarted(String netId) throws DataAccessException {
-        updatedStartedField(netId, false);
-    }
-
-    private void updatedStartedField(String netId, boolean started) throws DataAccessException {
+        // Any lease belonged to the previous start
         sqlReader.executeUpdate(
                 """
                      UPDATE %s
-                     SET started = ?
+                     SET started = 0, worker_id = NULL, lease_expires = NULL
                      WHERE net_id = ?
                      """.formatted(sqlReader.getTableName()),
-                ps -> {
-                    ps.setBoolean(1, started);
-                    ps.setString(2, netId);
-                }
+                ps -> ps.setString(1, netId)
         );
     }
 
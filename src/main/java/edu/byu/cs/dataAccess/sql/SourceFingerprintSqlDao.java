@@ -0,0 +1,133 @@
+package edu.byu.cs.dataAccess.sql;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.SourceFingerprintDao;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.SourceFingerprint;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+public class SourceFingerprintSqlDao implements SourceFingerprintDao {
+
+    /** How many students are looked up per query, to keep statements a reasonable size. */
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    @Override
+    public Collection<SourceFingerprint> getFingerprints(Phase phase) throws DataAccessException {
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     SELECT net_id, head_hash, fingerprints
+                     FROM source_fingerprint
+                     WHERE phase = ?
+                     """)) {
+            statement.setString(1, phase.toString());
+            Collection<SourceFingerprint> fingerprints = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    fingerprints.add(new SourceFingerprint(
+                            rs.getString("net_id"),
+                            phase,
+                            rs.getString("head_hash"),
+                            unpack(rs.getBytes("fingerprints"))));
+                }
+            }
+            return fingerprints;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting source fingerprints", e);
+        }
+    }
+
+    @Override
+    public Collection<SourceFingerprint> getFingerprints(Phase phase, Collection<String> netIds)
+            throws DataAccessException {
+        Collection<SourceFingerprint> fingerprints = new ArrayList<>();
+        List<String> remaining = new ArrayList<>(new HashSet<>(netIds));
+        try (Connection connection = SqlDb.getConnection()) {
+            for (int start = 0; start < remaining.size(); start += LOOKUP_CHUNK_SIZE) {
+                List<String> chunk = remaining.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE, remaining.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT net_id, head_hash, fingerprints
+                        FROM source_fingerprint
+                        WHERE phase = ? AND net_id IN (%s)
+                        """.formatted(placeholders))) {
+                    statement.setString(1, phase.toString());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setString(i + 2, chunk.get(i));
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            fingerprints.add(new SourceFingerprint(
+                                    rs.getString("net_id"),
+                                    phase,
+                                    rs.getString("head_hash"),
+                                    unpack(rs.getBytes("fingerprints"))));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting source fingerprints", e);
+        }
+        return fingerprints;
+    }
+
+    @Override
+    public Map<String, String> getHeadHashes(Phase phase) throws DataAccessException {
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     SELECT net_id, head_hash
+                     FROM source_fingerprint
+                     WHERE phase = ?
+                     """)) {
+            statement.setString(1, phase.toString());
+            Map<String, String> headHashes = new HashMap<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    headHashes.put(rs.getString("net_id"), rs.getString("head_hash"));
+                }
+            }
+            return headHashes;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting source fingerprint head hashes", e);
+        }
+    }
+
+    @Override
+    public void putFingerprints(SourceFingerprint fingerprint) throws DataAccessException {
+        try (Connection connection = SqlDb.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT INTO source_fingerprint (net_id, phase, head_hash, fingerprints)
+                     VALUES (?, ?, ?, ?)
+                     ON DUPLICATE KEY UPDATE head_hash = VALUES(head_hash), fingerprints = VALUES(fingerprints)
+                     """)) {
+            statement.setString(1, fingerprint.netId());
+            statement.setString(2, fingerprint.phase().toString());
+            statement.setString(3, fingerprint.headHash());
+            statement.setBytes(4, pack(fingerprint.fingerprints()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving source fingerprints", e);
+        }
+    }
+
+    /**
+     * Fingerprints are stored as packed 4 byte integers, which is a third of the size of a JSON array of them
+     */
+    private static byte[] pack(int[] fingerprints) {
+        ByteBuffer buffer = ByteBuffer.allocate(fingerprints.length * Integer.BYTES);
+        buffer.asIntBuffer().put(fingerprints);
+        return buffer.array();
+    }
+
+    private static int[] unpack(byte[] bytes) {
+        int[] fingerprints = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(fingerprints);
+        return fingerprints;
+    }
+}
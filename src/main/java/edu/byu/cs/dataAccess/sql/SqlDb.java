@@ -7,6 +7,8 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -77,10 +79,14 @@ public class SqlDb {
                                 `phase` VARCHAR(9) NOT NULL,
                                 `time_added` DATETIME NOT NULL,
                                 `started` BOOL,
+                                `worker_id` VARCHAR(64),
+                                `lease_expires` DATETIME,
                                 PRIMARY KEY (`net_id`)
                             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
                         """);
             }
+            addColumnIfMissing(connection, "queue", "worker_id", "VARCHAR(64)");
+            addColumnIfMissing(connection, "queue", "lease_expires", "DATETIME");
             try (Statement createRubricConfigTableStatement = connection.createStatement()) {
                 createRubricConfigTableStatement.executeUpdate("""
                         CREATE TABLE IF NOT EXISTS `rubric_config` (
@@ -115,12 +121,85 @@ public class SqlDb {
                             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
                         """);
             }
+            try (Statement createGradedResultTableStatement = connection.createStatement()) {
+                createGradedResultTableStatement.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS `graded_result` (
+                                `head_hash` VARCHAR(40) NOT NULL,
+                                `phase` VARCHAR(9) NOT NULL,
+                                `fingerprint` CHAR(64) NOT NULL,
+                                `rubric` JSON NOT NULL,
+                                `graded_at` DATETIME NOT NULL,
+                                PRIMARY KEY (`head_hash`, `phase`, `fingerprint`)
+                            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                        """);
+            }
+            try (Statement createCommitStatsTableStatement = connection.createStatement()) {
+                createCommitStatsTableStatement.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS `commit_stats` (
+                                `hash` CHAR(40) NOT NULL,
+                                `changes` INT NOT NULL,
+                                `commit_time` BIGINT NOT NULL,
+                                `author_time` BIGINT NOT NULL,
+                                `parent_count` INT NOT NULL,
+                                `backdated` BOOL NOT NULL,
+                                PRIMARY KEY (`hash`)
+                            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                        """);
+            }
+            try (Statement createCommitIndexTableStatement = connection.createStatement()) {
+                createCommitIndexTableStatement.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS `commit_index` (
+                                `net_id` VARCHAR(20) NOT NULL,
+                                `repo_url` VARCHAR(200) NOT NULL,
+                                `tips` JSON NOT NULL,
+                                `timestamps` JSON NOT NULL,
+                                `updated_at` DATETIME NOT NULL,
+                                PRIMARY KEY (`net_id`)
+                            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                        """);
+            }
+            try (Statement createSourceFingerprintTableStatement = connection.createStatement()) {
+                createSourceFingerprintTableStatement.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS `source_fingerprint` (
+                                `net_id` VARCHAR(20) NOT NULL,
+                                `phase` VARCHAR(9) NOT NULL,
+                                `head_hash` VARCHAR(40) NOT NULL,
+                                `fingerprints` MEDIUMBLOB NOT NULL,
+                                PRIMARY KEY (`net_id`, `phase`)
+                            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                        """);
+            }
         } catch (SQLException e) {
             LOGGER.error("Error connecting to database", e);
             throw new DataAccessException("Error connecting to database", e);
         }
     }
 
+    /**
+     * Adds a column to an existing table if it is not already there, so that tables created
+     * by older versions of the autograder pick up newly added columns
+     */
+    private static void addColumnIfMissing(Connection connection, String table, String column, String definition)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT COUNT(*)
+                FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND COLUMN_NAME = ?
+                """)) {
+            statement.setString(1, DB_NAME);
+            statement.setString(2, table);
+            statement.setString(3, column);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getInt(1) > 0) {
+                    return;
+                }
+            }
+        }
+        try (Statement alterStatement = connection.createStatement()) {
+            alterStatement.executeUpdate("ALTER TABLE `%s` ADD COLUMN `%s` %s".formatted(table, column, definition));
+        }
+    }
+
     public static Connection getConnection() throws DataAccessException {
         try {
             Connection connection = DriverManager.getConnection(CONNECTION_STRING, DB_USER, DB_PASSWORD);
@@ -18,8 +18,10 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class SubmissionSqlDao implements SubmissionDao {
 
@@ -40,6 +42,19 @@ public class SubmissionSqlDao implements SubmissionDao {
             new ColumnDefinition<Submission>("verification", Submission::serializeScoreVerification)
     };
 
+    /** Selects every column except the row number used to find the first passing submission of each phase */
+    private static final String FIRST_PASSING_SUBMISSIONS_QUERY = """
+            SELECT %s
+            FROM (
+                SELECT s.*, ROW_NUMBER() OVER (PARTITION BY net_id, phase ORDER BY timestamp) AS passing_order
+                FROM submission s
+                WHERE passed = 1
+            ) ranked
+            WHERE passing_order = 1
+            """.formatted(Arrays.stream(COLUMN_DEFINITIONS)
+                    .map(ColumnDefinition::columnName)
+                    .collect(Collectors.joining(", ")));
+
     private static Submission readSubmission(ResultSet rs) throws SQLException {
         String netId = rs.getString("net_id");
         String repoUrl = rs.getString("repo_url");
@@ -169,6 +184,16 @@ public class SubmissionSqlDao implements SubmissionDao {
         return sqlReader.expectOneItem(submissions);
     }
 
+    @Override
+    public Collection<Submission> getAllFirstPassingSubmissions() throws DataAccessException {
+        try (var connection = SqlDb.getConnection();
+             var statement = connection.prepareStatement(FIRST_PASSING_SUBMISSIONS_QUERY)) {
+            return sqlReader.readItems(statement);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting first passing submissions", e);
+        }
+    }
+
     @Override
     public Submission getBestSubmissionForPhase(String netId, Phase phase) throws DataAccessException {
         var submissions = sqlReader.executeQuery(
@@ -1,89 +1,200 @@
 package edu.byu.cs.honorChecker;
 
+import edu.byu.cs.autograder.git.DeadlineProgressMonitor;
+import edu.byu.cs.autograder.git.GitHelper;
+import edu.byu.cs.autograder.git.RepoMirrorCache;
 import edu.byu.cs.canvas.CanvasException;
 import edu.byu.cs.canvas.CanvasService;
 import edu.byu.cs.canvas.model.CanvasSection;
 import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.FileUtils;
-import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Optional;
-import java.util.function.Consumer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class HonorCheckerCompiler {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(HonorCheckerCompiler.class);
+
+    /** The top level directories of a student repo that are checked for honor code violations. */
+    private static final List<String> MODULES = List.of("client", "server", "shared");
+
     /**
-     * Creates a .zip file for all students' repos in the given section
+     * Streams a .zip of all students' repos in the given section, with one directory per student
+     * holding only the modules of their default branch.
+     * <br>
+     * Repos are fetched concurrently, through the repo mirrors when they are turned on, and each one
+     * is written to the zip as soon as it is ready. Files are read straight from the git object
+     * database, so nothing is checked out or written to disk. Repos that cannot be fetched are left out.
      *
      * @param sectionID the section ID
-     * @return the path to the .zip file
+     * @param out       where the .zip is written
      */
-    public static String compileSection(int sectionID) throws CanvasException {
+    public static void streamSection(int sectionID, OutputStream out) throws CanvasException, IOException {
         Optional<CanvasSection> canvasSection = Arrays.stream(CanvasService.getCanvasIntegration().getAllSections())
                 .filter(cs -> sectionID == cs.id()).findFirst();
         if (canvasSection.isEmpty()) throw new CanvasException("Could not find specified section");
-        String tmpDir = "tmp-section-" + sectionID;
-        String zipFilePath = canvasSection.get().name() + ".zip";
-
-        FileUtils.createDirectory(tmpDir);
 
-        Collection<User> students;
-        try {
-            students = CanvasService.getCanvasIntegration().getAllStudentsBySection(sectionID);
-        } catch (CanvasException e) {
-            throw new RuntimeException("Canvas Exception: " + e.getMessage());
-        }
+        Collection<User> students = CanvasService.getCanvasIntegration().getAllStudentsBySection(sectionID);
 
+        Duration repoTimeout = Duration.ofSeconds(ApplicationProperties.analyticsRepoTimeoutSeconds());
+        ZipOutputStream zip = new ZipOutputStream(out);
+        ExecutorService executor = Executors.newFixedThreadPool(ApplicationProperties.analyticsWorkers(),
+                Thread.ofPlatform().name("honor-checker-", 1).daemon().factory());
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
         try {
+            int tasks = 0;
             for (User student : students) {
                 if (student.firstName().equals("Test") && student.lastName().equals("Student")) continue;
-                File repoPath = new File(tmpDir, String.join("_", student.firstName().replace(' ', '_'),
-                        student.lastName().replace(' ', '_'), student.netId()));
+                if (student.repoUrl() == null) continue;
+                completionService.submit(() -> addStudent(student, zip, repoTimeout), null);
+                ++tasks;
+            }
+            // Waits in the order the tasks finish, so a failure cancels the rest right away
+            for (int i = 0; i < tasks; ++i) {
+                completionService.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compiling section " + sectionID, e);
+        } catch (ExecutionException e) {
+            // Only failures writing the zip get this far, and the zip is unusable after one
+            throw new IOException("Failed to write honor checker zip", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        zip.finish();
+    }
 
-                CloneCommand cloneCommand = Git.cloneRepository()
-                        .setURI(student.repoUrl())
-                        .setDirectory(repoPath);
+    /**
+     * Fetches a student's repo and adds its modules to the zip. If the repo cannot be fetched or read,
+     * the student is left out; if the zip cannot be written, an {@link UncheckedIOException} is thrown.
+     */
+    private static void addStudent(User student, ZipOutputStream zip, Duration timeout) {
+        String directory = String.join("_", student.firstName().replace(' ', '_'),
+                student.lastName().replace(' ', '_'), student.netId());
+        try {
+            Map<String, byte[]> files = readRepo(student.netId(), student.repoUrl(), timeout, repo -> {
+                ObjectId head = repo.resolve(Constants.HEAD);
+                return head != null ? readFiles(repo, findModuleFiles(repo, head)) : Map.<String, byte[]>of();
+            });
+            addFiles(files, directory, zip);
+        } catch (UncheckedIOException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.debug("Leaving {} out of the honor checker zip: {}", student.netId(), e.getMessage());
+        }
+    }
 
-                try {
-                    Git git = cloneCommand.call();
-                    git.close();
-                } catch (Exception e) {
-                    FileUtils.removeDirectory(repoPath);
-                    continue;
-                }
+    /**
+     * Fetches a student's repo and reads from it, through the repo mirrors when they are turned on.
+     * Otherwise, the repo is cloned into a temporary directory that is removed afterwards.
+     *
+     * @param netId   the student
+     * @param repoUrl the url of the student's repo
+     * @param timeout how long fetching the repo may take before it is abandoned
+     * @param reader  reads from the repo
+     * @return what the reader returned
+     */
+    static <T> T readRepo(String netId, String repoUrl, Duration timeout, RepoMirrorCache.MirrorReader<T> reader)
+            throws IOException, GitAPIException {
+        ProgressMonitor monitor = new DeadlineProgressMonitor(timeout);
+        RepoMirrorCache mirrorCache = GitHelper.getMirrorCache();
+        if (mirrorCache != null) {
+            return mirrorCache.readMirror(repoUrl, timeout, monitor, reader);
+        }
 
-                // delete everything except modules
-                Consumer<File> action = file -> {
-                    String prefix = repoPath + File.separator;
-                    if (!file.getPath().startsWith(prefix + "client") &&
-                            !file.getPath().startsWith(prefix + "server") &&
-                            !file.getPath().startsWith(prefix + "shared")) {
-                        file.delete();
-                    }
-                };
-                FileUtils.modifyDirectory(new File(repoPath.getPath()), action);
+        File repoPath = Files.createTempDirectory(Path.of("."), "tmp-honor-checker-" + netId + "-").toFile();
+        try (Git git = Git.cloneRepository()
+                .setURI(repoUrl)
+                .setDirectory(repoPath)
+                .setBare(true)
+                .setTimeout((int) timeout.toSeconds())
+                .setProgressMonitor(monitor)
+                .call()) {
+            return reader.read(git.getRepository());
+        } finally {
+            FileUtils.removeDirectory(repoPath);
+        }
+    }
 
-                try {
-                    FileUtils.zipDirectory(repoPath.getPath(), repoPath.getPath() + ".zip");
-                } catch (Exception ignored) {
-                    new File(repoPath.getPath() + ".zip").delete();
+    /**
+     * @param repo   the repo
+     * @param commit the commit to read
+     * @return the path and blob of every file in the modules of the commit, leaving out symlinks
+     */
+    static Map<String, ObjectId> findModuleFiles(Repository repo, ObjectId commit) throws IOException {
+        Map<String, ObjectId> files = new LinkedHashMap<>();
+        try (RevWalk revWalk = new RevWalk(repo);
+             TreeWalk treeWalk = new TreeWalk(repo)) {
+            treeWalk.addTree(revWalk.parseCommit(commit).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilterGroup.createFromStrings(MODULES));
+            while (treeWalk.next()) {
+                if (treeWalk.getFileMode(0).getObjectType() == Constants.OBJ_BLOB
+                        && treeWalk.getFileMode(0) != FileMode.SYMLINK) {
+                    files.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
                 }
-
-                FileUtils.removeDirectory(repoPath);
             }
+        }
+        return files;
+    }
 
-            FileUtils.zipDirectory(tmpDir, zipFilePath);
-        } catch (RuntimeException e) {
-            FileUtils.removeDirectory(new File(tmpDir));
-            new File(zipFilePath).delete();
-            throw e;
+    /**
+     * Copies files out of the repo, so the repo's mirror can be released before they are written to the zip
+     *
+     * @return the contents of each file, in the same order
+     */
+    private static Map<String, byte[]> readFiles(Repository repo, Map<String, ObjectId> files) throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        for (Map.Entry<String, ObjectId> file : files.entrySet()) {
+            contents.put(file.getKey(), repo.open(file.getValue(), Constants.OBJ_BLOB).getBytes());
         }
+        return contents;
+    }
 
-        FileUtils.removeDirectory(new File(tmpDir));
-        return zipFilePath;
+    /**
+     * Writes files to the zip under the given directory.
+     * The files are read before the zip is locked, so other repos keep being written while this one is read.
+     */
+    private static void addFiles(Map<String, byte[]> files, String directory, ZipOutputStream zip) {
+        synchronized (zip) {
+            try {
+                for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                    zip.putNextEntry(new ZipEntry(directory + "/" + file.getKey()));
+                    zip.write(file.getValue());
+                    zip.closeEntry();
+                }
+                zip.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 }
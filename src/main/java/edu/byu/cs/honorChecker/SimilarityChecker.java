@@ -0,0 +1,212 @@
+package edu.byu.cs.honorChecker;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.SimilarPair;
+import edu.byu.cs.model.SourceFingerprint;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds students whose code for a phase is suspiciously similar.
+ * <br>
+ * The code of every graded submission is fingerprinted as it is fetched, and the fingerprints are saved
+ * in a {@link edu.byu.cs.dataAccess.SourceFingerprintDao}. The fingerprints of a phase are loaded into a
+ * {@link SimilarityIndex} the first time the phase is checked, and kept up to date from then on. Fingerprints
+ * saved by other processes, such as remote graders, are found by their head hashes each time the phase is checked.
+ */
+public class SimilarityChecker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimilarityChecker.class);
+
+    /** Bigger files are generated or pasted data rather than code worth comparing */
+    private static final int MAX_SOURCE_BYTES = 1024 * 1024;
+
+    private static final Map<Phase, SimilarityIndex> INDEXES = new EnumMap<>(Phase.class);
+
+    /** The commit each student's code in the loaded indexes was taken from, by net ID */
+    private static final Map<Phase, Map<String, String>> INDEXED_HEAD_HASHES = new EnumMap<>(Phase.class);
+
+    /**
+     * @param phase the phase
+     * @return true if the code submitted for the phase is checked for similarity
+     */
+    public static boolean isChecked(Phase phase) {
+        return switch (phase) {
+            case Phase0, Phase1, Phase3, Phase4, Phase5, Phase6 -> true;
+            case Quality, Commits, GitHub -> false;
+        };
+    }
+
+    /**
+     * Fingerprints the code of a submission, replacing the student's earlier code for the phase
+     *
+     * @param netId  the student
+     * @param phase  the phase the code was submitted for
+     * @param repo   the student's repo
+     * @param commit the submitted commit
+     */
+    public static void indexSubmission(String netId, Phase phase, Repository repo, ObjectId commit)
+            throws IOException, DataAccessException {
+        save(new SourceFingerprint(netId, phase, commit.getName(), fingerprint(repo, commit)));
+    }
+
+    /**
+     * @param phase the phase
+     * @param limit the most pairs to return
+     * @return the most similar pairs of students for the phase, most similar first
+     */
+    public static List<SimilarPair> getSuspiciousPairs(Phase phase, int limit) throws DataAccessException {
+        SimilarityIndex index = getIndex(phase);
+        refresh(phase, index);
+        return index.suspiciousPairs(limit);
+    }
+
+    /**
+     * Fingerprints the latest submission of every student for a phase, fetching their repos concurrently.
+     * Submissions that are already fingerprinted are skipped, so this only has to be run once to
+     * index submissions made before the similarity check existed.
+     *
+     * @param phase the phase
+     * @return how many submissions were fingerprinted
+     */
+    public static int indexLatestSubmissions(Phase phase) throws DataAccessException {
+        Map<String, String> indexedHashes = new HashMap<>();
+        for (SourceFingerprint fingerprint : DaoService.getSourceFingerprintDao().getFingerprints(phase)) {
+            indexedHashes.put(fingerprint.netId(), fingerprint.headHash());
+        }
+
+        Duration repoTimeout = Duration.ofSeconds(ApplicationProperties.analyticsRepoTimeoutSeconds());
+        ExecutorService executor = Executors.newFixedThreadPool(ApplicationProperties.analyticsWorkers(),
+                Thread.ofPlatform().name("similarity-checker-", 1).daemon().factory());
+        Map<Submission, Future<int[]>> tasks = new LinkedHashMap<>();
+        try {
+            for (Submission submission : DaoService.getSubmissionDao().getAllLatestSubmissions()) {
+                if (submission.phase() != phase || Boolean.TRUE.equals(submission.admin()) || submission.headHash() == null
+                        || submission.headHash().equals(indexedHashes.get(submission.netId()))) {
+                    continue;
+                }
+                tasks.put(submission, executor.submit(() -> HonorCheckerCompiler.readRepo(submission.netId(),
+                        submission.repoUrl(), repoTimeout,
+                        repo -> fingerprint(repo, ObjectId.fromString(submission.headHash())))));
+            }
+
+            int indexed = 0;
+            for (Map.Entry<Submission, Future<int[]>> task : tasks.entrySet()) {
+                Submission submission = task.getKey();
+                try {
+                    save(new SourceFingerprint(submission.netId(), phase, submission.headHash(),
+                            task.getValue().get()));
+                    indexed++;
+                } catch (ExecutionException e) {
+                    LOGGER.warn("Could not fingerprint {} of {}: {}", submission.headHash(), submission.netId(),
+                            e.getCause().getMessage());
+                }
+            }
+            return indexed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while indexing " + phase, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Saves fingerprints and adds them to the index of their phase if it is loaded.
+     * They are saved before the lock is taken, so an index that is not loaded by then
+     * reads them when it is, and graders saving their fingerprints do not wait on each other.
+     */
+    private static void save(SourceFingerprint fingerprint) throws DataAccessException {
+        DaoService.getSourceFingerprintDao().putFingerprints(fingerprint);
+        synchronized (SimilarityChecker.class) {
+            SimilarityIndex index = INDEXES.get(fingerprint.phase());
+            if (index != null) {
+                putIndexed(index, fingerprint);
+            }
+        }
+    }
+
+    private static synchronized SimilarityIndex getIndex(Phase phase) throws DataAccessException {
+        SimilarityIndex index = INDEXES.get(phase);
+        if (index == null) {
+            index = new SimilarityIndex();
+            INDEXED_HEAD_HASHES.put(phase, new HashMap<>());
+            for (SourceFingerprint fingerprint : DaoService.getSourceFingerprintDao().getFingerprints(phase)) {
+                putIndexed(index, fingerprint);
+            }
+            INDEXES.put(phase, index);
+            LOGGER.info("Loaded the code of {} students into the similarity index for {}", index.size(), phase);
+        }
+        return index;
+    }
+
+    /**
+     * Adds the fingerprints saved since the index was loaded that it has not seen, such as those saved by
+     * remote graders. Only the head hashes are read to find them, so an index that is up to date costs one
+     * small query. The lookups are made outside the lock so graders saving their fingerprints do not wait on them.
+     */
+    private static void refresh(Phase phase, SimilarityIndex index) throws DataAccessException {
+        Map<String, String> savedHeadHashes = DaoService.getSourceFingerprintDao().getHeadHashes(phase);
+        List<String> changed = new ArrayList<>();
+        synchronized (SimilarityChecker.class) {
+            Map<String, String> indexedHeadHashes = INDEXED_HEAD_HASHES.get(phase);
+            savedHeadHashes.forEach((netId, headHash) -> {
+                if (!headHash.equals(indexedHeadHashes.get(netId))) {
+                    changed.add(netId);
+                }
+            });
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Collection<SourceFingerprint> fingerprints = DaoService.getSourceFingerprintDao().getFingerprints(phase, changed);
+        synchronized (SimilarityChecker.class) {
+            for (SourceFingerprint fingerprint : fingerprints) {
+                putIndexed(index, fingerprint);
+            }
+        }
+        LOGGER.info("Refreshed the code of {} students in the similarity index for {}", fingerprints.size(), phase);
+    }
+
+    /**
+     * Must be called holding the lock on this class
+     */
+    private static void putIndexed(SimilarityIndex index, SourceFingerprint fingerprint) {
+        index.put(fingerprint.netId(), fingerprint.fingerprints());
+        INDEXED_HEAD_HASHES.get(fingerprint.phase()).put(fingerprint.netId(), fingerprint.headHash());
+    }
+
+    /**
+     * @return the fingerprints of the Java files in the modules of a commit
+     */
+    private static int[] fingerprint(Repository repo, ObjectId commit) throws IOException {
+        List<String> sources = new ArrayList<>();
+        for (Map.Entry<String, ObjectId> file : HonorCheckerCompiler.findModuleFiles(repo, commit).entrySet()) {
+            if (!file.getKey().endsWith(".java")) continue;
+
+            ObjectLoader loader = repo.open(file.getValue(), Constants.OBJ_BLOB);
+            if (loader.getSize() <= MAX_SOURCE_BYTES) {
+                sources.add(new String(loader.getCachedBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return SourceFingerprinter.fingerprint(sources);
+    }
+}
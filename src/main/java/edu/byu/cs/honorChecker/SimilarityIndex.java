@@ -0,0 +1,266 @@
+package edu.byu.cs.honorChecker;
+
+import edu.byu.cs.model.SimilarPair;
+
+import java.util.*;
+
+/**
+ * An index of the fingerprinted code of every student for one phase, which finds pairs of students
+ * whose code is suspiciously similar without comparing every pair.
+ * <br>
+ * When a student's code is added, it is only compared with the code that shares rare fingerprints
+ * with it, found through an inverted index, or that shares a MinHash band with it, found through
+ * locality-sensitive hashing. Those pairs are remembered as candidates and scored when asked for.
+ * Fingerprints held by many students, such as those of the starter code, are ignored.
+ */
+class SimilarityIndex {
+
+    /** A fingerprint held by more students than this, and by more than a tenth of them, is common */
+    static final int MIN_COMMON_DOCUMENTS = 5;
+    private static final int COMMON_FRACTION_DIVISOR = 10;
+
+    /** Pairs sharing fewer rare fingerprints than this are not reported */
+    static final int MIN_SHARED = 20;
+
+    private static final int MIN_HASHES = 128;
+    private static final int BANDS = 32;
+    private static final int ROWS = MIN_HASHES / BANDS;
+    private static final long[] SEEDS = new SplittableRandom(0x5eedL).longs(MIN_HASHES).toArray();
+
+    /**
+     * @param netId        the student
+     * @param fingerprints the distinct fingerprints of the student's code, in ascending order
+     * @param bands        the hashes of the MinHash bands of the fingerprints
+     */
+    private record Document(String netId, int[] fingerprints, long[] bands) {}
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Map<String, Integer> idsByNetId = new HashMap<>();
+    private int nextId;
+
+    /** The documents holding each fingerprint */
+    private final Map<Integer, Postings> postings = new HashMap<>();
+
+    /** For each MinHash band, the documents with each band value */
+    private final List<Map<Long, Postings>> buckets = new ArrayList<>();
+
+    /** Pairs of documents worth scoring, in both directions */
+    private final Map<Integer, Set<Integer>> candidates = new HashMap<>();
+
+    SimilarityIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds a student's code to the index, replacing any code of theirs already in it
+     *
+     * @param netId        the student
+     * @param fingerprints the distinct fingerprints of the student's code, in ascending order
+     */
+    synchronized void put(String netId, int[] fingerprints) {
+        remove(netId);
+        int id = nextId++;
+        long[] bands = fingerprints.length == 0 ? new long[0] : bands(fingerprints);
+        documents.put(id, new Document(netId, fingerprints, bands));
+        idsByNetId.put(netId, id);
+        int common = commonThreshold();
+
+        Map<Integer, Integer> sharedCounts = new HashMap<>();
+        for (int fingerprint : fingerprints) {
+            Postings holders = postings.computeIfAbsent(fingerprint, key -> new Postings());
+            if (holders.size < common) {
+                for (int i = 0; i < holders.size; i++) {
+                    sharedCounts.merge(holders.ids[i], 1, Integer::sum);
+                }
+            }
+            holders.add(id);
+        }
+        sharedCounts.forEach((other, shared) -> {
+            if (shared >= MIN_SHARED) {
+                addCandidate(id, other);
+            }
+        });
+
+        for (int band = 0; band < bands.length; band++) {
+            Postings bucket = buckets.get(band).computeIfAbsent(bands[band], key -> new Postings());
+            if (bucket.size < common) {
+                for (int i = 0; i < bucket.size; i++) {
+                    addCandidate(id, bucket.ids[i]);
+                }
+            }
+            bucket.add(id);
+        }
+    }
+
+    /**
+     * @return how many students have code in the index
+     */
+    synchronized int size() {
+        return documents.size();
+    }
+
+    /**
+     * Scores every candidate pair against the fingerprints that are currently rare
+     *
+     * @param limit the most pairs to return, at least 1
+     * @return the most similar pairs, most similar first
+     */
+    synchronized List<SimilarPair> suspiciousPairs(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit must be at least 1");
+        }
+        int common = commonThreshold();
+        Map<Integer, Integer> rareCounts = new HashMap<>();
+        List<SimilarPair> pairs = new ArrayList<>();
+        candidates.forEach((id, others) -> {
+            for (int other : others) {
+                if (other <= id) continue;
+                Document a = documents.get(id);
+                Document b = documents.get(other);
+                int shared = countRareShared(a.fingerprints(), b.fingerprints(), common);
+                if (shared < MIN_SHARED) continue;
+
+                int sizeA = rareCounts.computeIfAbsent(id, key -> countRare(a.fingerprints(), common));
+                int sizeB = rareCounts.computeIfAbsent(other, key -> countRare(b.fingerprints(), common));
+                pairs.add(new SimilarPair(a.netId(), b.netId(), shared,
+                        (double) shared / Math.min(sizeA, sizeB),
+                        (double) shared / (sizeA + sizeB - shared)));
+            }
+        });
+        pairs.sort(Comparator.comparingDouble(SimilarPair::containment).reversed()
+                .thenComparing(Comparator.comparingInt(SimilarPair::shared).reversed()));
+        return pairs.size() > limit ? new ArrayList<>(pairs.subList(0, limit)) : pairs;
+    }
+
+    private void remove(String netId) {
+        Integer id = idsByNetId.remove(netId);
+        if (id == null) return;
+
+        Document document = documents.remove(id);
+        for (int fingerprint : document.fingerprints()) {
+            Postings holders = postings.get(fingerprint);
+            holders.remove(id);
+            if (holders.size == 0) {
+                postings.remove(fingerprint);
+            }
+        }
+        for (int band = 0; band < document.bands().length; band++) {
+            Postings bucket = buckets.get(band).get(document.bands()[band]);
+            bucket.remove(id);
+            if (bucket.size == 0) {
+                buckets.get(band).remove(document.bands()[band]);
+            }
+        }
+        Set<Integer> others = candidates.remove(id);
+        if (others != null) {
+            for (int other : others) {
+                candidates.get(other).remove(id);
+            }
+        }
+    }
+
+    private void addCandidate(int a, int b) {
+        candidates.computeIfAbsent(a, key -> new HashSet<>()).add(b);
+        candidates.computeIfAbsent(b, key -> new HashSet<>()).add(a);
+    }
+
+    private int commonThreshold() {
+        return Math.max(MIN_COMMON_DOCUMENTS, documents.size() / COMMON_FRACTION_DIVISOR);
+    }
+
+    private boolean isRare(int fingerprint, int common) {
+        return postings.get(fingerprint).size <= common;
+    }
+
+    private int countRare(int[] fingerprints, int common) {
+        int count = 0;
+        for (int fingerprint : fingerprints) {
+            if (isRare(fingerprint, common)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Walks both sorted fingerprint arrays together, counting the rare fingerprints in both
+     */
+    private int countRareShared(int[] a, int[] b, int common) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                if (isRare(a[i], common)) shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Computes the MinHash signature of a set of fingerprints and hashes each band of {@link #ROWS} rows of it.
+     * Two sets with Jaccard similarity <code>s</code> share at least one band with probability
+     * <code>1 - (1 - s^ROWS)^BANDS</code>, which is over one half from about <code>s = 0.4</code>.
+     */
+    private static long[] bands(int[] fingerprints) {
+        long[] signature = new long[MIN_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (int fingerprint : fingerprints) {
+            for (int i = 0; i < MIN_HASHES; i++) {
+                long hash = mix(fingerprint ^ SEEDS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+
+        long[] bands = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long hash = band;
+            for (int row = 0; row < ROWS; row++) {
+                hash = hash * 0x9e3779b97f4a7c15L + signature[band * ROWS + row];
+            }
+            bands[band] = mix(hash);
+        }
+        return bands;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * A growable list of document ids
+     */
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package edu.byu.cs.honorChecker;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Turns Java source code into a set of fingerprints using winnowing, so that copied code can be found
+ * even after identifiers are renamed, literals are changed, or comments and formatting are rewritten.
+ * <br>
+ * The code is reduced to a stream of tokens in which every identifier, number, and string is replaced by
+ * a placeholder. Each run of {@link #K} tokens is hashed, and from every window of {@link #W} consecutive
+ * hashes the smallest is kept. Any match of at least <code>K + W - 1</code> tokens is guaranteed to share
+ * a fingerprint, while matches shorter than <code>K</code> tokens never do.
+ */
+class SourceFingerprinter {
+
+    /** Tokens per hashed run. Shorter matches are too common in unrelated code to mean anything. */
+    static final int K = 15;
+
+    /** Hashes per winnowing window */
+    static final int W = 10;
+
+    private static final long HASH_BASE = 1_000_003L;
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "continue",
+            "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "if",
+            "implements", "instanceof", "int", "interface", "long", "native", "new", "null", "private",
+            "protected", "public", "record", "return", "short", "static", "super", "switch", "synchronized",
+            "this", "throw", "throws", "transient", "try", "var", "void", "volatile", "while", "yield",
+            "true", "false");
+
+    private static final int IDENTIFIER = 1;
+    private static final int NUMBER = 2;
+    private static final int STRING = 3;
+
+    /**
+     * @param sources the contents of every source file of a project
+     * @return the distinct fingerprints of all the files, in ascending order
+     */
+    static int[] fingerprint(Collection<String> sources) {
+        return sources.stream()
+                .flatMapToInt(source -> IntStream.of(fingerprint(source)))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    /**
+     * @param source the contents of a source file
+     * @return the fingerprints of the file, in the order they were selected. May contain duplicates.
+     */
+    static int[] fingerprint(String source) {
+        int[] tokens = tokenize(source);
+        if (tokens.length < K) {
+            return new int[0];
+        }
+
+        // Polynomial rolling hash of every run of K tokens
+        int[] hashes = new int[tokens.length - K + 1];
+        long power = 1;
+        for (int i = 1; i < K; i++) {
+            power *= HASH_BASE;
+        }
+        long hash = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (i >= K) {
+                hash -= tokens[i - K] * power;
+            }
+            hash = hash * HASH_BASE + tokens[i];
+            if (i >= K - 1) {
+                hashes[i - K + 1] = mix(hash);
+            }
+        }
+
+        return winnow(hashes);
+    }
+
+    /**
+     * Keeps the rightmost smallest hash of every window of {@link #W} hashes, skipping a window's pick
+     * when it is the same hash as the previous window's
+     */
+    private static int[] winnow(int[] hashes) {
+        int windows = Math.max(1, hashes.length - W + 1);
+        int window = Math.min(W, hashes.length);
+        int[] selected = new int[windows];
+        int count = 0;
+        int previous = -1;
+        for (int start = 0; start < windows; start++) {
+            int min = start;
+            for (int i = start + 1; i < start + window; i++) {
+                if (hashes[i] <= hashes[min]) {
+                    min = i;
+                }
+            }
+            if (min != previous) {
+                selected[count++] = hashes[min];
+                previous = min;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Spreads a run hash over 32 bits, so the smallest hashes in a window are not biased towards particular tokens
+     */
+    private static int mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    /**
+     * Splits Java source into normalized tokens, leaving out whitespace, comments, and
+     * <code>package</code> and <code>import</code> statements
+     */
+    static int[] tokenize(String source) {
+        IntStream.Builder tokens = IntStream.builder();
+        int length = source.length();
+        int i = 0;
+        boolean skippingStatement = false;
+        while (i < length) {
+            char c = source.charAt(i);
+            int token;
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            } else if (source.startsWith("//", i)) {
+                int end = source.indexOf('\n', i);
+                i = end == -1 ? length : end + 1;
+                continue;
+            } else if (source.startsWith("/*", i)) {
+                int end = source.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 2;
+                continue;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                String word = source.substring(start, i);
+                if (word.equals("package") || word.equals("import")) {
+                    skippingStatement = true;
+                }
+                token = KEYWORDS.contains(word) ? word.hashCode() : IDENTIFIER;
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(source.charAt(i))
+                        || source.charAt(i) == '.' || source.charAt(i) == '_')) {
+                    i++;
+                }
+                token = NUMBER;
+            } else if (source.startsWith("\"\"\"", i)) {
+                int end = source.indexOf("\"\"\"", i + 3);
+                i = end == -1 ? length : end + 3;
+                token = STRING;
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < length && source.charAt(i) != c && source.charAt(i) != '\n') {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+                token = STRING;
+            } else {
+                i++;
+                if (skippingStatement) {
+                    skippingStatement = c != ';';
+                    continue;
+                }
+                token = c;
+            }
+            if (!skippingStatement) {
+                tokens.add(token);
+            }
+        }
+        return tokens.build().toArray();
+    }
+}
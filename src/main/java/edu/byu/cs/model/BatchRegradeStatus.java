@@ -0,0 +1,37 @@
+package edu.byu.cs.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The progress of a batch regrade
+ *
+ * @param id           identifies the batch
+ * @param phase        the phase being regraded
+ * @param postToCanvas whether improved scores are sent to Canvas
+ * @param startedBy    the admin who started the batch
+ * @param startedAt    when the batch was started
+ * @param total        the number of submissions in the batch
+ * @param waiting      submissions not yet started
+ * @param running      submissions being regraded
+ * @param succeeded    submissions regraded and recorded
+ * @param failed       submissions whose regrade failed
+ * @param skipped      submissions skipped because there was nothing to regrade or the batch was cancelled
+ * @param cancelled    whether the batch was cancelled
+ * @param problems     the reason each failed or skipped student was not regraded, by netId
+ */
+public record BatchRegradeStatus(
+        int id,
+        Phase phase,
+        boolean postToCanvas,
+        String startedBy,
+        Instant startedAt,
+        int total,
+        int waiting,
+        int running,
+        int succeeded,
+        int failed,
+        int skipped,
+        boolean cancelled,
+        Map<String, String> problems
+) {}
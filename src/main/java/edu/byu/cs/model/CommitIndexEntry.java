@@ -0,0 +1,21 @@
+package edu.byu.cs.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The commit times indexed so far from a student's repo, for commit analytics
+ *
+ * @param netId      the student
+ * @param repoUrl    the repo that was indexed
+ * @param tips       the commits the repo's branches and tags pointed to when it was last indexed
+ * @param timestamps the commit time, in epoch seconds, of every commit reachable from the tips
+ * @param updatedAt  when the repo was last indexed
+ */
+public record CommitIndexEntry(
+        String netId,
+        String repoUrl,
+        List<String> tips,
+        List<Integer> timestamps,
+        Instant updatedAt
+) {}
@@ -0,0 +1,21 @@
+package edu.byu.cs.model;
+
+/**
+ * What commit verification needs to know about a single commit. A commit hash covers the
+ * commit's content, parents, and timestamps, so these never change once computed.
+ *
+ * @param hash        the commit hash
+ * @param changes     lines changed compared to the first parent ignoring whitespace, or -1 for merge commits
+ * @param commitTime  the commit timestamp in epoch seconds
+ * @param authorTime  the author timestamp in epoch seconds, or -1 if the commit has none
+ * @param parentCount the number of parents
+ * @param backdated   whether the timestamps show signs of manual backdating
+ */
+public record CommitStats(
+        String hash,
+        int changes,
+        long commitTime,
+        long authorTime,
+        int parentCount,
+        boolean backdated
+) {}
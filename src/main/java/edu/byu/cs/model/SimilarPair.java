@@ -0,0 +1,19 @@
+package edu.byu.cs.model;
+
+/**
+ * Two students whose code for a phase shares more than would be expected by chance.
+ * Code shared by many students, such as the starter code, is not counted.
+ *
+ * @param netIdA      one student
+ * @param netIdB      the other student
+ * @param shared      how many fingerprints their code has in common
+ * @param containment the fraction of the smaller project's fingerprints that are also in the other project
+ * @param jaccard     the fraction of all of their fingerprints that are in both projects
+ */
+public record SimilarPair(
+        String netIdA,
+        String netIdB,
+        int shared,
+        double containment,
+        double jaccard
+) {}
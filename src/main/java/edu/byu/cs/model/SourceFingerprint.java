@@ -0,0 +1,16 @@
+package edu.byu.cs.model;
+
+/**
+ * The winnowed fingerprints of a student's source code for a phase, used to find near-duplicate submissions
+ *
+ * @param netId        the student
+ * @param phase        the phase the code was submitted for
+ * @param headHash     the commit the fingerprints were taken from
+ * @param fingerprints the distinct fingerprints of the code, in ascending order
+ */
+public record SourceFingerprint(
+        String netId,
+        Phase phase,
+        String headHash,
+        int[] fingerprints
+) {}
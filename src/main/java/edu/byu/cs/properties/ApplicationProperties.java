@@ -1,4 +1,6 @@
 package edu.byu.cs.properties;
+import java.io.IOException;
+import java.net.InetAddress;
 import java.util.Properties;
 
 public class ApplicationProperties {
@@ -71,4 +73,116 @@ public class ApplicationProperties {
     public static boolean runCompilation() {
         return Boolean.parseBoolean(get("run-compilation", "true"));
     }
+
+    public static String repoMirrorPath() {
+        return get("repo-mirror-path", "./repo-mirrors");
+    }
+
+    public static long repoMirrorBudgetMb() {
+        return Long.parseLong(get("repo-mirror-budget-mb", "2048"));
+    }
+
+    public static int repoFetchTimeoutSeconds() {
+        return Integer.parseInt(get("repo-fetch-timeout-seconds", "120"));
+    }
+
+    public static boolean shallowClone() {
+        return Boolean.parseBoolean(get("shallow-clone", "false"));
+    }
+
+    public static boolean useResultCache() {
+        return Boolean.parseBoolean(get("use-result-cache", "true"));
+    }
+
+    public static int gradingWorkers() {
+        return Integer.parseInt(get("grading-workers", "1"));
+    }
+
+    public static int gradingFetchWorkers() {
+        return Integer.parseInt(get("grading-fetch-workers", "1"));
+    }
+
+    public static int gradingScoreWorkers() {
+        return Integer.parseInt(get("grading-score-workers", "1"));
+    }
+
+    public static int batchRegradeWorkers() {
+        return Integer.parseInt(get("batch-regrade-workers", "1"));
+    }
+
+    public static int analyticsWorkers() {
+        return Integer.parseInt(get("analytics-workers", "8"));
+    }
+
+    public static int analyticsRepoTimeoutSeconds() {
+        return Integer.parseInt(get("analytics-repo-timeout-seconds", "60"));
+    }
+
+    public static String gradingWorkerMaxHeap() {
+        return get("grading-worker-max-heap", null);
+    }
+
+    public static int mavenDaemons() {
+        return Integer.parseInt(get("maven-daemons", "0"));
+    }
+
+    public static String mavenHome() {
+        return get("maven-home", null);
+    }
+
+    public static int mavenDaemonMaxBuilds() {
+        return Integer.parseInt(get("maven-daemon-max-builds", "50"));
+    }
+
+    public static boolean directCompile() {
+        return Boolean.parseBoolean(get("direct-compile", "false"));
+    }
+
+    public static String mavenOfflineRepo() {
+        return get("maven-offline-repo", null);
+    }
+
+    public static boolean workerMode() {
+        return Boolean.parseBoolean(get("worker", "false"));
+    }
+
+    public static boolean remoteGrading() {
+        return Boolean.parseBoolean(get("remote-grading", "false"));
+    }
+
+    /**
+     * Identifies this process on the queue rows it holds. Defaults to the host name and process id.
+     */
+    public static String workerId() {
+        String workerId = get("worker-id", null);
+        if (workerId != null)
+            return workerId;
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "worker";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    public static int gradingLeaseSeconds() {
+        return Integer.parseInt(get("grading-lease-seconds", "600"));
+    }
+
+    public static String schedulingPolicy() {
+        return get("scheduling-policy", "fifo");
+    }
+
+    public static int resubmissionCap() {
+        return Integer.parseInt(get("resubmission-cap", "0"));
+    }
+
+    public static int maxQueueDepth() {
+        return Integer.parseInt(get("max-queue-depth", "0"));
+    }
+
+    public static int submissionCooldownSeconds() {
+        return Integer.parseInt(get("submission-cooldown-seconds", "0"));
+    }
 }
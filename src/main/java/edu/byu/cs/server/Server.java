@@ -1,18 +1,19 @@
 package edu.byu.cs.server;
 
-import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.autograder.compile.CompileHelper;
+import edu.byu.cs.controller.TrafficController;
 import edu.byu.cs.controller.WebSocketController;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.properties.ApplicationProperties;
-import edu.byu.cs.service.SubmissionService;
+import edu.byu.cs.service.GradingWorkerService;
+import edu.byu.cs.service.QueueLeaseService;
 import edu.byu.cs.util.ResourceUtils;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.Properties;
 
 import static edu.byu.cs.controller.AdminController.*;
@@ -96,6 +97,14 @@ public class Server {
                     get("/student/:netId", studentSubmissionsGet);
 
                     post("/rerun", submissionsReRunPost);
+
+                    post("/regrade", batchRegradePost);
+
+                    get("/regrade", batchRegradesGet);
+
+                    get("/regrade/:id", batchRegradeGet);
+
+                    post("/regrade/:id/cancel", batchRegradeCancelPost);
                 });
 
                 get("/test_mode", testModeGet);
@@ -106,6 +115,10 @@ public class Server {
 
                 get("/honorChecker/zip/:section", honorCheckerZipGet);
 
+                get("/honorChecker/similarity/:phase", similarityGet);
+
+                post("/honorChecker/similarity/:phase", similarityIndexPost);
+
                 get("/sections", sectionsGet);
 
                 path("/config", () -> {
@@ -173,6 +186,78 @@ public class Server {
             if (cmd.hasOption("disable-compilation")) {
                 properties.setProperty("run-compilation", "false");
             }
+            if (cmd.hasOption("repo-mirror-path")) {
+                properties.setProperty("repo-mirror-path", cmd.getOptionValue("repo-mirror-path"));
+            }
+            if (cmd.hasOption("repo-mirror-budget-mb")) {
+                properties.setProperty("repo-mirror-budget-mb", cmd.getOptionValue("repo-mirror-budget-mb"));
+            }
+            if (cmd.hasOption("shallow-clone")) {
+                properties.setProperty("shallow-clone", "true");
+            }
+            if (cmd.hasOption("disable-result-cache")) {
+                properties.setProperty("use-result-cache", "false");
+            }
+            if (cmd.hasOption("grading-workers")) {
+                properties.setProperty("grading-workers", cmd.getOptionValue("grading-workers"));
+            }
+            if (cmd.hasOption("grading-fetch-workers")) {
+                properties.setProperty("grading-fetch-workers", cmd.getOptionValue("grading-fetch-workers"));
+            }
+            if (cmd.hasOption("grading-score-workers")) {
+                properties.setProperty("grading-score-workers", cmd.getOptionValue("grading-score-workers"));
+            }
+            if (cmd.hasOption("batch-regrade-workers")) {
+                properties.setProperty("batch-regrade-workers", cmd.getOptionValue("batch-regrade-workers"));
+            }
+            if (cmd.hasOption("analytics-workers")) {
+                properties.setProperty("analytics-workers", cmd.getOptionValue("analytics-workers"));
+            }
+            if (cmd.hasOption("analytics-repo-timeout-seconds")) {
+                properties.setProperty("analytics-repo-timeout-seconds", cmd.getOptionValue("analytics-repo-timeout-seconds"));
+            }
+            if (cmd.hasOption("grading-worker-max-heap")) {
+                properties.setProperty("grading-worker-max-heap", cmd.getOptionValue("grading-worker-max-heap"));
+            }
+            if (cmd.hasOption("maven-daemons")) {
+                properties.setProperty("maven-daemons", cmd.getOptionValue("maven-daemons"));
+            }
+            if (cmd.hasOption("maven-home")) {
+                properties.setProperty("maven-home", cmd.getOptionValue("maven-home"));
+            }
+            if (cmd.hasOption("maven-daemon-max-builds")) {
+                properties.setProperty("maven-daemon-max-builds", cmd.getOptionValue("maven-daemon-max-builds"));
+            }
+            if (cmd.hasOption("direct-compile")) {
+                properties.setProperty("direct-compile", "true");
+            }
+            if (cmd.hasOption("maven-offline-repo")) {
+                properties.setProperty("maven-offline-repo", cmd.getOptionValue("maven-offline-repo"));
+            }
+            if (cmd.hasOption("worker")) {
+                properties.setProperty("worker", "true");
+            }
+            if (cmd.hasOption("worker-id")) {
+                properties.setProperty("worker-id", cmd.getOptionValue("worker-id"));
+            }
+            if (cmd.hasOption("remote-grading")) {
+                properties.setProperty("remote-grading", "true");
+            }
+            if (cmd.hasOption("grading-lease-seconds")) {
+                properties.setProperty("grading-lease-seconds", cmd.getOptionValue("grading-lease-seconds"));
+            }
+            if (cmd.hasOption("scheduling-policy")) {
+                properties.setProperty("scheduling-policy", cmd.getOptionValue("scheduling-policy"));
+            }
+            if (cmd.hasOption("resubmission-cap")) {
+                properties.setProperty("resubmission-cap", cmd.getOptionValue("resubmission-cap"));
+            }
+            if (cmd.hasOption("max-queue-depth")) {
+                properties.setProperty("max-queue-depth", cmd.getOptionValue("max-queue-depth"));
+            }
+            if (cmd.hasOption("submission-cooldown-seconds")) {
+                properties.setProperty("submission-cooldown-seconds", cmd.getOptionValue("submission-cooldown-seconds"));
+            }
         } catch (ParseException e) {
             throw new RuntimeException("Error parsing command line arguments", e);
         }
@@ -192,6 +277,30 @@ public class Server {
         options.addOption(null, "canvas-token", true, "Canvas Token");
         options.addOption(null, "use-canvas", true, "Using Canvas");
         options.addOption(null, "disable-compilation", false, "Turn off student code compilation");
+        options.addOption(null, "repo-mirror-path", true, "Directory for the local mirrors of student repos");
+        options.addOption(null, "repo-mirror-budget-mb", true, "Disk space the repo mirrors may use before the least recently used are deleted; 0 clones every submission directly");
+        options.addOption(null, "shallow-clone", false, "When cloning directly, clone only the history commit verification needs");
+        options.addOption(null, "disable-result-cache", false, "Always run the tests, even for commits already graded with the same tests");
+        options.addOption(null, "grading-workers", true, "Number of submissions graded concurrently");
+        options.addOption(null, "grading-fetch-workers", true, "Number of threads fetching and verifying repos ahead of grading");
+        options.addOption(null, "grading-score-workers", true, "Number of threads scoring and posting results to Canvas");
+        options.addOption(null, "batch-regrade-workers", true, "Number of submissions regraded concurrently by batch regrades");
+        options.addOption(null, "analytics-workers", true, "Number of student repos fetched concurrently when updating commit analytics or building honor checker zips");
+        options.addOption(null, "analytics-repo-timeout-seconds", true, "How long commit analytics and the honor checker wait for one student repo before skipping it");
+        options.addOption(null, "grading-worker-max-heap", true, "Max heap (ex. 512m) for the JVMs started by each grading worker");
+        options.addOption(null, "maven-daemons", true, "Number of warm Maven daemons that compile student code; 0 starts a new mvn for every submission");
+        options.addOption(null, "maven-home", true, "Maven installation the daemons run; defaults to MAVEN_HOME or the mvn on the PATH");
+        options.addOption(null, "maven-daemon-max-builds", true, "Builds a Maven daemon runs before it is replaced");
+        options.addOption(null, "direct-compile", false, "Compile student code with javac in the autograder, using Maven only to resolve dependencies once and when that fails");
+        options.addOption(null, "maven-offline-repo", true, "Local Maven repository seeded at startup with everything our POMs need; grading builds then run offline against it");
+        options.addOption(null, "worker", false, "Run as a headless grading worker that claims submissions from the queue table");
+        options.addOption(null, "worker-id", true, "Name this worker records on the queue rows it claims");
+        options.addOption(null, "remote-grading", false, "Only queue submissions; grading is left to separate workers");
+        options.addOption(null, "scheduling-policy", true, "Order to grade waiting submissions in: fifo (default), deadline, or fair");
+        options.addOption(null, "resubmission-cap", true, "Submissions of a phase per day after which a student's submissions are graded last");
+        options.addOption(null, "max-queue-depth", true, "Number of waiting submissions at which student submissions are turned away");
+        options.addOption(null, "submission-cooldown-seconds", true, "Minimum time between a student's submissions");
+        options.addOption(null, "grading-lease-seconds", true, "How long a grader may go without progress before it is killed and its submission requeued");
         return options;
     }
 
@@ -207,15 +316,27 @@ public class Server {
             throw new RuntimeException(e);
         }
 
+        if (ApplicationProperties.directCompile() || ApplicationProperties.mavenOfflineRepo() != null) {
+            Thread.ofPlatform().name("compile-setup").daemon()
+                    .start(() -> CompileHelper.prepare(new File("phases")));
+        }
+
+        if (ApplicationProperties.workerMode()) {
+            GradingWorkerService.start();
+            QueueLeaseService.start();
+            return;
+        }
+
         int port = setupEndpoints(8080);
 
         LOGGER.info("Server started on port {}", port);
 
-        try {
-            SubmissionService.reRunSubmissionsInQueue();
-        } catch (IOException | DataAccessException | GradingException e) {
-            LOGGER.error("Error rerunning submissions already in queue", e);
+        TrafficController.getInstance().startQueueStatusBroadcaster();
+        if (ApplicationProperties.remoteGrading()) {
+            TrafficController.getInstance().startRemoteGradingMonitor();
         }
+
+        QueueLeaseService.start();
     }
 
 }
@@ -9,15 +9,17 @@ import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.dataAccess.ItemNotFoundException;
 import edu.byu.cs.dataAccess.UserDao;
 import edu.byu.cs.honorChecker.HonorCheckerCompiler;
+import edu.byu.cs.honorChecker.SimilarityChecker;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.SimilarPair;
 import edu.byu.cs.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
+import java.util.List;
 
 public class AdminService {
 
@@ -120,30 +122,41 @@ public class AdminService {
 
     }
 
-    public static String getCommitAnalytics(String option) throws CanvasException, DataAccessException {
+    public static String getCommitAnalytics(String option) {
         return switch (option) {
-            case "update" -> CommitAnalyticsRouter.update();
-            case "cached" -> CommitAnalyticsRouter.cached();
             case "when" -> CommitAnalyticsRouter.when();
+            case "progress" -> CommitAnalyticsRouter.progress();
             default -> throw new IllegalStateException("Not found (invalid option: " + option + ")");
         };
     }
 
-    public static void streamHonorCheckerZip(String sectionStr, OutputStream os) throws CanvasException, IOException {
-        String filePath = HonorCheckerCompiler.compileSection(Integer.parseInt(sectionStr));
+    /**
+     * @param option the commit analytics request
+     * @return whether the option's response is CSV data, sent with {@link #streamCommitAnalytics}
+     */
+    public static boolean isCommitAnalyticsStream(String option) {
+        return "update".equals(option) || "cached".equals(option);
+    }
 
-        try (FileInputStream fis = new FileInputStream(filePath)) {
+    public static void streamCommitAnalytics(String option, OutputStream os, boolean gzip)
+            throws CanvasException, DataAccessException, IOException {
+        switch (option) {
+            case "update" -> CommitAnalyticsRouter.update(os, gzip);
+            case "cached" -> CommitAnalyticsRouter.cached(os, gzip);
+            default -> throw new IllegalStateException("Not found (invalid option: " + option + ")");
+        }
+    }
 
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                os.write(buffer, 0, bytesRead);
-            }
+    public static void streamHonorCheckerZip(String sectionStr, OutputStream os) throws CanvasException, IOException {
+        HonorCheckerCompiler.streamSection(Integer.parseInt(sectionStr), os);
+    }
 
-            fis.close();
-            new File(filePath).delete();
-        }
+    public static List<SimilarPair> getSimilarPairs(Phase phase, int limit) throws DataAccessException {
+        return SimilarityChecker.getSuspiciousPairs(phase, limit);
+    }
 
+    public static int indexSimilarity(Phase phase) throws DataAccessException {
+        return SimilarityChecker.indexLatestSubmissions(phase);
     }
 
     public static CanvasSection[] getAllSections() throws CanvasException {
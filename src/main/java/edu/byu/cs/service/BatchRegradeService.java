@@ -0,0 +1,264 @@
+package edu.byu.cs.service;
+
+import edu.byu.cs.autograder.Grader;
+import edu.byu.cs.autograder.GradingObserver;
+import edu.byu.cs.autograder.Regrade;
+import edu.byu.cs.controller.TrafficController;
+import edu.byu.cs.controller.exception.BadRequestException;
+import edu.byu.cs.controller.netmodel.BatchRegradeRequest;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.BatchRegradeStatus;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Regrades the latest submission of a phase for many students at once, for when the tests or rubric config
+ * change partway through the semester.
+ * <br>
+ * Regrades run on their own pool of low priority threads, separate from the grading queue, and only start
+ * while no student submissions are waiting to be graded. The processes they compile and test with are
+ * niced as well, though compiling in-process on the shared compile threads is not. Each regrade grades the commit that was originally
+ * submitted, using its original hand in date, and records a new submission.
+ */
+public class BatchRegradeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchRegradeService.class);
+
+    /** How long a regrade waits before checking again whether student submissions are still waiting. */
+    private static final Duration YIELD_INTERVAL = Duration.ofSeconds(5);
+
+    private static final Map<Integer, Batch> BATCHES = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+
+    private static ExecutorService executor;
+
+    /**
+     * Starts regrading the latest submission of a phase for the requested students
+     *
+     * @param adminNetId the admin starting the batch
+     * @param request    what to regrade
+     * @return the initial progress of the batch
+     */
+    public static BatchRegradeStatus start(String adminNetId, BatchRegradeRequest request)
+            throws BadRequestException, DataAccessException {
+        if (request == null || request.phase() == null) {
+            throw new BadRequestException("A phase to regrade is required");
+        }
+        Phase phase = request.phase();
+
+        Collection<String> netIds = request.netIds();
+        if (netIds == null) {
+            netIds = DaoService.getUserDao().getUsers().stream()
+                    .filter(user -> user.role() == User.Role.STUDENT)
+                    .map(User::netId)
+                    .toList();
+        }
+
+        Map<String, Submission> targets = new LinkedHashMap<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String netId : new LinkedHashSet<>(netIds)) {
+            Submission latest = getLatestSubmission(netId, phase);
+            if (latest != null) {
+                targets.put(netId, latest);
+            } else if (request.netIds() != null) {
+                missing.put(netId, "No submission of " + phase + " to regrade");
+            }
+        }
+
+        Batch batch = new Batch(NEXT_ID.getAndIncrement(), phase, request.postToCanvas(), adminNetId,
+                targets.size() + missing.size());
+        missing.forEach(batch::skip);
+        BATCHES.put(batch.id, batch);
+
+        LOGGER.info("Admin {} started batch regrade {} of {} for {} students (post to Canvas: {})",
+                adminNetId, batch.id, phase, targets.size(), request.postToCanvas());
+        for (Submission submission : targets.values()) {
+            getExecutor().submit(() -> regrade(batch, submission));
+        }
+        return batch.status();
+    }
+
+    /**
+     * @return the progress of every batch started since the server started, newest first
+     */
+    public static List<BatchRegradeStatus> getAll() {
+        return BATCHES.values().stream()
+                .sorted(Comparator.comparingInt((Batch batch) -> batch.id).reversed())
+                .map(Batch::status)
+                .toList();
+    }
+
+    /**
+     * @return the progress of a batch, or null if there is no batch with the given id
+     */
+    public static BatchRegradeStatus get(int id) {
+        Batch batch = BATCHES.get(id);
+        return batch == null ? null : batch.status();
+    }
+
+    /**
+     * Skips every submission of a batch that has not started regrading yet.
+     * Regrades already running are allowed to finish.
+     *
+     * @return the progress of the batch, or null if there is no batch with the given id
+     */
+    public static BatchRegradeStatus cancel(int id) {
+        Batch batch = BATCHES.get(id);
+        if (batch == null) {
+            return null;
+        }
+        batch.cancelled = true;
+        return batch.status();
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(ApplicationProperties.batchRegradeWorkers(),
+                    Thread.ofPlatform().name("batch-regrade-", 1).priority(Thread.MIN_PRIORITY).daemon().factory());
+        }
+        return executor;
+    }
+
+    private static Submission getLatestSubmission(String netId, Phase phase) throws DataAccessException {
+        Submission latest = null;
+        for (Submission submission : DaoService.getSubmissionDao().getSubmissionsForPhase(netId, phase)) {
+            if (!submission.admin() && (latest == null || latest.timestamp().isBefore(submission.timestamp()))) {
+                latest = submission;
+            }
+        }
+        return latest;
+    }
+
+    private static void regrade(Batch batch, Submission submission) {
+        String netId = submission.netId();
+        try {
+            waitForStudentQueue(batch);
+            if (batch.cancelled) {
+                batch.skip(netId, "Batch was cancelled");
+                return;
+            }
+
+            batch.begin();
+            BatchObserver observer = new BatchObserver();
+            Regrade regrade = new Regrade(submission.headHash(), submission.timestamp(), batch.postToCanvas);
+            new Grader(submission.repoUrl(), netId, observer, batch.phase, false, regrade).run();
+            batch.end(netId, observer.done ? null : Objects.requireNonNullElse(observer.error, "Regrade did not finish"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.skip(netId, "Regrade was interrupted");
+        } catch (Exception e) {
+            LOGGER.error("Error regrading {} for {} in batch {}", batch.phase, netId, batch.id, e);
+            batch.end(netId, e.getMessage());
+        }
+    }
+
+    /**
+     * Gives way to student submissions: regrades only start while none are waiting to be graded
+     */
+    private static void waitForStudentQueue(Batch batch) throws InterruptedException {
+        while (!batch.cancelled && TrafficController.getInstance().getWaitingCount() > 0) {
+            Thread.sleep(YIELD_INTERVAL.toMillis());
+        }
+    }
+
+    /**
+     * Tracks the progress of one batch
+     */
+    private static class Batch {
+        private final int id;
+        private final Phase phase;
+        private final boolean postToCanvas;
+        private final String startedBy;
+        private final Instant startedAt = Instant.now();
+        private final int total;
+        private final Map<String, String> problems = new LinkedHashMap<>();
+
+        private int running;
+        private int succeeded;
+        private int failed;
+        private int skipped;
+        private volatile boolean cancelled;
+
+        private Batch(int id, Phase phase, boolean postToCanvas, String startedBy, int total) {
+            this.id = id;
+            this.phase = phase;
+            this.postToCanvas = postToCanvas;
+            this.startedBy = startedBy;
+            this.total = total;
+        }
+
+        private synchronized void begin() {
+            running++;
+        }
+
+        /**
+         * @param error why the regrade failed, or null if it succeeded
+         */
+        private synchronized void end(String netId, String error) {
+            running--;
+            if (error == null) {
+                succeeded++;
+            } else {
+                failed++;
+                problems.put(netId, error);
+            }
+        }
+
+        private synchronized void skip(String netId, String reason) {
+            skipped++;
+            problems.put(netId, reason);
+        }
+
+        private synchronized BatchRegradeStatus status() {
+            int waiting = total - running - succeeded - failed - skipped;
+            return new BatchRegradeStatus(id, phase, postToCanvas, startedBy, startedAt, total, waiting, running,
+                    succeeded, failed, skipped, cancelled, new LinkedHashMap<>(problems));
+        }
+    }
+
+    /**
+     * Records how a regrade ended; progress messages have no one to go to
+     */
+    private static class BatchObserver implements GradingObserver {
+        private boolean done;
+        private String error;
+
+        @Override
+        public void notifyStarted() {}
+
+        @Override
+        public void update(String message) {}
+
+        @Override
+        public void notifyError(String message) {
+            error = message;
+        }
+
+        @Override
+        public void notifyError(String message, Submission submission) {
+            error = message;
+        }
+
+        @Override
+        public void notifyWarning(String message) {}
+
+        @Override
+        public void notifyDone(Submission submission) {
+            done = true;
+        }
+    }
+}
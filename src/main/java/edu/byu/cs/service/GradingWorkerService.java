@@ -0,0 +1,115 @@
+package edu.byu.cs.service;
+
+import edu.byu.cs.autograder.Grader;
+import edu.byu.cs.autograder.scheduling.FifoSchedulingPolicy;
+import edu.byu.cs.autograder.scheduling.SchedulingPolicy;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.QueueDao;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Runs the autograder as a headless grading worker. Each worker thread claims the oldest
+ * waiting row of the <code>queue</code> table, grades it, and writes the submission back
+ * through the shared database. Any number of workers, on any number of machines, can share
+ * one queue; the web server is started with <code>--remote-grading</code> so it only enqueues.
+ */
+public class GradingWorkerService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GradingWorkerService.class);
+
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(2);
+
+    private static final SchedulingPolicy SCHEDULING_POLICY = SchedulingPolicy.fromProperties();
+
+    /**
+     * Starts <code>--grading-workers</code> worker threads, which poll the queue until the process exits
+     */
+    public static void start() {
+        String workerId = ApplicationProperties.workerId();
+        Duration leaseDuration = Duration.ofSeconds(ApplicationProperties.gradingLeaseSeconds());
+
+        int workers = ApplicationProperties.gradingWorkers();
+        for (int i = 1; i <= workers; i++) {
+            Thread.ofPlatform()
+                    .name("grading-worker-" + i)
+                    .start(() -> pollQueue(workerId, leaseDuration));
+        }
+
+        LOGGER.info("Grading worker {} started with {} thread(s)", workerId, workers);
+    }
+
+    private static void pollQueue(String workerId, Duration leaseDuration) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                QueueItem queueItem = claimNext(workerId, leaseDuration);
+                if (queueItem == null) {
+                    Thread.sleep(POLL_INTERVAL);
+                    continue;
+                }
+                grade(queueItem);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (DataAccessException e) {
+                LOGGER.error("Error claiming item from queue", e);
+                sleepAfterError();
+            }
+        }
+    }
+
+    /**
+     * Claims the next waiting item. Without a scheduling policy the oldest item is claimed directly;
+     * otherwise the policy orders the waiting items and the first one still unclaimed is taken.
+     */
+    private static QueueItem claimNext(String workerId, Duration leaseDuration) throws DataAccessException {
+        QueueDao queueDao = DaoService.getQueueDao();
+        if (SCHEDULING_POLICY instanceof FifoSchedulingPolicy) {
+            return queueDao.claim(workerId, leaseDuration);
+        }
+
+        List<QueueItem> waiting = queueDao.getAll().stream().filter(item -> !item.started()).toList();
+        for (QueueItem item : SCHEDULING_POLICY.order(waiting)) {
+            if (queueDao.claim(item.netId(), workerId, leaseDuration)) {
+                return new QueueItem(item.netId(), item.phase(), item.timeAdded(), true);
+            }
+        }
+        return null;
+    }
+
+    private static void grade(QueueItem queueItem) throws DataAccessException {
+        LOGGER.info("Claimed phase {} submission for {}", queueItem.phase(), queueItem.netId());
+        try {
+            Grader grader = SubmissionService.getGrader(queueItem);
+            if (grader == null) {
+                LOGGER.warn("User {} has no repo to grade; dropping queue item", queueItem.netId());
+                DaoService.getQueueDao().remove(queueItem.netId());
+                return;
+            }
+            QueueLeaseService.register(grader);
+            try {
+                grader.run();
+            } finally {
+                QueueLeaseService.unregister(grader);
+                // The lease reaper interrupts graders it gives up on; that must not stop this worker
+                Thread.interrupted();
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error grading submission for {}", queueItem.netId(), e);
+            DaoService.getQueueDao().remove(queueItem.netId());
+        }
+    }
+
+    private static void sleepAfterError() {
+        try {
+            Thread.sleep(POLL_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package edu.byu.cs.service;
+
+import edu.byu.cs.autograder.Grader;
+import edu.byu.cs.controller.TrafficController;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.QueueDao;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the queue moving without restarts. Every started queue item is leased to the process grading it.
+ * A reaper periodically renews the leases of this process's graders that are still making progress,
+ * kills and requeues the ones that have stalled, and requeues items whose lease expired because the
+ * process holding them died.
+ */
+public class QueueLeaseService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueLeaseService.class);
+
+    /**
+     * The graders owned by this process, by netId, from the time they are queued until they finish
+     */
+    private static final Map<String, Grader> ACTIVE_GRADERS = new ConcurrentHashMap<>();
+
+    /**
+     * @param grader the grader to track
+     * @return false if this process already has a grader for the student, in which case this one is not tracked
+     */
+    public static boolean register(Grader grader) {
+        return ACTIVE_GRADERS.putIfAbsent(grader.netId(), grader) == null;
+    }
+
+    /**
+     * @param netId the netId of a student
+     * @return true if this process has a grader queued or running for the student
+     */
+    public static boolean isActive(String netId) {
+        return ACTIVE_GRADERS.containsKey(netId);
+    }
+
+    public static void unregister(Grader grader) {
+        ACTIVE_GRADERS.remove(grader.netId(), grader);
+    }
+
+    /**
+     * Starts the reaper. When this process grades submissions itself, submissions that were
+     * waiting in the queue when the server last stopped are resumed first.
+     */
+    public static void start() {
+        if (gradesLocally()) {
+            resumeWaitingSubmissions();
+        }
+
+        long periodSeconds = Math.max(1, leaseDuration().toSeconds() / 3);
+        ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("queue-lease-reaper").daemon().factory());
+        reaper.scheduleWithFixedDelay(() -> {
+            try {
+                reap();
+            } catch (Exception e) {
+                LOGGER.error("Error reaping queue leases", e);
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    private static void reap() throws DataAccessException {
+        QueueDao queueDao = DaoService.getQueueDao();
+        Duration leaseDuration = leaseDuration();
+        String workerId = ApplicationProperties.workerId();
+
+        for (Grader grader : ACTIVE_GRADERS.values()) {
+            if (grader.isStalled(leaseDuration)) {
+                LOGGER.warn("Grader for {} made no progress for {}; killing it and requeueing", grader.netId(), leaseDuration);
+                unregister(grader);
+                grader.abort();
+                queueDao.markNotStarted(grader.netId());
+                TrafficController.queueItemChanged(grader.netId());
+                requeue(queueDao.get(grader.netId()));
+            } else if (grader.isStarted() && !queueDao.renewLease(grader.netId(), workerId, leaseDuration)) {
+                LOGGER.warn("Lost the lease on the submission for {}; abandoning its grader", grader.netId());
+                unregister(grader);
+                grader.abort();
+            }
+        }
+
+        for (QueueItem item : queueDao.releaseExpiredLeases()) {
+            LOGGER.warn("Lease on the submission for {} expired; requeueing", item.netId());
+            TrafficController.queueItemChanged(item.netId());
+            requeue(item);
+        }
+    }
+
+    /**
+     * Queued items are only ever held in memory by the process that queued them, so after a restart
+     * the waiting ones have to be picked up again. Started ones are recovered once their lease expires.
+     */
+    private static void resumeWaitingSubmissions() {
+        try {
+            for (QueueItem item : DaoService.getQueueDao().getAll()) {
+                if (!item.started()) {
+                    requeue(item);
+                }
+            }
+        } catch (DataAccessException e) {
+            LOGGER.error("Error resuming submissions waiting in queue", e);
+        }
+    }
+
+    /**
+     * Hands a waiting item to this process's grading pipeline. Grading workers claim waiting
+     * items themselves, so nothing else is needed when grading happens elsewhere.
+     */
+    private static void requeue(QueueItem item) throws DataAccessException {
+        if (item == null || !gradesLocally()) {
+            return;
+        }
+        try {
+            Grader grader = SubmissionService.getGrader(item);
+            if (grader != null) {
+                TrafficController.getInstance().addGrader(grader);
+                return;
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error requeueing submission for {}", item.netId(), e);
+        }
+        DaoService.getQueueDao().remove(item.netId());
+        TrafficController.queueItemChanged(item.netId());
+    }
+
+    private static boolean gradesLocally() {
+        return !ApplicationProperties.workerMode() && !ApplicationProperties.remoteGrading();
+    }
+
+    private static Duration leaseDuration() {
+        return Duration.ofSeconds(ApplicationProperties.gradingLeaseSeconds());
+    }
+}
@@ -6,6 +6,7 @@ import edu.byu.cs.autograder.GradingObserver;
 import edu.byu.cs.autograder.GradingObserverImpl;
 import edu.byu.cs.controller.exception.BadRequestException;
 import edu.byu.cs.controller.exception.InternalServerException;
+import edu.byu.cs.controller.exception.TooManyRequestsException;
 import edu.byu.cs.controller.TrafficController;
 import edu.byu.cs.controller.netmodel.ApprovalRequest;
 import edu.byu.cs.controller.netmodel.GradeRequest;
@@ -14,23 +15,31 @@ import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.QueueItem;
 import edu.byu.cs.model.Submission;
 import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.SubmissionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class SubmissionService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SubmissionService.class);
 
-    public static void submit(User user, GradeRequest request) throws BadRequestException, DataAccessException, InternalServerException {
+    /** Suggested wait when the queue is full but there is no grading history to estimate from */
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 60;
+
+    public static void submit(User user, GradeRequest request)
+            throws BadRequestException, DataAccessException, InternalServerException, TooManyRequestsException {
         if (!phaseIsEnabled(request.phase())) {
             throw new BadRequestException("Student submission is disabled for " + request.phase());
         }
 
+        assertCanBeAdmitted(user);
         assertHasNewCommits(user, request.phase());
 
         LOGGER.info("User {} submitted phase {} for grading", user.netId(), request.phase());
@@ -67,7 +76,17 @@ public class SubmissionService {
         QueueItem qItem = new QueueItem(netId, phase, Instant.now(), false);
         DaoService.getQueueDao().add(qItem);
 
-        TrafficController.sessions.put(netId, new ArrayList<>());
+        if (ApplicationProperties.remoteGrading()) {
+            // Before the session is added, so the remote grading monitor never sees one without it
+            TrafficController.getInstance().watchRemoteSubmission(qItem);
+        }
+        TrafficController.sessions.put(netId, new CopyOnWriteArrayList<>());
+        TrafficController.queueItemChanged(netId);
+
+        if (ApplicationProperties.remoteGrading()) {
+            // A grading worker will claim the queue item
+            return;
+        }
 
         try {
             Grader grader = getGrader(netId, phase, repoUrl, adminSubmission);
@@ -83,6 +102,44 @@ public class SubmissionService {
         }
     }
 
+    /**
+     * Turns away student submissions while the queue is full or while the student is in their cooldown
+     * after their previous submission. The rejection says when to try again.
+     * Admins are always admitted, so they can check on grading while students are being turned away.
+     */
+    static void assertCanBeAdmitted(User user) throws DataAccessException, TooManyRequestsException {
+        if (user.role() == User.Role.ADMIN) {
+            return;
+        }
+        int cooldownSeconds = ApplicationProperties.submissionCooldownSeconds();
+        if (cooldownSeconds > 0) {
+            Submission lastSubmission = DaoService.getSubmissionDao().getLastSubmissionForUser(user.netId());
+            if (lastSubmission != null) {
+                long secondsSinceLast = Duration.between(lastSubmission.timestamp(), Instant.now()).toSeconds();
+                if (secondsSinceLast < cooldownSeconds) {
+                    long retryAfter = cooldownSeconds - secondsSinceLast;
+                    throw new TooManyRequestsException(
+                            "You submitted recently. Please wait %d seconds before submitting again".formatted(retryAfter),
+                            retryAfter);
+                }
+            }
+        }
+
+        int maxQueueDepth = ApplicationProperties.maxQueueDepth();
+        if (maxQueueDepth > 0) {
+            TrafficController trafficController = TrafficController.getInstance();
+            int waiting = trafficController.getWaitingCount();
+            if (waiting >= maxQueueDepth) {
+                // Wait until enough submissions ahead have drained for this one to fit
+                Duration drainTime = trafficController.estimateWait(waiting - maxQueueDepth + 1);
+                long retryAfter = drainTime == null ? DEFAULT_RETRY_AFTER_SECONDS : Math.max(1, drainTime.toSeconds());
+                throw new TooManyRequestsException(
+                        "The grading queue is full. Please try again in %d seconds".formatted(retryAfter),
+                        retryAfter);
+            }
+        }
+    }
+
     private static void assertHasNewCommits(User user, Phase phase) throws DataAccessException, BadRequestException {
         String headHash;
         try {
@@ -205,20 +262,47 @@ public class SubmissionService {
         return new Grader(repoUrl, netId, observer, phase, adminSubmission);
     }
 
+    /**
+     * Creates a grader for a claimed queue item, using the repo currently registered to the user
+     *
+     * @param queueItem the queue item to grade
+     * @return the grader, or null if the user has no repo to grade
+     * @throws IOException if there is an error creating the grader
+     */
+    public static Grader getGrader(QueueItem queueItem) throws IOException, GradingException, DataAccessException {
+        User user = DaoService.getUserDao().getUser(queueItem.netId());
+        if (user == null || user.repoUrl() == null) {
+            return null;
+        }
+        return getGrader(queueItem.netId(), queueItem.phase(), user.repoUrl(), user.role() == User.Role.ADMIN);
+    }
+
     /**
      * Takes any submissions currently in the queue and reruns them through the grader.
-     * Used if the queue got stuck or if the server crashed while submissions were
-     * waiting in the queue.
+     * Used by admins to force the whole queue to restart. Stuck or orphaned submissions
+     * are normally recovered by {@link QueueLeaseService}.
+     * <br>
+     * With remote grading, workers reclaim stuck submissions once their lease expires, so nothing is rerun here.
      */
     public static void reRunSubmissionsInQueue() throws IOException, DataAccessException, GradingException {
+        if (ApplicationProperties.remoteGrading()) {
+            LOGGER.info("Remote grading is enabled; leaving queued submissions to the grading workers");
+            return;
+        }
+
         QueueDao queueDao = DaoService.getQueueDao();
         UserDao userDao = DaoService.getUserDao();
         Collection<QueueItem> inQueue = queueDao.getAll();
 
         for (QueueItem queueItem : inQueue) {
+            if (QueueLeaseService.isActive(queueItem.netId())) {
+                LOGGER.info("Submission for {} is already being graded; not rerunning it", queueItem.netId());
+                continue;
+            }
             User currentUser = userDao.getUser(queueItem.netId());
             if (currentUser.repoUrl() != null) {
                 queueDao.markNotStarted(queueItem.netId());
+                TrafficController.queueItemChanged(queueItem.netId());
 
                 TrafficController.getInstance().addGrader(
                         getGrader(queueItem.netId(),
@@ -227,6 +311,7 @@ public class SubmissionService {
                                 currentUser.role() == User.Role.ADMIN));
             } else {
                 queueDao.remove(queueItem.netId());
+                TrafficController.queueItemChanged(queueItem.netId());
             }
         }
     }
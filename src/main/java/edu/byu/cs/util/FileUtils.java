@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -176,6 +177,62 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Recursively copies a directory and all of its contents
+     *
+     * @param sourceDir the directory to copy
+     * @param destinationDir the directory to create; existing files inside it are replaced
+     */
+    public static void copyDirectory(File sourceDir, File destinationDir) {
+        Path sourcePath = sourceDir.toPath();
+        Path destinationPath = destinationDir.toPath();
+        try (Stream<Path> paths = Files.walk(sourcePath)) {
+            for (Path path : paths.toList()) {
+                Path target = destinationPath.resolve(sourcePath.relativize(path));
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to copy directory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recreates a directory with hard links to its files instead of copies, so the copy is nearly free.
+     * Writing to a linked file changes the original, so files that will be written to must be copied.
+     * Files that cannot be linked, such as across file systems, are copied.
+     *
+     * @param sourceDir the directory to link
+     * @param destinationDir the directory to create
+     * @param copiedFiles paths relative to the source directory of the files to copy rather than link
+     */
+    public static void linkDirectory(File sourceDir, File destinationDir, Set<Path> copiedFiles) {
+        Path sourcePath = sourceDir.toPath();
+        Path destinationPath = destinationDir.toPath();
+        try (Stream<Path> paths = Files.walk(sourcePath)) {
+            for (Path path : paths.toList()) {
+                Path relative = sourcePath.relativize(path);
+                Path target = destinationPath.resolve(relative);
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else if (copiedFiles.contains(relative)) {
+                    Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    try {
+                        Files.createLink(target, path);
+                    } catch (IOException | UnsupportedOperationException e) {
+                        Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to link directory: " + e.getMessage());
+        }
+    }
+
     /**
      * @param filePath The path to file/directory to find all the file names and the associated absolute paths
      * @return A map of the file names and the associated absolute paths given a path
@@ -1,12 +1,34 @@
 package edu.byu.cs.util;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 
 public class ProcessUtils {
 
     private static final long DEFAULT_TIMEOUT = 90000;
 
+    /**
+     * Processes currently running through {@link #runProcess} that were given a working directory,
+     * so that a stuck grader's processes can be found and killed by directory
+     */
+    private static final Map<Process, File> RUNNING_PROCESSES = new ConcurrentHashMap<>();
+
+    /**
+     * Directories whose processes are started through {@link #runProcess} at a lower scheduling priority,
+     * so background work such as regrades gives way to grading student submissions
+     */
+    private static final Set<Path> LOW_PRIORITY_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+    private static final int LOW_PRIORITY_NICENESS = 10;
+
+    private static final boolean NICE_AVAILABLE =
+            new File("/usr/bin/nice").canExecute() || new File("/bin/nice").canExecute();
+
     /**
      * Runs a process given by a process builder and returns process output
      * @param processBuilder process to run
@@ -47,36 +69,110 @@ public class ProcessUtils {
             throws ProcessException {
         try (ExecutorService processOutputExecutor = Executors.newFixedThreadPool(2)){
 
-            Process process = processBuilder.start();
-
-            /*
-            Grab the output from the process asynchronously. Without this concurrency, if this is computed
-            synchronously after the process terminates, the pipe from the process may fill up, causing the process
-            writes to block, resulting in the process never finishing. This is usually the result of the tested
-            code printing out too many lines to stdout as a means of logging/debugging
-             */
-            Future<String> processOutputFuture = processOutputExecutor.submit(() -> getOutputFromInputStream(process.getInputStream()));
-            Future<String> processErrorFuture = processOutputExecutor.submit(() -> getOutputFromInputStream(process.getErrorStream()));
-
-            if(input != null) {
-                try (OutputStream os = process.getOutputStream()) {
-                    os.write(input.getBytes());
-                }
+            Process process = start(processBuilder);
+            if (processBuilder.directory() != null) {
+                RUNNING_PROCESSES.put(process, processBuilder.directory());
             }
-
-            if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
-                process.destroyForcibly();
-                throw new ProcessException("Process timed out. Try again or come see a TA if this error persists");
+            try {
+                return awaitProcess(process, processOutputExecutor, input, timeout);
+            } finally {
+                RUNNING_PROCESSES.remove(process);
             }
-            String output = processOutputFuture.get(1000, TimeUnit.MILLISECONDS);
-            String error = processErrorFuture.get(1000, TimeUnit.MILLISECONDS);
-
-            return new ProcessOutput(output, error, process.waitFor());
         } catch (IOException | InterruptedException | ExecutionException | TimeoutException e) {
             throw new ProcessException(e);
         }
     }
 
+    private static Process start(ProcessBuilder processBuilder) throws IOException {
+        if (!NICE_AVAILABLE || processBuilder.directory() == null || !isLowPriority(processBuilder.directory())) {
+            return processBuilder.start();
+        }
+        List<String> command = processBuilder.command();
+        List<String> niceCommand = new ArrayList<>(List.of("nice", "-n", String.valueOf(LOW_PRIORITY_NICENESS)));
+        niceCommand.addAll(command);
+        try {
+            return processBuilder.command(niceCommand).start();
+        } finally {
+            processBuilder.command(command);
+        }
+    }
+
+    private static ProcessOutput awaitProcess(Process process, ExecutorService processOutputExecutor, String input,
+                                              long timeout)
+            throws IOException, InterruptedException, ExecutionException, TimeoutException, ProcessException {
+        /*
+        Grab the output from the process asynchronously. Without this concurrency, if this is computed
+        synchronously after the process terminates, the pipe from the process may fill up, causing the process
+        writes to block, resulting in the process never finishing. This is usually the result of the tested
+        code printing out too many lines to stdout as a means of logging/debugging
+         */
+        Future<String> processOutputFuture = processOutputExecutor.submit(() -> getOutputFromInputStream(process.getInputStream()));
+        Future<String> processErrorFuture = processOutputExecutor.submit(() -> getOutputFromInputStream(process.getErrorStream()));
+
+        if(input != null) {
+            try (OutputStream os = process.getOutputStream()) {
+                os.write(input.getBytes());
+            }
+        }
+
+        if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new ProcessException("Process timed out. Try again or come see a TA if this error persists");
+        }
+        String output = processOutputFuture.get(1000, TimeUnit.MILLISECONDS);
+        String error = processErrorFuture.get(1000, TimeUnit.MILLISECONDS);
+
+        return new ProcessOutput(output, error, process.waitFor());
+    }
+
+    /**
+     * Forcibly kills every running process, along with its descendants, whose working directory
+     * is the given directory or inside it
+     *
+     * @param directory the directory to kill processes in
+     */
+    public static void killProcessesIn(File directory) {
+        Path root = directory.toPath().toAbsolutePath().normalize();
+        RUNNING_PROCESSES.forEach((process, workingDirectory) -> {
+            if (workingDirectory.toPath().toAbsolutePath().normalize().startsWith(root)) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        });
+    }
+
+    /**
+     * Starts every process run in the given directory, or inside it, at a lower scheduling priority
+     * until {@link #restorePriorityIn} is called. Their descendants, such as forked test JVMs, inherit it.
+     *
+     * @param directory the directory to lower the priority of processes in
+     */
+    public static void lowerPriorityIn(File directory) {
+        LOW_PRIORITY_DIRECTORIES.add(normalize(directory));
+    }
+
+    /**
+     * Starts processes run in the given directory at normal priority again
+     *
+     * @param directory a directory passed to {@link #lowerPriorityIn}
+     */
+    public static void restorePriorityIn(File directory) {
+        LOW_PRIORITY_DIRECTORIES.remove(normalize(directory));
+    }
+
+    /**
+     * @param directory the working directory of a process
+     * @return true if processes run in the directory are started at a lower priority
+     */
+    public static boolean isLowPriority(File directory) {
+        Path path = normalize(directory);
+        return LOW_PRIORITY_DIRECTORIES.stream().anyMatch(path::startsWith);
+    }
+
+    private static Path normalize(File directory) {
+        return directory.toPath().toAbsolutePath().normalize();
+    }
+
     /**
      * Extracts the output as a string from an input stream
      *
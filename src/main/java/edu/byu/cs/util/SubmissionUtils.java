@@ -9,26 +9,90 @@ import edu.byu.cs.dataAccess.SubmissionDao;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Submission;
 import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SubmissionUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SubmissionUtils.class);
 
+    /** How long a looked up head hash is handed on to the grader, enough to cover getting it out of the queue. */
+    private static final Duration REMOTE_HEAD_TTL = Duration.ofSeconds(5);
+
+    private static final int LS_REMOTE_TIMEOUT_SECONDS = 20;
+
+    private static final Map<String, RemoteHead> REMOTE_HEADS = new ConcurrentHashMap<>();
+
+    private static volatile Clock clock = Clock.systemUTC();
+
+    private record RemoteHead(String hash, Instant resolvedAt) {
+        boolean isFresh() {
+            return resolvedAt.plus(REMOTE_HEAD_TTL).isAfter(clock.instant());
+        }
+    }
+
+    /**
+     * Replaces the clock looked up head hashes expire by, for tests
+     */
+    static void setClock(Clock clock) {
+        SubmissionUtils.clock = clock;
+    }
+
+    /**
+     * Looks up the commit the remote repo's HEAD points to, without cloning it.
+     * The remote is always asked, so a push made just before submitting is seen; the result is kept
+     * for a few seconds so the grader can check out that commit without asking again.
+     *
+     * @param repoUrl the url of the repo
+     * @return the hash of the head commit
+     * @throws DataAccessException if the repo could not be reached or has no HEAD
+     */
     public static String getRemoteHeadHash(String repoUrl) throws DataAccessException {
-        ProcessBuilder processBuilder = new ProcessBuilder("git", "ls-remote", repoUrl, "HEAD");
+        Ref head;
         try {
-            ProcessUtils.ProcessOutput output = ProcessUtils.runProcess(processBuilder);
-            if (output.statusCode() != 0) {
-                throw new DataAccessException("git ls-remote exited with non-zero exit code:\n" + output.stdErr());
-            }
-            return output.stdOut().split("\\s+")[0];
-        } catch (ProcessUtils.ProcessException e) {
-            throw new DataAccessException("Failed to execute git ls-remote process.", e);
+            head = Git.lsRemoteRepository()
+                    .setRemote(repoUrl)
+                    .setTimeout(LS_REMOTE_TIMEOUT_SECONDS)
+                    .callAsMap()
+                    .get(Constants.HEAD);
+        } catch (GitAPIException e) {
+            throw new DataAccessException("Failed to list remote refs: " + e.getMessage(), e);
+        }
+        if (head == null || head.getObjectId() == null) {
+            throw new DataAccessException("Remote repo has no HEAD");
+        }
+
+        String hash = head.getObjectId().getName();
+        REMOTE_HEADS.put(remoteHeadKey(repoUrl), new RemoteHead(hash, clock.instant()));
+        REMOTE_HEADS.values().removeIf(remoteHead -> !remoteHead.isFresh());
+        return hash;
+    }
+
+    /**
+     * @param repoUrl the url of the repo
+     * @return the head hash looked up within the last few seconds, or null if there is none
+     */
+    public static String getRecentRemoteHeadHash(String repoUrl) {
+        RemoteHead cached = REMOTE_HEADS.get(remoteHeadKey(repoUrl));
+        return cached != null && cached.isFresh() ? cached.hash() : null;
+    }
+
+    private static String remoteHeadKey(String repoUrl) {
+        try {
+            return RepoUrlValidator.clean(repoUrl);
+        } catch (RepoUrlValidator.InvalidRepoUrlException e) {
+            return repoUrl;
         }
     }
 
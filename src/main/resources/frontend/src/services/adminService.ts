@@ -1,4 +1,4 @@
-import type {CanvasSection, Phase, Submission, User } from '@/types/types'
+import type {CanvasSection, Phase, SimilarPair, Submission, User } from '@/types/types'
 import type {Option} from "@/views/AdminView/Analytics.vue";
 import { ServerCommunicator } from '@/network/ServerCommunicator'
 
@@ -56,6 +56,14 @@ export const honorCheckerZipGet = async (section: number): Promise<Blob> => {
     }
 }
 
+export const similarPairsGet = async (phase: Phase): Promise<SimilarPair[]> => {
+    return await ServerCommunicator.getRequestGuaranteed<SimilarPair[]>('/api/admin/honorChecker/similarity/' + phase, [])
+}
+
+export const similarityIndexPost = async (phase: Phase): Promise<number> => {
+    return await ServerCommunicator.postRequest<number>('/api/admin/honorChecker/similarity/' + phase, null)
+}
+
 export const sectionsGet = async (): Promise<CanvasSection[]> => {
     return await ServerCommunicator.getRequestGuaranteed<CanvasSection[]>('/api/admin/sections', [])
 }
@@ -24,6 +24,8 @@ export const adminSubmissionPost = async (phase: Phase, repoUrl: String): Promis
 
 type SubmitGetResponse = {
     inQueue: boolean,
+    position?: number,
+    estimatedWaitSeconds?: number,
 }
 export const submitGet = async (): Promise<boolean> => {
     return (await ServerCommunicator.getRequest<SubmitGetResponse>("/api/submit")).inQueue
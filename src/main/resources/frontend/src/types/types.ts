@@ -20,6 +20,14 @@ export const listOfPhases = ():Array<Phase> => {
     return result
 }
 
+export type SimilarPair = {
+    netIdA: string,
+    netIdB: string,
+    shared: number,
+    containment: number,
+    jaccard: number,
+}
+
 export type TestNode = {
     testName: string,
     passed: boolean,
@@ -0,0 +1,142 @@
+package edu.byu.cs.analytics;
+
+import edu.byu.cs.canvas.CanvasException;
+import edu.byu.cs.canvas.CanvasIntegration;
+import edu.byu.cs.canvas.CanvasService;
+import edu.byu.cs.canvas.model.CanvasSection;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class CommitAnalyticsRouterTest {
+
+    private static final String CSV = "netID,phase,numCommits,numDays,section,timestamp\n";
+
+    private static final String PREVIOUS_CSV = CSV + "student,Phase0,12,3,1,2024-09-01 12:00:00\n";
+
+    @TempDir
+    Path temp;
+
+    private File cacheDir;
+    private CanvasIntegration originalCanvasIntegration;
+
+    @BeforeAll
+    static void setUpAll() {
+        Properties properties = new Properties();
+        properties.setProperty("use-canvas", "false");
+        properties.setProperty("repo-mirror-budget-mb", "0");
+        ApplicationProperties.loadProperties(properties);
+    }
+
+    @BeforeEach
+    void setUp() throws CanvasException {
+        DaoService.initializeMemoryDAOs();
+        cacheDir = temp.resolve("commit-cache").toFile();
+        CommitAnalyticsRouter.setCacheDirectory(cacheDir);
+
+        originalCanvasIntegration = CanvasService.getCanvasIntegration();
+        CanvasIntegration canvasIntegration = Mockito.mock(CanvasIntegration.class);
+        when(canvasIntegration.getAllSections()).thenReturn(new CanvasSection[0]);
+        CanvasService.setCanvasIntegration(canvasIntegration);
+    }
+
+    @AfterEach
+    void tearDown() {
+        CanvasService.setCanvasIntegration(originalCanvasIntegration);
+        CommitAnalyticsRouter.setCacheDirectory(new File("commit-cache"));
+    }
+
+    @Test
+    void cached__gzipClient__sendsCacheByteForByte() throws IOException {
+        File cache = writeCache(PREVIOUS_CSV);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommitAnalyticsRouter.cached(out, true);
+
+        assertArrayEquals(Files.readAllBytes(cache.toPath()), out.toByteArray());
+    }
+
+    @Test
+    void cached__plainClient__sendsDecompressedCsv() throws IOException {
+        writeCache(PREVIOUS_CSV);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommitAnalyticsRouter.cached(out, false);
+
+        assertEquals(PREVIOUS_CSV, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void cached__noCache__sendsNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommitAnalyticsRouter.cached(out, true);
+
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void update__gzipClient__sendsWhatItCaches() throws Exception {
+        writeCache(PREVIOUS_CSV);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommitAnalyticsRouter.update(out, true);
+
+        assertEquals(CSV, gunzip(out.toByteArray()));
+        File[] files = cacheDir.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length, "The previous cache should be replaced");
+        assertEquals(CSV, gunzip(Files.readAllBytes(files[0].toPath())));
+    }
+
+    @Test
+    void update__clientGoesAway__keepsPreviousCache() throws IOException {
+        File cache = writeCache(PREVIOUS_CSV);
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        assertThrows(IOException.class, () -> CommitAnalyticsRouter.update(failing, false));
+
+        File[] files = cacheDir.listFiles();
+        assertNotNull(files);
+        assertArrayEquals(new File[]{cache}, files);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommitAnalyticsRouter.cached(out, false);
+        assertEquals(PREVIOUS_CSV, out.toString(StandardCharsets.UTF_8));
+    }
+
+    private File writeCache(String csv) throws IOException {
+        assertTrue(cacheDir.mkdirs());
+        File cache = new File(cacheDir, "1700000000.csv.gz");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(cache)),
+                StandardCharsets.UTF_8)) {
+            writer.write(csv);
+        }
+        return cache;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
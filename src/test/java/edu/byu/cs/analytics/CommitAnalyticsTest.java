@@ -0,0 +1,61 @@
+package edu.byu.cs.analytics;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommitAnalyticsTest {
+
+    @TempDir
+    Path temp;
+
+    private Git git;
+
+    @BeforeEach
+    void setUp() throws GitAPIException {
+        git = Git.init().setDirectory(temp.toFile()).call();
+    }
+
+    @AfterEach
+    void tearDown() {
+        git.close();
+    }
+
+    @Test
+    void countChangesInCommits__parallelMatchesSerial() throws IOException, GitAPIException {
+        for (int i = 0; i < 120; ++i) {
+            // Commits of different sizes, some rewriting a file from an earlier commit
+            Files.writeString(temp.resolve("file" + (i % 10) + ".txt"), ("change " + i + "\n").repeat(i % 5 + 1));
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Change " + i).setSign(false).call();
+        }
+        List<RevCommit> commits = new ArrayList<>();
+        git.log().call().forEach(commits::add);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // One worker can't split the diffs, so they run on this thread
+            int[] serial = CommitAnalytics.countChangesInCommits(git, commits, pool, commits.size());
+            int[] parallel = CommitAnalytics.countChangesInCommits(git, commits, pool, 1);
+
+            assertEquals(120, serial.length);
+            assertEquals(1, serial[commits.size() - 1]);
+            assertArrayEquals(serial, parallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
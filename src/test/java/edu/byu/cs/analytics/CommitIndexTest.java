@@ -0,0 +1,72 @@
+package edu.byu.cs.analytics;
+
+import edu.byu.cs.model.CommitIndexEntry;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommitIndexTest {
+
+    @TempDir
+    Path temp;
+
+    private Git git;
+
+    @BeforeEach
+    void setUp() throws GitAPIException {
+        git = Git.init().setDirectory(temp.toFile()).call();
+    }
+
+    @AfterEach
+    void tearDown() {
+        git.close();
+    }
+
+    @Test
+    void index__appendsOnlyNewCommits() throws IOException, GitAPIException {
+        commit("first", 1000);
+        commit("second", 2000);
+        CommitIndexEntry first = CommitIndex.index(git.getRepository(), "student", "url", null);
+        assertEquals(List.of(2000, 1000), first.timestamps());
+
+        commit("third", 3000);
+        CommitIndexEntry second = CommitIndex.index(git.getRepository(), "student", "url", first);
+        assertEquals(List.of(2000, 1000, 3000), second.timestamps());
+        assertEquals(List.of(git.getRepository().resolve("HEAD").getName()), second.tips());
+    }
+
+    @Test
+    void index__rebuildsAfterHistoryIsRewritten() throws IOException, GitAPIException {
+        commit("first", 1000);
+        commit("second", 2000);
+        CommitIndexEntry first = CommitIndex.index(git.getRepository(), "student", "url", null);
+
+        git.reset().setMode(ResetCommand.ResetType.HARD).setRef("HEAD~1").call();
+        commit("replacement", 3000);
+        CommitIndexEntry second = CommitIndex.index(git.getRepository(), "student", "url", first);
+        assertEquals(List.of(3000, 1000), second.timestamps());
+    }
+
+    private void commit(String message, long epochSeconds) throws IOException, GitAPIException {
+        File file = temp.resolve("file.txt").toFile();
+        Files.writeString(file.toPath(), message);
+        git.add().addFilepattern("file.txt").call();
+        PersonIdent ident = new PersonIdent("Cosmo", "cosmo@cs.byu.edu", Instant.ofEpochSecond(epochSeconds), ZoneOffset.UTC);
+        git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).setSign(false).call();
+    }
+}
@@ -0,0 +1,99 @@
+package edu.byu.cs.autograder;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Rubric;
+import edu.byu.cs.model.RubricConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradedResultCacheTest {
+
+    @TempDir
+    Path phases;
+
+    @TempDir
+    Path build;
+
+    private RubricConfig rubricConfig;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DaoService.initializeMemoryDAOs();
+        Files.createDirectories(phases.resolve("phase3"));
+        Files.writeString(phases.resolve("phase3/ServiceTests.java"), "class ServiceTests {}");
+        rubricConfig = rubricConfig(50);
+    }
+
+    @Test
+    void fingerprint__stableForSameInputs() throws IOException {
+        assertEquals(new GradedResultCache(phases.toFile()).fingerprint(rubricConfig),
+                new GradedResultCache(phases.toFile()).fingerprint(rubricConfig(50)));
+    }
+
+    @Test
+    void fingerprint__changesWithTests() throws IOException {
+        String before = new GradedResultCache(phases.toFile()).fingerprint(rubricConfig);
+        Files.writeString(phases.resolve("phase3/ServiceTests.java"), "class ServiceTests { void test() {} }");
+
+        assertNotEquals(before, new GradedResultCache(phases.toFile()).fingerprint(rubricConfig));
+    }
+
+    @Test
+    void fingerprint__recomputedWhenTestsChangeWhileRunning() throws IOException {
+        GradedResultCache cache = new GradedResultCache(phases.toFile());
+        String before = cache.fingerprint(rubricConfig);
+        Path tests = phases.resolve("phase3/ServiceTests.java");
+        Files.writeString(tests, "class ServiceTests { void test() {} }");
+        Files.setLastModifiedTime(tests, FileTime.fromMillis(Files.getLastModifiedTime(tests).toMillis() + 1000));
+
+        assertNotEquals(before, cache.fingerprint(rubricConfig));
+    }
+
+    @Test
+    void fingerprint__changesWithAutograder() throws IOException {
+        Path autograder = build.resolve("autograder.jar");
+        Files.writeString(autograder, "1.0");
+        String before = new GradedResultCache(phases.toFile(), autograder.toFile()).fingerprint(rubricConfig);
+        Files.writeString(autograder, "1.1");
+
+        assertNotEquals(before, new GradedResultCache(phases.toFile(), autograder.toFile()).fingerprint(rubricConfig));
+    }
+
+    @Test
+    void fingerprint__changesWithRubricConfig() throws IOException {
+        GradedResultCache cache = new GradedResultCache(phases.toFile());
+
+        assertNotEquals(cache.fingerprint(rubricConfig), cache.fingerprint(rubricConfig(60)));
+    }
+
+    @Test
+    void get__returnsOnlyMatchingResult() throws IOException {
+        GradedResultCache cache = new GradedResultCache(phases.toFile());
+        String fingerprint = cache.fingerprint(rubricConfig);
+        Rubric rubric = new Rubric(new EnumMap<>(Rubric.RubricType.class), true, "notes");
+
+        cache.put("abc123", Phase.Phase3, fingerprint, rubric);
+
+        assertEquals(rubric, cache.get("abc123", Phase.Phase3, fingerprint));
+        assertNull(cache.get("abc123", Phase.Phase4, fingerprint));
+        assertNull(cache.get("def456", Phase.Phase3, fingerprint));
+        assertNull(cache.get("abc123", Phase.Phase3, cache.fingerprint(rubricConfig(60))));
+    }
+
+    private static RubricConfig rubricConfig(int passoffPoints) {
+        EnumMap<Rubric.RubricType, RubricConfig.RubricConfigItem> items = new EnumMap<>(Rubric.RubricType.class);
+        items.put(Rubric.RubricType.PASSOFF_TESTS,
+                new RubricConfig.RubricConfigItem("Functionality", "Passes tests", passoffPoints, "_1"));
+        return new RubricConfig(Phase.Phase3, items);
+    }
+}
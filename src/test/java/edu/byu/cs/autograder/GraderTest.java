@@ -0,0 +1,70 @@
+package edu.byu.cs.autograder;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GraderTest {
+
+    @TempDir
+    Path repo;
+
+    private Grader grader;
+
+    @BeforeAll
+    static void setUpAll() {
+        // Nothing listens on port 1, so the student database is never reached
+        Properties properties = new Properties();
+        properties.setProperty("db-host", "localhost");
+        properties.setProperty("db-port", "1");
+        properties.setProperty("db-user", "root");
+        properties.setProperty("db-pass", "");
+        properties.setProperty("repo-mirror-budget-mb", "0");
+        ApplicationProperties.loadProperties(properties);
+    }
+
+    @BeforeEach
+    void setUp() throws IOException, GitAPIException {
+        DaoService.initializeMemoryDAOs();
+        try (Git git = Git.init().setDirectory(repo.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(repo.resolve("README.md"), "chess");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial commit").setSign(false).call();
+        }
+    }
+
+    @Test
+    void fetchAndVerify__abortedMidStage__savesNoSubmission() throws IOException, GradingException, DataAccessException {
+        GradingObserver observer = Mockito.mock(GradingObserver.class);
+        doAnswer(invocation -> {
+            grader.abort();
+            return null;
+        }).when(observer).update("Verifying commits...");
+        grader = new Grader(repo.toString(), "testNetId", observer, Phase.Phase0, true);
+
+        assertFalse(grader.fetchAndVerify());
+        assertFalse(grader.evaluate());
+        grader.score();
+
+        assertTrue(DaoService.getSubmissionDao().getSubmissionsForUser("testNetId").isEmpty());
+        verify(observer, never()).notifyError(anyString());
+        verify(observer, never()).notifyError(anyString(), any());
+        verify(observer, never()).notifyDone(any());
+    }
+}
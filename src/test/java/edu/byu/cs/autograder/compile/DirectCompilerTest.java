@@ -0,0 +1,106 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.util.ProcessUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectCompilerTest {
+
+    @TempDir
+    Path temp;
+
+    private DirectCompiler compiler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        File dependencies = temp.resolve("dependencies.jar").toFile();
+        try (ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(dependencies))) {
+            jar.putNextEntry(new ZipEntry("dependency.txt"));
+            jar.write("dependency".getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+        compiler = new DirectCompiler(Map.of("shared", dependencies, "server", dependencies, "client", dependencies));
+    }
+
+    @Test
+    void compile__packagesModulesWithTheirDependencies() throws IOException {
+        Path repo = temp.resolve("repo");
+        write(repo, "shared/src/main/java/model/Thing.java", "package model; public record Thing(int x) {}");
+        write(repo, "shared/src/test/java/model/ThingFactory.java",
+                "package model; public class ThingFactory { public static Thing make() { return new Thing(1); } }");
+        write(repo, "server/src/main/java/server/Server.java",
+                "package server; public class Server { public model.Thing thing() { return new model.Thing(2); } }");
+        write(repo, "server/src/main/resources/db.properties", "db.name=chess");
+        write(repo, "server/src/test/java/server/ServerTest.java",
+                "package server; class ServerTest { model.Thing thing = model.ThingFactory.make(); }");
+        write(repo, "client/src/main/java/client/Client.java", "package client; public class Client {}");
+        write(repo, "client/src/test/java/client/ClientTest.java",
+                "package client; class ClientTest { server.Server server = new server.Server(); }");
+
+        ProcessUtils.ProcessOutput output = compiler.compile(repo.toFile());
+        assertEquals(0, output.statusCode(), output.stdOut());
+
+        try (JarFile jar = new JarFile(repo.resolve("server/target/server-test-dependencies.jar").toFile())) {
+            assertNotNull(jar.getEntry("dependency.txt"));
+            assertNotNull(jar.getEntry("model/Thing.class"));
+            assertNotNull(jar.getEntry("model/ThingFactory.class"));
+            assertNotNull(jar.getEntry("server/Server.class"));
+            assertNotNull(jar.getEntry("db.properties"));
+            assertNull(jar.getEntry("server/ServerTest.class"));
+        }
+        try (JarFile jar = new JarFile(repo.resolve("client/target/client-test-dependencies.jar").toFile())) {
+            assertNotNull(jar.getEntry("client/Client.class"));
+            assertNotNull(jar.getEntry("server/Server.class"));
+            assertNull(jar.getEntry("model/ThingFactory.class"));
+        }
+    }
+
+    @Test
+    void compile__reportsErrorsLikeMaven() throws IOException {
+        Path repo = temp.resolve("repo");
+        write(repo, "shared/src/main/java/model/Thing.java", "package model; public record Thing(int x) {}");
+        write(repo, "server/src/main/java/server/Server.java",
+                "package server;\nclass Server {\n    int x() { return \"1\"; }\n}");
+        write(repo, "client/src/main/java/client/Client.java", "package client; public class Client {}");
+
+        ProcessUtils.ProcessOutput output = compiler.compile(repo.toFile());
+        assertEquals(1, output.statusCode());
+        String source = repo.resolve("server/src/main/java/server/Server.java").toAbsolutePath().toString();
+        assertTrue(output.stdOut().startsWith("[ERROR] " + source + ":[3,22] incompatible types"), output.stdOut());
+        assertFalse(Files.exists(repo.resolve("client/target")));
+    }
+
+    @Test
+    void compile__interrupted__stops() throws IOException {
+        Path repo = temp.resolve("repo");
+        write(repo, "shared/src/main/java/model/Thing.java", "package model; public record Thing(int x) {}");
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(RuntimeException.class, () -> compiler.compile(repo.toFile()));
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(Files.exists(repo.resolve("shared/target/classes/model/Thing.class")));
+    }
+
+    private static void write(Path repo, String path, String contents) throws IOException {
+        Path file = repo.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, contents);
+    }
+}
@@ -0,0 +1,90 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.util.ProcessUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MavenDaemonPoolTest {
+
+    private static final List<String> COMPILE = List.of("compile", "--batch-mode");
+
+    @TempDir
+    Path temp;
+
+    private File mavenHome;
+
+    @BeforeEach
+    void setUp() {
+        mavenHome = MavenDaemonPool.findMavenHome(null);
+        assumeTrue(mavenHome != null, "Maven is not installed");
+    }
+
+    @Test
+    void build__reportsSuccessAndErrors() throws IOException, ProcessUtils.ProcessException {
+        MavenDaemonPool pool = new MavenDaemonPool(mavenHome, 1, null, 10);
+        File good = project("good", "class A { int x() { return 1; } }");
+        File bad = project("bad", "class A { int x() { return \"1\"; } }");
+
+        ProcessUtils.ProcessOutput first = pool.build(good, COMPILE, 60000);
+        assertEquals(0, first.statusCode(), first.stdOut());
+        assertTrue(first.stdOut().contains("BUILD SUCCESS"));
+
+        ProcessUtils.ProcessOutput second = pool.build(bad, COMPILE, 60000);
+        assertNotEquals(0, second.statusCode());
+        assertTrue(second.stdOut().contains("[ERROR]"), second.stdOut());
+        assertTrue(second.stdOut().contains("incompatible types"), second.stdOut());
+    }
+
+    @Test
+    void build__replacesDaemonAfterTimeout() throws IOException, ProcessUtils.ProcessException {
+        MavenDaemonPool pool = new MavenDaemonPool(mavenHome, 1, null, 10);
+        File good = project("good", "class A {}");
+
+        assertThrows(ProcessUtils.ProcessException.class, () -> pool.build(good, COMPILE, 1));
+        assertEquals(0, pool.build(good, COMPILE, 60000).statusCode());
+    }
+
+    private File project(String name, String source) throws IOException {
+        Path project = temp.resolve(name);
+        Files.createDirectories(project.resolve("src/main/java"));
+        Files.writeString(project.resolve("src/main/java/A.java"), source);
+        // Uses the plugin versions this project builds with, so nothing new has to be downloaded
+        Files.writeString(project.resolve("pom.xml"), """
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>test</groupId>
+                    <artifactId>%s</artifactId>
+                    <version>1</version>
+                    <properties>
+                        <maven.compiler.release>21</maven.compiler.release>
+                        <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>
+                    </properties>
+                    <build>
+                        <plugins>
+                            <plugin>
+                                <groupId>org.apache.maven.plugins</groupId>
+                                <artifactId>maven-resources-plugin</artifactId>
+                                <version>3.3.1</version>
+                            </plugin>
+                            <plugin>
+                                <groupId>org.apache.maven.plugins</groupId>
+                                <artifactId>maven-compiler-plugin</artifactId>
+                                <version>3.12.1</version>
+                            </plugin>
+                        </plugins>
+                    </build>
+                </project>
+                """.formatted(name));
+        return project.toFile();
+    }
+}
@@ -0,0 +1,82 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.util.ProcessUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineMavenRepositoryTest {
+
+    @TempDir
+    Path temp;
+
+    private File phases;
+    private File repositoryDirectory;
+    private final List<List<String>> builds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        phases = temp.resolve("phases").toFile();
+        Files.createDirectories(temp.resolve("phases/pom"));
+        Files.createDirectories(temp.resolve("phases/libs"));
+        Files.writeString(temp.resolve("phases/pom/pom.xml"), "<project/>");
+        Files.writeString(temp.resolve("phases/libs/passoff-dependencies.jar"), "");
+        repositoryDirectory = temp.resolve("repository").toFile();
+    }
+
+    @Test
+    void prepare__seedsMissingRepositoryThenVerifiesOffline() throws IOException {
+        OfflineMavenRepository repository = new OfflineMavenRepository(repositoryDirectory);
+        repository.prepare(phases, this::fakeMaven);
+
+        assertEquals(2, builds.size());
+        assertEquals(List.of("-Dmaven.repo.local=" + repositoryDirectory.getAbsolutePath()), builds.get(0));
+        assertTrue(builds.get(1).contains("--offline"));
+        assertTrue(builds.get(1).contains("-Dmaven.repo.local.tail=" + repositoryDirectory.getAbsolutePath()));
+    }
+
+    @Test
+    void prepare__skipsSeedingCompleteRepository() throws IOException {
+        Files.createDirectories(repositoryDirectory.toPath());
+        Files.writeString(repositoryDirectory.toPath().resolve("seeded"), "");
+
+        new OfflineMavenRepository(repositoryDirectory).prepare(phases, this::fakeMaven);
+
+        assertEquals(1, builds.size());
+        assertTrue(builds.getFirst().contains("--offline"));
+    }
+
+    @Test
+    void prepare__failsIfSeedingFails() {
+        OfflineMavenRepository repository = new OfflineMavenRepository(repositoryDirectory);
+        assertThrows(IOException.class, () -> repository.prepare(phases,
+                (directory, args, timeout) -> new ProcessUtils.ProcessOutput("[ERROR] no network", "", 1)));
+    }
+
+    /**
+     * Succeeds offline only once the repository is seeded
+     */
+    private ProcessUtils.ProcessOutput fakeMaven(File directory, List<String> args, long timeout) {
+        builds.add(args);
+        assertTrue(new File(directory, "server/lib/passoff-dependencies.jar").isFile());
+        Path seeded = repositoryDirectory.toPath().resolve("seeded");
+        if (args.contains("--offline")) {
+            return new ProcessUtils.ProcessOutput("", "", Files.exists(seeded) ? 0 : 1);
+        }
+        try {
+            Files.writeString(seeded, "");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new ProcessUtils.ProcessOutput("", "", 0);
+    }
+}
@@ -1,17 +1,40 @@
 package edu.byu.cs.autograder.git;
 
 import edu.byu.cs.analytics.CommitThreshold;
+import edu.byu.cs.autograder.GradingContext;
+import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.autograder.GradingObserver;
+import edu.byu.cs.autograder.Regrade;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.CommitStats;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.properties.ApplicationProperties;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 
 class GitHelperTest {
     GitHelperUtils utils;
 
+    @TempDir
+    Path stage;
+
     @AfterAll
     static void cleanUp() {
         GitHelperUtils.cleanUpTests();
+        setShallowClone(false);
     }
 
     @BeforeEach
@@ -172,6 +195,29 @@ class GitHelperTest {
         ));
     }
 
+    @Test
+    void savedCommitStatsAreReused() {
+        utils.setGradingContext(utils.generateGradingContext(2, 0, 0, 10));
+        utils.evaluateTest("saved-commit-stats", new VerificationCheckpoint(
+                repoContext -> {
+                    utils.makeCommit(repoContext, "Change 1", 1, 2, 1);
+                    utils.makeCommit(repoContext, "Change 2", 0, 1, 1);
+                    // Pretend both commits were counted as significant in an earlier submission
+                    List<CommitStats> savedStats = new ArrayList<>();
+                    try {
+                        for (RevCommit commit : repoContext.git().log().call()) {
+                            savedStats.add(new CommitStats(commit.getName(), 50, commit.getCommitTime(),
+                                    commit.getAuthorIdent().getWhen().getTime() / 1000, commit.getParentCount(), false));
+                        }
+                        DaoService.getCommitStatsDao().insertStats(savedStats);
+                    } catch (GitAPIException | DataAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                },
+                utils.generalCommitVerificationResult(true, 2, 2)
+        ));
+    }
+
     @Test
     void simpleBackdatingCommits() {
         utils.setGradingContext(utils.generateGradingContext(3, 0, 10, 0));
@@ -250,4 +296,188 @@ class GitHelperTest {
                     utils.generalCommitVerificationResult(false, 2, 2, true))
         ));
     }
+
+    /**
+     * The branch's commits dated before the previous submission make the walk read past commits older than it.
+     * The tail is present, so the walk must still reach the branch's first commit behind them.
+     */
+    @Test
+    void mergedBranchOfBackdatedCommits() throws GitAPIException, IOException {
+        utils.setGradingContext(utils.generateGradingContext(1, 0, 10, 1));
+        try (RepoContext repoContext = utils.initializeTest("merged-backdated-branch", "file.txt")) {
+            Git git = repoContext.git();
+            utils.makeCommit(repoContext, "Change 1", 5, 0, 10);
+            utils.makeCommit(repoContext, "Change 2", 4, 0, 10);
+            RevCommit tail = git.log().setMaxCount(1).call().iterator().next();
+            String mainBranch = git.getRepository().getBranch();
+
+            git.checkout().setCreateBranch(true).setName("feature").setStartPoint("HEAD~1").call();
+            RepoContext branchContext = new RepoContext(git, repoContext.testName(), repoContext.directory(),
+                    new File(repoContext.directory(), "feature.txt"), "feature.txt");
+            utils.makeCommit(branchContext, "Feature 1", 1, 0, 10);
+            utils.makeCommit(branchContext, "Feature 2", 10, 0, 10);
+            utils.makeCommit(branchContext, "Feature 3", 9, 0, 10);
+            utils.makeCommit(branchContext, "Feature 4", 0, 30, 10);
+
+            git.checkout().setName(mainBranch).call();
+            utils.makeCommit(repoContext, "Change 3", 1, 30, 10);
+            git.merge().include(git.getRepository().resolve("feature")).setMessage("Merge feature").call();
+
+            CommitThreshold lowerThreshold =
+                    new CommitThreshold(Instant.ofEpochSecond(tail.getCommitTime()), tail.getName());
+            CommitVerificationResult result = utils.withTestRepo(repoContext.directory(), utils.evaluateRepo(lowerThreshold));
+
+            // Feature 2 and 3 are before the previous submission and are not counted
+            Assertions.assertEquals(3, result.totalCommits());
+            Assertions.assertFalse(result.verified());
+            Assertions.assertFalse(result.missingTail());
+            utils.cleanUpTest(repoContext);
+        }
+    }
+
+    @Test
+    void shallowClone__withoutVerification__clonesHeadOnly() throws GitAPIException, GradingException, IOException {
+        try (RepoContext source = initializeHistory("shallow-head-only")) {
+            cloneShallow(source, true);
+
+            try (Git git = Git.open(stage.toFile())) {
+                Assertions.assertEquals(1, countCommits(git));
+                Assertions.assertEquals(1, git.getRepository().getObjectDatabase().getShallowCommits().size());
+            }
+            utils.cleanUpTest(source);
+        }
+    }
+
+    @Test
+    void shallowClone__firstPassingSubmission__clonesFullHistory() throws GitAPIException, GradingException, IOException {
+        DaoService.initializeMemoryDAOs();
+        try (RepoContext source = initializeHistory("shallow-first-submission")) {
+            cloneShallow(source, false);
+
+            try (Git git = Git.open(stage.toFile())) {
+                Assertions.assertEquals(5, countCommits(git));
+                Assertions.assertTrue(git.getRepository().getObjectDatabase().getShallowCommits().isEmpty());
+            }
+            utils.cleanUpTest(source);
+        }
+    }
+
+    @Test
+    void shallowClone__afterPassingSubmission__clonesSinceShortlyBefore()
+            throws GitAPIException, GradingException, IOException, DataAccessException {
+        DaoService.initializeMemoryDAOs();
+        try (RepoContext source = initializeHistory("shallow-since-passoff")) {
+            insertPassingSubmission(headHash(source), Instant.now().minus(Duration.ofDays(2)));
+            GitHelper gitHelper = cloneShallow(source, false);
+
+            try (Git git = Git.open(stage.toFile())) {
+                // The commits of the last 3 days: the day since the passoff, and the day of margin before it
+                Assertions.assertEquals(2, countCommits(git));
+                Assertions.assertFalse(git.getRepository().getObjectDatabase().getShallowCommits().isEmpty());
+                CommitThreshold lowerThreshold = new CommitThreshold(Instant.now().minus(Duration.ofDays(2)),
+                        GitHelper.getHeadHash(git));
+                Assertions.assertFalse(gitHelper.deepenIfTruncated(git, lowerThreshold));
+            }
+            utils.cleanUpTest(source);
+        }
+    }
+
+    @Test
+    void shallowClone__previousCommitNotCloned__fetchesFullHistory()
+            throws GitAPIException, GradingException, IOException, DataAccessException {
+        DaoService.initializeMemoryDAOs();
+        try (RepoContext source = initializeHistory("shallow-unshallow-retry")) {
+            String oldHeadHash = null;
+            for (RevCommit commit : source.git().log().call()) {
+                oldHeadHash = commit.getName(); // The first commit, 10 days ago
+            }
+            // Handed in recently, but the commit graded then is far older than the clone reaches
+            insertPassingSubmission(oldHeadHash, Instant.now().minus(Duration.ofDays(2)));
+            GitHelper gitHelper = cloneShallow(source, false);
+
+            try (Git git = Git.open(stage.toFile())) {
+                Assertions.assertEquals(2, countCommits(git));
+                Assertions.assertTrue(gitHelper.deepenIfTruncated(git,
+                        new CommitThreshold(Instant.now().minus(Duration.ofDays(2)), oldHeadHash)));
+                Assertions.assertEquals(5, countCommits(git));
+                Assertions.assertTrue(git.getRepository().getObjectDatabase().getShallowCommits().isEmpty());
+            }
+            utils.cleanUpTest(source);
+        }
+    }
+
+    @Test
+    void regradeOfEarlierPhase__ignoresLaterPassingSubmissions()
+            throws GitAPIException, GradingException, IOException, DataAccessException {
+        DaoService.initializeMemoryDAOs();
+        setShallowClone(false);
+        try (RepoContext source = initializeHistory("regrade-earlier-phase")) {
+            // The phase being regraded was handed in a week ago at Change 3; a later phase passed today
+            String regradedHash = source.git().log().setSkip(2).setMaxCount(1).call().iterator().next().getName();
+            insertPassingSubmission(headHash(source), Instant.now());
+            GradingContext gradingContext = new GradingContext(
+                    "testNetId", Phase.Phase3, null, stage.toString(), source.directory().toURI().toString(),
+                    stage.toFile(), new CommitVerificationConfig(3, 3, 1, 10, 3),
+                    Mockito.mock(GradingObserver.class), false,
+                    new Regrade(regradedHash, Instant.now().minus(Duration.ofDays(7)), false));
+            GitHelper gitHelper = new GitHelper(gradingContext);
+            gitHelper.setUp();
+
+            CommitVerificationResult result = gitHelper.verifyCommitRequirements(stage.toFile());
+            Assertions.assertEquals(3, result.totalCommits());
+            Assertions.assertTrue(result.verified(), result.failureMessage());
+            utils.cleanUpTest(source);
+        }
+    }
+
+    /**
+     * Creates a repo with 3 commits from over a week ago and one each yesterday and today
+     */
+    private RepoContext initializeHistory(String testName) throws GitAPIException {
+        RepoContext source = utils.initializeTest(testName, "file.txt");
+        utils.makeCommit(source, "Change 1", 10, 0, 10);
+        utils.makeCommit(source, "Change 2", 9, 0, 10);
+        utils.makeCommit(source, "Change 3", 8, 0, 10);
+        utils.makeCommit(source, "Change 4", 1, 0, 10);
+        utils.makeCommit(source, "Change 5", 0, 10, 10);
+        return source;
+    }
+
+    /**
+     * Fetches the repo into the stage directory with shallow clones turned on and without a mirror
+     */
+    private GitHelper cloneShallow(RepoContext source, boolean admin) throws GradingException {
+        setShallowClone(true);
+        GradingContext gradingContext = new GradingContext(
+                "testNetId", Phase.Phase4, null, stage.toString(), source.directory().toURI().toString(),
+                stage.toFile(), new CommitVerificationConfig(1, 1, 1, 10, 3),
+                Mockito.mock(GradingObserver.class), admin);
+        GitHelper gitHelper = new GitHelper(gradingContext);
+        gitHelper.setUp();
+        return gitHelper;
+    }
+
+    private static void setShallowClone(boolean shallowClone) {
+        Properties properties = new Properties();
+        properties.setProperty("shallow-clone", String.valueOf(shallowClone));
+        properties.setProperty("repo-mirror-budget-mb", "0");
+        ApplicationProperties.loadProperties(properties);
+    }
+
+    private static void insertPassingSubmission(String headHash, Instant timestamp) throws DataAccessException {
+        DaoService.getSubmissionDao().insertSubmission(new Submission("testNetId", "testRepoUrl", headHash,
+                timestamp, Phase.Phase3, true, 1f, 1f, "", null, false, null, null));
+    }
+
+    private static String headHash(RepoContext repoContext) throws GitAPIException {
+        return repoContext.git().log().setMaxCount(1).call().iterator().next().getName();
+    }
+
+    private static int countCommits(Git git) throws GitAPIException {
+        int count = 0;
+        for (RevCommit ignored : git.log().call()) {
+            count++;
+        }
+        return count;
+    }
 }
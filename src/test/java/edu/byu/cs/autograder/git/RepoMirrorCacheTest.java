@@ -0,0 +1,106 @@
+package edu.byu.cs.autograder.git;
+
+import edu.byu.cs.util.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepoMirrorCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void cloneInto__fetchesNewCommits() throws IOException, GitAPIException {
+        File remote = temp.resolve("remote").toFile();
+        String firstCommit = commit(remote, "first");
+        RepoMirrorCache cache = new RepoMirrorCache(temp.resolve("mirrors").toFile(), Long.MAX_VALUE);
+
+        assertEquals(firstCommit, cloneAndGetHead(cache, remote, "stage1"));
+
+        String secondCommit = commit(remote, "second");
+        assertEquals(secondCommit, cloneAndGetHead(cache, remote, "stage2"));
+
+        try (Git stage = Git.open(temp.resolve("stage2").toFile())) {
+            assertEquals(remote.toURI().toString(), stage.getRepository().getConfig().getString("remote", "origin", "url"));
+        }
+    }
+
+    @Test
+    void cloneInto__evictsLeastRecentlyUsedOverBudget() throws IOException, GitAPIException {
+        File first = temp.resolve("first").toFile();
+        File second = temp.resolve("second").toFile();
+        commit(first, "first");
+        commit(second, "second");
+        File mirrors = temp.resolve("mirrors").toFile();
+        RepoMirrorCache cache = new RepoMirrorCache(mirrors, 1);
+
+        cloneAndGetHead(cache, first, "stage1");
+        assertEquals(1, mirrors.list().length);
+
+        cloneAndGetHead(cache, second, "stage2");
+        assertEquals(1, mirrors.list().length);
+    }
+
+    @Test
+    void cloneInto__skipsFetchWhenMirrorIsAtKnownHead() throws IOException, GitAPIException {
+        File remote = temp.resolve("remote").toFile();
+        String commit = commit(remote, "first");
+        String remoteUrl = remote.toURI().toString();
+        RepoMirrorCache cache = new RepoMirrorCache(temp.resolve("mirrors").toFile(), Long.MAX_VALUE);
+        cloneAndGetHead(cache, remote, "stage1");
+
+        // With the remote gone, the clone can only succeed if it does not fetch
+        FileUtils.removeDirectory(remote);
+        File stageRepo = temp.resolve("stage2").toFile();
+        cache.cloneInto(remoteUrl, stageRepo, commit, TIMEOUT);
+        try (Git git = Git.open(stageRepo)) {
+            assertEquals(commit, GitHelper.getHeadHash(git));
+        }
+    }
+
+    @Test
+    void readMirror__stalledRemote__timesOut() throws IOException {
+        RepoMirrorCache cache = new RepoMirrorCache(temp.resolve("mirrors").toFile(), Long.MAX_VALUE);
+        // Accepts the connection but never answers. Over HTTP, like student repos, the timeout is a socket timeout
+        try (ServerSocket stalled = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            String remoteUrl = "http://localhost:" + stalled.getLocalPort() + "/repo.git";
+
+            assertTimeoutPreemptively(Duration.ofSeconds(20), () -> assertThrows(GitAPIException.class, () ->
+                    cache.readMirror(remoteUrl, Duration.ofSeconds(1), NullProgressMonitor.INSTANCE, mirror -> null)));
+        }
+        // The mirror started for the fetch is discarded
+        String[] mirrors = temp.resolve("mirrors").toFile().list();
+        assertTrue(mirrors == null || mirrors.length == 0);
+    }
+
+    private String commit(File repo, String message) throws IOException, GitAPIException {
+        try (Git git = repo.exists() ? Git.open(repo) : Git.init().setDirectory(repo).call()) {
+            Files.writeString(new File(repo, "file.txt").toPath(), message);
+            git.add().addFilepattern("file.txt").call();
+            return git.commit().setMessage(message).setSign(false).call().getName();
+        }
+    }
+
+    private String cloneAndGetHead(RepoMirrorCache cache, File remote, String stage) throws IOException, GitAPIException {
+        File stageRepo = temp.resolve(stage).toFile();
+        cache.cloneInto(remote.toURI().toString(), stageRepo, null, TIMEOUT);
+        try (Git git = Git.open(stageRepo)) {
+            return GitHelper.getHeadHash(git);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package edu.byu.cs.autograder.scheduling;
+
+import edu.byu.cs.canvas.CanvasIntegration;
+import edu.byu.cs.canvas.CanvasService;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.util.PhaseUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SchedulingPolicyTest {
+
+    private static final Instant NOW = Instant.now();
+
+    private final QueueItem firstQueued = new QueueItem("first", Phase.Phase0, NOW.minusSeconds(30), false);
+    private final QueueItem secondQueued = new QueueItem("second", Phase.Phase3, NOW.minusSeconds(20), false);
+    private final QueueItem thirdQueued = new QueueItem("third", Phase.Phase0, NOW.minusSeconds(10), false);
+
+    @BeforeEach
+    void setUp() {
+        DaoService.initializeMemoryDAOs();
+    }
+
+    @Test
+    void fifo__ordersByTimeAdded() {
+        List<QueueItem> ordered = new FifoSchedulingPolicy().order(List.of(thirdQueued, firstQueued, secondQueued));
+
+        assertEquals(List.of(firstQueued, secondQueued, thirdQueued), ordered);
+    }
+
+    @Test
+    void fairShare__studentsWithFewerRecentSubmissionsGoFirst() {
+        addSubmissions("first", Phase.Phase0, 3);
+        addSubmissions("second", Phase.Phase3, 1);
+
+        List<QueueItem> ordered = new FairShareSchedulingPolicy().order(List.of(firstQueued, secondQueued, thirdQueued));
+
+        assertEquals(List.of(thirdQueued, secondQueued, firstQueued), ordered);
+    }
+
+    @Test
+    void fairShare__ignoresOldSubmissions() {
+        addSubmissions("first", Phase.Phase0, 3, SubmissionHistory.WINDOW.plusHours(1));
+
+        List<QueueItem> ordered = new FairShareSchedulingPolicy().order(List.of(firstQueued, secondQueued, thirdQueued));
+
+        assertEquals(List.of(firstQueued, secondQueued, thirdQueued), ordered);
+    }
+
+    @Test
+    void resubmissionCap__movesCappedStudentsLast() {
+        addSubmissions("first", Phase.Phase0, 2);
+        addSubmissions("second", Phase.Phase0, 5);
+
+        SchedulingPolicy policy = new ResubmissionCapSchedulingPolicy(new FifoSchedulingPolicy(), 2);
+        List<QueueItem> ordered = policy.order(List.of(firstQueued, secondQueued, thirdQueued));
+
+        // second's submissions were for a different phase than the one it is waiting on
+        assertEquals(List.of(secondQueued, thirdQueued, firstQueued), ordered);
+    }
+
+    @Test
+    void deadlineFirst__ordersByDueDateOnceLookedUpInTheBackground() throws Exception {
+        ApplicationProperties.loadProperties(properties("use-canvas", "false"));
+        CanvasIntegration originalCanvasIntegration = CanvasService.getCanvasIntegration();
+        CanvasIntegration canvasIntegration = mock(CanvasIntegration.class);
+        CanvasService.setCanvasIntegration(canvasIntegration);
+        ApplicationProperties.loadProperties(properties("use-canvas", "true"));
+        try {
+            for (Phase phase : List.of(Phase.Phase0, Phase.Phase3)) {
+                DaoService.getConfigurationDao().setConfiguration(
+                        PhaseUtils.getConfigurationAssignmentNumber(phase), phase.ordinal() + 1, Integer.class);
+            }
+            for (QueueItem item : List.of(firstQueued, secondQueued, thirdQueued)) {
+                DaoService.getUserDao().insertUser(new User(item.netId(), item.netId().hashCode(), "First", "Last",
+                        "repo", User.Role.STUDENT));
+                when(canvasIntegration.getAssignmentDueDateForStudent(eq(item.netId().hashCode()), anyInt()))
+                        .thenReturn(ZonedDateTime.now().plusDays(item == thirdQueued ? 1 : 2));
+            }
+            List<Runnable> lookups = new ArrayList<>();
+            SchedulingPolicy policy = new DeadlineFirstSchedulingPolicy(lookups::add);
+
+            // Nothing has been looked up yet, so nothing waits on Canvas
+            assertEquals(List.of(firstQueued, secondQueued, thirdQueued),
+                    policy.order(List.of(thirdQueued, firstQueued, secondQueued)));
+            verifyNoInteractions(canvasIntegration);
+            assertEquals(3, lookups.size());
+
+            lookups.forEach(Runnable::run);
+            assertEquals(List.of(thirdQueued, firstQueued, secondQueued),
+                    policy.order(List.of(thirdQueued, firstQueued, secondQueued)));
+            assertEquals(3, lookups.size());
+        } finally {
+            CanvasService.setCanvasIntegration(originalCanvasIntegration);
+            ApplicationProperties.loadProperties(properties("use-canvas", "false"));
+        }
+    }
+
+    private static Properties properties(String name, String value) {
+        Properties properties = new Properties();
+        properties.setProperty(name, value);
+        return properties;
+    }
+
+    private void addSubmissions(String netId, Phase phase, int count) {
+        addSubmissions(netId, phase, count, Duration.ofMinutes(5));
+    }
+
+    private void addSubmissions(String netId, Phase phase, int count, Duration age) {
+        try {
+            for (int i = 0; i < count; i++) {
+                DaoService.getSubmissionDao().insertSubmission(new Submission(netId, "repo", "hash" + i,
+                        NOW.minus(age), phase, false, 0f, 0f, "", null, false, null, null));
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+}
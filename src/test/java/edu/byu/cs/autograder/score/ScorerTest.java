@@ -3,6 +3,7 @@ package edu.byu.cs.autograder.score;
 import edu.byu.cs.autograder.GradingContext;
 import edu.byu.cs.autograder.GradingException;
 import edu.byu.cs.autograder.GradingObserver;
+import edu.byu.cs.autograder.Regrade;
 import edu.byu.cs.autograder.git.CommitVerificationConfig;
 import edu.byu.cs.autograder.git.CommitVerificationResult;
 import edu.byu.cs.canvas.CanvasException;
@@ -24,6 +25,7 @@ import org.mockito.Mockito;
 import java.io.File;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -184,6 +186,24 @@ class ScorerTest {
         assertNoCanvasGradeSubmitted();
     }
 
+    @Test
+    void score__regradeWithoutCanvas() throws DataAccessException {
+        Instant handInDate = Instant.now().minusSeconds(3600).truncatedTo(ChronoUnit.SECONDS);
+        gradingContext = new GradingContext(
+                "testNetId", Phase.Phase0, "testPhasesPath", "testStagePath",
+                "testRepoUrl", new File(""),
+                standardCVConfig, mockObserver, false, new Regrade("testHeadHash", handInDate, false));
+        DaoService.getQueueDao().remove("testNetId");
+
+        Submission submission = scoreRubric(constructRubric(1f));
+
+        assertNotNull(submission);
+        assertEquals(handInDate, submission.timestamp());
+        assertEquals(1, submission.score());
+
+        assertNoCanvasGradeSubmitted();
+    }
+
     @Test
     void score__phaseNotGradeable() {
         RubricConfig phase0RubricConfig = new RubricConfig(
@@ -0,0 +1,209 @@
+package edu.byu.cs.controller;
+
+import edu.byu.cs.canvas.CanvasException;
+import edu.byu.cs.canvas.CanvasIntegration;
+import edu.byu.cs.canvas.CanvasService;
+import edu.byu.cs.canvas.model.CanvasSection;
+import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.service.AdminService;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import spark.Request;
+import spark.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdminControllerTest {
+
+    private static final int SECTION_ID = 7;
+
+    @TempDir
+    Path temp;
+
+    private CanvasIntegration originalCanvasIntegration;
+    private Request req;
+    private Response res;
+    private org.eclipse.jetty.server.Response raw;
+    private HttpChannel channel;
+
+    @BeforeAll
+    static void setUpAll() {
+        Properties properties = new Properties();
+        properties.setProperty("use-canvas", "false");
+        properties.setProperty("repo-mirror-budget-mb", "0");
+        ApplicationProperties.loadProperties(properties);
+    }
+
+    @BeforeEach
+    void setUp() throws IOException, GitAPIException, CanvasException {
+        Path repo = temp.resolve("repo");
+        Files.createDirectories(repo.resolve("server"));
+        Files.writeString(repo.resolve("server/Server.java"), "class Server {}");
+        try (Git git = Git.init().setDirectory(repo.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial commit").setSign(false).call();
+        }
+
+        originalCanvasIntegration = CanvasService.getCanvasIntegration();
+        CanvasIntegration canvasIntegration = mock(CanvasIntegration.class);
+        when(canvasIntegration.getAllSections()).thenReturn(new CanvasSection[]{new CanvasSection(SECTION_ID, "Section")});
+        when(canvasIntegration.getAllStudentsBySection(SECTION_ID)).thenReturn(List.of(
+                new User("student", 1, "Ann", "Student", repo.toUri().toString(), User.Role.STUDENT)));
+        CanvasService.setCanvasIntegration(canvasIntegration);
+
+        req = mock(Request.class);
+        res = mock(Response.class);
+        raw = mock(org.eclipse.jetty.server.Response.class);
+        channel = mock(HttpChannel.class);
+        when(res.raw()).thenReturn(raw);
+        when(raw.getHttpChannel()).thenReturn(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        CanvasService.setCanvasIntegration(originalCanvasIntegration);
+    }
+
+    @Test
+    void honorCheckerZipGet__failsAfterSending__abortsResponse() throws Exception {
+        when(req.params(":section")).thenReturn(String.valueOf(SECTION_ID));
+        when(raw.getOutputStream()).thenReturn(new FailingOutputStream());
+        when(raw.isCommitted()).thenReturn(true);
+
+        AdminController.honorCheckerZipGet.handle(req, res);
+
+        verify(channel).abort(any(IOException.class));
+        verify(res, never()).status(500);
+    }
+
+    @Test
+    void honorCheckerZipGet__failsBeforeSending__returnsError() throws Exception {
+        when(req.params(":section")).thenReturn(String.valueOf(SECTION_ID + 1));
+        when(raw.getOutputStream()).thenReturn(new FailingOutputStream());
+        when(raw.isCommitted()).thenReturn(false);
+
+        Object body = AdminController.honorCheckerZipGet.handle(req, res);
+
+        assertEquals("Could not find specified section", body);
+        verify(raw).reset();
+        verify(res).status(500);
+        verify(channel, never()).abort(any());
+    }
+
+    @Test
+    void commitAnalyticsGet__gzipClient__sendsCsvGzipped() throws Exception {
+        RecordingOutputStream os = new RecordingOutputStream();
+        when(req.params(":option")).thenReturn("cached");
+        when(req.headers("Accept-Encoding")).thenReturn("gzip, deflate");
+        when(raw.getOutputStream()).thenReturn(os);
+
+        try (MockedStatic<AdminService> adminService = mockStatic(AdminService.class, CALLS_REAL_METHODS)) {
+            adminService.when(() -> AdminService.streamCommitAnalytics(eq("cached"), any(), eq(true)))
+                    .thenAnswer(invocation -> {
+                        invocation.<OutputStream>getArgument(1).write("csv".getBytes(StandardCharsets.UTF_8));
+                        return null;
+                    });
+
+            AdminController.commitAnalyticsGet.handle(req, res);
+        }
+
+        verify(res).header("Content-Encoding", "gzip");
+        verify(res).status(200);
+        assertEquals("csv", os.toString(StandardCharsets.UTF_8));
+        assertTrue(os.closed);
+        verify(channel, never()).abort(any());
+    }
+
+    @Test
+    void commitAnalyticsGet__failsMidStream__abortsResponse() throws Exception {
+        RecordingOutputStream os = new RecordingOutputStream();
+        when(req.params(":option")).thenReturn("cached");
+        when(raw.getOutputStream()).thenReturn(os);
+        when(raw.isCommitted()).thenReturn(true);
+
+        try (MockedStatic<AdminService> adminService = mockStatic(AdminService.class, CALLS_REAL_METHODS)) {
+            adminService.when(() -> AdminService.streamCommitAnalytics(eq("cached"), any(), eq(false)))
+                    .thenAnswer(invocation -> {
+                        invocation.<OutputStream>getArgument(1).write("netID,pha".getBytes(StandardCharsets.UTF_8));
+                        throw new IOException("Could not read the cache");
+                    });
+
+            AdminController.commitAnalyticsGet.handle(req, res);
+        }
+
+        verify(res, never()).header(eq("Content-Encoding"), anyString());
+        verify(channel).abort(any(IOException.class));
+        assertFalse(os.closed, "A truncated CSV must not be completed");
+    }
+
+    /**
+     * A response stream that keeps what was sent
+     */
+    private static class RecordingOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private boolean closed;
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) {
+            bytes.write(b);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        String toString(Charset charset) {
+            return bytes.toString(charset);
+        }
+    }
+
+    /**
+     * The response stream of a client that has gone away
+     */
+    private static class FailingOutputStream extends ServletOutputStream {
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("Connection reset");
+        }
+    }
+}
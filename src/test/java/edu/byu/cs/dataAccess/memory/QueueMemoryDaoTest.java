@@ -0,0 +1,50 @@
+package edu.byu.cs.dataAccess.memory;
+
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.QueueItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueMemoryDaoTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    private QueueMemoryDao queueDao;
+
+    @BeforeEach
+    void setUp() {
+        queueDao = new QueueMemoryDao();
+        queueDao.add(new QueueItem("student", Phase.Phase0, Instant.now(), false));
+    }
+
+    @Test
+    void renewLease__heldByWorker__renews() {
+        assertTrue(queueDao.claim("student", "worker", LEASE));
+
+        assertTrue(queueDao.renewLease("student", "worker", LEASE));
+        assertFalse(queueDao.renewLease("student", "other", LEASE));
+    }
+
+    @Test
+    void renewLease__afterRelease__doesNotTakeItemBack() {
+        assertTrue(queueDao.claim("student", "worker", Duration.ZERO));
+        assertEquals(1, queueDao.releaseExpiredLeases().size());
+
+        assertFalse(queueDao.renewLease("student", "worker", LEASE));
+        assertFalse(queueDao.get("student").started());
+
+        assertTrue(queueDao.claim("student", "other", LEASE));
+        assertFalse(queueDao.renewLease("student", "worker", LEASE));
+    }
+
+    @Test
+    void renewLease__unclaimed__fails() {
+        assertFalse(queueDao.renewLease("student", "worker", LEASE));
+        assertFalse(queueDao.renewLease("missing", "worker", LEASE));
+    }
+}
@@ -0,0 +1,160 @@
+package edu.byu.cs.honorChecker;
+
+import edu.byu.cs.canvas.CanvasException;
+import edu.byu.cs.canvas.CanvasIntegration;
+import edu.byu.cs.canvas.CanvasService;
+import edu.byu.cs.canvas.model.CanvasSection;
+import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class HonorCheckerCompilerTest {
+
+    private static final int SECTION_ID = 7;
+
+    @TempDir
+    Path temp;
+
+    private CanvasIntegration canvasIntegration;
+    private CanvasIntegration originalCanvasIntegration;
+
+    @BeforeAll
+    static void setUpAll() {
+        Properties properties = new Properties();
+        properties.setProperty("use-canvas", "false");
+        properties.setProperty("repo-mirror-budget-mb", "0");
+        properties.setProperty("analytics-repo-timeout-seconds", "10");
+        ApplicationProperties.loadProperties(properties);
+    }
+
+    @BeforeEach
+    void setUp() throws CanvasException {
+        originalCanvasIntegration = CanvasService.getCanvasIntegration();
+        canvasIntegration = Mockito.mock(CanvasIntegration.class);
+        when(canvasIntegration.getAllSections()).thenReturn(new CanvasSection[]{new CanvasSection(SECTION_ID, "Section")});
+        CanvasService.setCanvasIntegration(canvasIntegration);
+    }
+
+    @AfterEach
+    void tearDown() {
+        CanvasService.setCanvasIntegration(originalCanvasIntegration);
+    }
+
+    @Test
+    void findModuleFiles__leavesOutOtherDirectoriesAndSymlinks() throws IOException, GitAPIException {
+        Path repo = createRepo("student");
+
+        try (Git git = Git.open(repo.toFile())) {
+            ObjectId head = git.getRepository().resolve("HEAD");
+            Map<String, ObjectId> files = HonorCheckerCompiler.findModuleFiles(git.getRepository(), head);
+            assertEquals(Set.of("client/src/Client.java", "server/src/Server.java", "shared/src/Shared.java"),
+                    files.keySet());
+        }
+    }
+
+    @Test
+    void streamSection__zipsTheModulesOfEachStudent() throws IOException, GitAPIException, CanvasException {
+        Path first = createRepo("first");
+        Path second = createRepo("second");
+        when(canvasIntegration.getAllStudentsBySection(SECTION_ID)).thenReturn(List.of(
+                student("first", "Ann", first.toUri().toString()),
+                student("second", "Mary Jo", second.toUri().toString()),
+                student("missing", "Gone", temp.resolve("missing").toUri().toString()),
+                student("norepo", "None", null),
+                new User("test", 3, "Test", "Student", first.toUri().toString(), User.Role.STUDENT)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HonorCheckerCompiler.streamSection(SECTION_ID, out);
+
+        Map<String, String> entries = readZip(out.toByteArray());
+        Set<String> expected = new HashSet<>();
+        for (String directory : List.of("Ann_Student_first", "Mary_Jo_Student_second")) {
+            expected.add(directory + "/client/src/Client.java");
+            expected.add(directory + "/server/src/Server.java");
+            expected.add(directory + "/shared/src/Shared.java");
+        }
+        assertEquals(expected, entries.keySet());
+        assertEquals("class Server {}", entries.get("Ann_Student_first/server/src/Server.java"));
+    }
+
+    @Test
+    void streamSection__unknownSection__throws() {
+        assertThrows(CanvasException.class, () -> HonorCheckerCompiler.streamSection(SECTION_ID + 1,
+                new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void streamSection__failedWrite__throws() throws IOException, GitAPIException, CanvasException {
+        Path repo = createRepo("student");
+        when(canvasIntegration.getAllStudentsBySection(SECTION_ID)).thenReturn(List.of(
+                student("student", "Ann", repo.toUri().toString())));
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        assertThrows(IOException.class, () -> HonorCheckerCompiler.streamSection(SECTION_ID, failing));
+    }
+
+    /**
+     * Creates a repo with a file in each module, a file outside of them, and a symlink in one
+     */
+    private Path createRepo(String name) throws IOException, GitAPIException {
+        Path repo = temp.resolve(name);
+        write(repo, "client/src/Client.java", "class Client {}");
+        write(repo, "server/src/Server.java", "class Server {}");
+        write(repo, "shared/src/Shared.java", "class Shared {}");
+        write(repo, "README.md", "# Chess");
+        Files.createSymbolicLink(repo.resolve("server/src/Link.java"), Path.of("/etc/passwd"));
+        try (Git git = Git.init().setDirectory(repo.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial commit").setSign(false).call();
+        }
+        return repo;
+    }
+
+    private static User student(String netId, String firstName, String repoUrl) {
+        return new User(netId, netId.hashCode(), firstName, "Student", repoUrl, User.Role.STUDENT);
+    }
+
+    private static void write(Path repo, String path, String contents) throws IOException {
+        Path file = repo.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, contents);
+    }
+
+    private static Map<String, String> readZip(byte[] bytes) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.byu.cs.honorChecker;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.SimilarPair;
+import edu.byu.cs.model.SourceFingerprint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityCheckerTest {
+
+    private static final int[] SHARED_CODE = IntStream.range(0, 100).toArray();
+    private static final int[] OTHER_CODE = IntStream.range(1000, 1100).toArray();
+
+    @BeforeEach
+    void setUp() {
+        DaoService.initializeMemoryDAOs();
+    }
+
+    @Test
+    void getSuspiciousPairs__findsFingerprintsSavedElsewhereAfterLoading() throws DataAccessException {
+        DaoService.getSourceFingerprintDao().putFingerprints(
+                new SourceFingerprint("student1", Phase.Phase6, "hash1", SHARED_CODE));
+        assertEquals(List.of(), SimilarityChecker.getSuspiciousPairs(Phase.Phase6, 10));
+
+        // Saved straight to the database, as a remote grader does
+        DaoService.getSourceFingerprintDao().putFingerprints(
+                new SourceFingerprint("student2", Phase.Phase6, "hash2", SHARED_CODE));
+        List<SimilarPair> pairs = SimilarityChecker.getSuspiciousPairs(Phase.Phase6, 10);
+        assertEquals(1, pairs.size());
+        assertEquals(List.of("student1", "student2"),
+                List.of(pairs.getFirst().netIdA(), pairs.getFirst().netIdB()).stream().sorted().toList());
+
+        DaoService.getSourceFingerprintDao().putFingerprints(
+                new SourceFingerprint("student2", Phase.Phase6, "hash3", OTHER_CODE));
+        assertEquals(List.of(), SimilarityChecker.getSuspiciousPairs(Phase.Phase6, 10));
+    }
+}
@@ -0,0 +1,92 @@
+package edu.byu.cs.honorChecker;
+
+import edu.byu.cs.model.SimilarPair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityIndexTest {
+
+    private static final String STARTER_CODE = generateCode(new Random(0), 300);
+    private static final int STUDENTS = 12;
+
+    private SimilarityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SimilarityIndex();
+        for (int i = 0; i < STUDENTS; i++) {
+            index.put("student" + i, fingerprint(STARTER_CODE, ownCode(i)));
+        }
+    }
+
+    @Test
+    void suspiciousPairs__findsCopiedCodeButNotStarterCode() {
+        assertEquals(List.of(), index.suspiciousPairs(10));
+
+        String copied = ownCode(3).replace("value", "renamed").replace("compute", "calculate");
+        index.put("copier", fingerprint(STARTER_CODE, copied));
+
+        List<SimilarPair> pairs = index.suspiciousPairs(10);
+        assertEquals(1, pairs.size());
+        SimilarPair pair = pairs.getFirst();
+        assertEquals(List.of("copier", "student3"), List.of(pair.netIdA(), pair.netIdB()).stream().sorted().toList());
+        assertTrue(pair.containment() > 0.9, "containment was " + pair.containment());
+    }
+
+    @Test
+    void put__replacesEarlierCode() {
+        index.put("copier", fingerprint(STARTER_CODE, ownCode(3)));
+        assertEquals(1, index.suspiciousPairs(10).size());
+
+        index.put("copier", fingerprint(STARTER_CODE, ownCode(100)));
+        assertEquals(List.of(), index.suspiciousPairs(10));
+        assertEquals(STUDENTS + 1, index.size());
+    }
+
+    @Test
+    void suspiciousPairs__rejectsLimitBelowOne() {
+        index.put("copier", fingerprint(STARTER_CODE, ownCode(3)));
+
+        assertEquals(1, index.suspiciousPairs(1).size());
+        assertThrows(IllegalArgumentException.class, () -> index.suspiciousPairs(0));
+        assertThrows(IllegalArgumentException.class, () -> index.suspiciousPairs(-1));
+    }
+
+    private static String ownCode(int student) {
+        return generateCode(new Random(student + 1), 150);
+    }
+
+    private static int[] fingerprint(String... sources) {
+        return SourceFingerprinter.fingerprint(List.of(sources));
+    }
+
+    /**
+     * Generates a class of random statements, so that code from different seeds shares no long token runs
+     */
+    private static String generateCode(Random random, int statements) {
+        StringBuilder code = new StringBuilder("public class Generated {\n    int compute(int value) {\n");
+        for (int i = 0; i < statements; i++) {
+            code.append("        ");
+            switch (random.nextInt(4)) {
+                case 0 -> code.append("value = ").append(expression(random, 3)).append(";\n");
+                case 1 -> code.append("if (").append(expression(random, 2)).append(" > value) { value++; }\n");
+                case 2 -> code.append("while (value < ").append(expression(random, 2)).append(") value *= 2;\n");
+                default -> code.append("value += compute(").append(expression(random, 2)).append(");\n");
+            }
+        }
+        return code.append("        return value;\n    }\n}\n").toString();
+    }
+
+    private static String expression(Random random, int depth) {
+        if (depth == 0 || random.nextInt(3) == 0) {
+            return random.nextBoolean() ? "value" : String.valueOf(random.nextInt(100));
+        }
+        String operator = List.of("+", "-", "*", "/", "%", "&", "|", "^").get(random.nextInt(8));
+        return "(" + expression(random, depth - 1) + " " + operator + " " + expression(random, depth - 1) + ")";
+    }
+}
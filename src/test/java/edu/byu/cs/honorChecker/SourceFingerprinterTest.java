@@ -0,0 +1,81 @@
+package edu.byu.cs.honorChecker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceFingerprinterTest {
+
+    private static final String ORIGINAL = """
+            package chess;
+
+            import java.util.ArrayList;
+
+            public class ChessBoard {
+                private final ChessPiece[][] squares = new ChessPiece[8][8];
+
+                public void addPiece(ChessPosition position, ChessPiece piece) {
+                    squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+                }
+
+                public ChessPiece getPiece(ChessPosition position) {
+                    return squares[position.getRow() - 1][position.getColumn() - 1];
+                }
+            }
+            """;
+
+    private static final String DISGUISED = """
+            package passoff.chess;
+
+            import java.util.*;
+            import java.io.File;
+
+            // My own board, written from scratch
+            public class Board {
+                private final Piece[][] grid = new Piece[10][10];
+
+                /** Puts a piece on the board */
+                public void put(Position where, Piece what) {
+                    grid[where.row() - 2]
+                        [where.col() - 2] = what;
+                }
+
+                public Piece get(Position where) { return grid[where.row() - 2][where.col() - 2]; }
+            }
+            """;
+
+    @Test
+    void fingerprint__ignoresNamesLiteralsCommentsAndFormatting() {
+        assertArrayEquals(SourceFingerprinter.fingerprint(List.of(ORIGINAL)),
+                SourceFingerprinter.fingerprint(List.of(DISGUISED)));
+        assertTrue(SourceFingerprinter.fingerprint(List.of(ORIGINAL)).length > 0);
+    }
+
+    @Test
+    void fingerprint__differsForDifferentCode() {
+        String different = """
+                public class Counter {
+                    private int count;
+
+                    public synchronized int increment() {
+                        if (count < 0) throw new IllegalStateException("negative");
+                        while (count % 2 == 1) { count++; }
+                        return count;
+                    }
+                }
+                """;
+        int[] original = SourceFingerprinter.fingerprint(List.of(ORIGINAL));
+        int[] other = SourceFingerprinter.fingerprint(List.of(different));
+        for (int fingerprint : other) {
+            assertTrue(Arrays.binarySearch(original, fingerprint) < 0);
+        }
+    }
+
+    @Test
+    void fingerprint__shortFilesHaveNone() {
+        assertEquals(0, SourceFingerprinter.fingerprint("class A {}").length);
+    }
+}
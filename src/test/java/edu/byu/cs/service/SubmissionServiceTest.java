@@ -0,0 +1,101 @@
+package edu.byu.cs.service;
+
+import edu.byu.cs.controller.TrafficController;
+import edu.byu.cs.controller.exception.TooManyRequestsException;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionServiceTest {
+
+    private static final List<String> QUEUED = List.of("queued1", "queued2");
+
+    private final User student = new User("student", 1, "First", "Last", "repo", User.Role.STUDENT);
+    private final User admin = new User("admin", 2, "First", "Last", "repo", User.Role.ADMIN);
+
+    @BeforeEach
+    void setUp() {
+        DaoService.initializeMemoryDAOs();
+    }
+
+    @AfterEach
+    void tearDown() throws DataAccessException {
+        for (String netId : QUEUED) {
+            DaoService.getQueueDao().remove(netId);
+            TrafficController.queueItemChanged(netId);
+        }
+        setAdmissionLimits(0, 0);
+    }
+
+    @Test
+    void assertCanBeAdmitted__withinCooldown__rejectsUntilItEnds() throws DataAccessException {
+        setAdmissionLimits(300, 0);
+        insertSubmission(student, Duration.ofSeconds(100));
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> SubmissionService.assertCanBeAdmitted(student));
+        long retryAfter = e.getRetryAfterSeconds();
+        assertTrue(retryAfter > 195 && retryAfter <= 200, "Retry after " + retryAfter);
+    }
+
+    @Test
+    void assertCanBeAdmitted__afterCooldown__admits() throws DataAccessException {
+        setAdmissionLimits(300, 0);
+        insertSubmission(student, Duration.ofSeconds(301));
+
+        assertDoesNotThrow(() -> SubmissionService.assertCanBeAdmitted(student));
+    }
+
+    @Test
+    void assertCanBeAdmitted__atQueueDepthLimit__rejects() throws DataAccessException {
+        setAdmissionLimits(0, QUEUED.size());
+        queue(QUEUED.getFirst());
+        assertDoesNotThrow(() -> SubmissionService.assertCanBeAdmitted(student));
+
+        queue(QUEUED.getLast());
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> SubmissionService.assertCanBeAdmitted(student));
+        // Without grading history to estimate from, the default wait is suggested
+        assertEquals(60, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void assertCanBeAdmitted__admin__bypassesLimits() throws DataAccessException {
+        setAdmissionLimits(300, 1);
+        insertSubmission(admin, Duration.ofSeconds(10));
+        queue(QUEUED.getFirst());
+
+        assertDoesNotThrow(() -> SubmissionService.assertCanBeAdmitted(admin));
+    }
+
+    private static void setAdmissionLimits(int cooldownSeconds, int maxQueueDepth) {
+        Properties properties = new Properties();
+        properties.setProperty("submission-cooldown-seconds", String.valueOf(cooldownSeconds));
+        properties.setProperty("max-queue-depth", String.valueOf(maxQueueDepth));
+        ApplicationProperties.loadProperties(properties);
+    }
+
+    private static void insertSubmission(User user, Duration age) throws DataAccessException {
+        DaoService.getSubmissionDao().insertSubmission(new Submission(user.netId(), "repo", "hash",
+                Instant.now().minus(age), Phase.Phase0, true, 1f, 1f, "", null, false, null, null));
+    }
+
+    private static void queue(String netId) throws DataAccessException {
+        DaoService.getQueueDao().add(new QueueItem(netId, Phase.Phase0, Instant.now(), false));
+        TrafficController.queueItemChanged(netId);
+    }
+}
@@ -0,0 +1,40 @@
+package edu.byu.cs.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUtilsTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void linkDirectory__copiesOnlyFilesThatAreWrittenTo() throws IOException {
+        Path source = temp.resolve("phases");
+        Files.createDirectories(source.resolve("phase6/passoff/server"));
+        Files.writeString(source.resolve("phase6/passoff/server/TestFactory.java"), "original");
+        Files.writeString(source.resolve("phase6/passoff/server/WebSocketTests.java"), "tests");
+
+        Path destination = temp.resolve("stage/phases");
+        FileUtils.linkDirectory(source.toFile(), destination.toFile(),
+                Set.of(Path.of("phase6/passoff/server/TestFactory.java")));
+
+        Path linked = destination.resolve("phase6/passoff/server/WebSocketTests.java");
+        assertEquals("tests", Files.readString(linked));
+        assertTrue(Files.isSameFile(source.resolve("phase6/passoff/server/WebSocketTests.java"), linked));
+
+        Path copied = destination.resolve("phase6/passoff/server/TestFactory.java");
+        Files.writeString(copied, "modified");
+        assertEquals("original", Files.readString(source.resolve("phase6/passoff/server/TestFactory.java")));
+
+        FileUtils.removeDirectory(destination.toFile());
+        assertEquals("tests", Files.readString(source.resolve("phase6/passoff/server/WebSocketTests.java")));
+    }
+}
@@ -1,6 +1,11 @@
 package edu.byu.cs.util;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -137,4 +142,46 @@ class ProcessUtilsTest {
         assertEquals("", processOutput.stdErr());
         assertEquals(1, processOutput.statusCode());
     }
+
+    @Test
+    void killProcessesIn__killsProcessesInDirectory() throws Exception {
+        File directory = new File(".").getCanonicalFile();
+        ProcessBuilder processBuilder = new ProcessBuilder("sleep", "30").directory(directory);
+        long timeout = 20000;
+
+        CompletableFuture<ProcessUtils.ProcessOutput> processOutput = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ProcessUtils.runProcess(processBuilder, null, timeout);
+            } catch (ProcessUtils.ProcessException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        Thread.sleep(500);
+        ProcessUtils.killProcessesIn(directory);
+
+        assertNotEquals(0, processOutput.get(5, TimeUnit.SECONDS).statusCode());
+    }
+
+    @Test
+    void runProcess__lowPriorityDirectory__nicesProcess(@TempDir File directory) throws ProcessUtils.ProcessException {
+        File nested = new File(directory, "repo");
+        assertTrue(nested.mkdir());
+        int normal = niceness(nested);
+
+        ProcessUtils.lowerPriorityIn(directory);
+        try {
+            assertEquals(Math.min(normal + 10, 19), niceness(nested));
+            assertEquals(normal, niceness(directory.getParentFile()));
+        } finally {
+            ProcessUtils.restorePriorityIn(directory);
+        }
+
+        assertEquals(normal, niceness(nested));
+    }
+
+    private static int niceness(File directory) throws ProcessUtils.ProcessException {
+        ProcessBuilder processBuilder = new ProcessBuilder("nice").directory(directory);
+        return Integer.parseInt(ProcessUtils.runProcess(processBuilder, 1000).stdOut().trim());
+    }
 }
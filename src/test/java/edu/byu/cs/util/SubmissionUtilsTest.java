@@ -0,0 +1,92 @@
+package edu.byu.cs.util;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionUtilsTest {
+
+    private static final Instant NOW = Instant.parse("2024-09-01T12:00:00Z");
+
+    @TempDir
+    Path temp;
+
+    private String remoteUrl;
+    private Git student;
+
+    @BeforeEach
+    void setUp() throws GitAPIException {
+        SubmissionUtils.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        Path remote = temp.resolve("remote.git");
+        Git.init().setBare(true).setDirectory(remote.toFile()).call().close();
+        remoteUrl = remote.toUri().toString();
+        student = Git.cloneRepository().setURI(remoteUrl).setDirectory(temp.resolve("student").toFile()).call();
+    }
+
+    @AfterEach
+    void tearDown() {
+        student.close();
+        SubmissionUtils.setClock(Clock.systemUTC());
+    }
+
+    @Test
+    void getRemoteHeadHash__pushWithinTtl__looksUpPush() throws IOException, GitAPIException, DataAccessException {
+        String first = push("Change 1");
+        assertEquals(first, SubmissionUtils.getRemoteHeadHash(remoteUrl));
+        assertEquals(first, SubmissionUtils.getRecentRemoteHeadHash(remoteUrl));
+
+        String second = push("Change 2");
+        SubmissionUtils.setClock(Clock.fixed(NOW.plusSeconds(4), ZoneOffset.UTC));
+
+        // A resubmit right after pushing must grade the new commit, not the one looked up before
+        assertEquals(second, SubmissionUtils.getRemoteHeadHash(remoteUrl));
+        assertEquals(second, SubmissionUtils.getRecentRemoteHeadHash(remoteUrl));
+    }
+
+    @Test
+    void getRemoteHeadHash__afterTtl__looksUpPush() throws IOException, GitAPIException, DataAccessException {
+        String first = push("Change 1");
+        assertEquals(first, SubmissionUtils.getRemoteHeadHash(remoteUrl));
+
+        String second = push("Change 2");
+        SubmissionUtils.setClock(Clock.fixed(NOW.plusSeconds(6), ZoneOffset.UTC));
+
+        assertNull(SubmissionUtils.getRecentRemoteHeadHash(remoteUrl));
+        assertEquals(second, SubmissionUtils.getRemoteHeadHash(remoteUrl));
+        assertEquals(second, SubmissionUtils.getRecentRemoteHeadHash(remoteUrl));
+    }
+
+    @Test
+    void getRemoteHeadHash__unreachableRemote__throws() {
+        String missingUrl = temp.resolve("missing.git").toUri().toString();
+
+        assertThrows(DataAccessException.class, () -> SubmissionUtils.getRemoteHeadHash(missingUrl));
+        assertNull(SubmissionUtils.getRecentRemoteHeadHash(missingUrl));
+    }
+
+    /**
+     * Commits a change in the student's clone and pushes it to the remote
+     *
+     * @return the hash of the pushed commit
+     */
+    private String push(String change) throws IOException, GitAPIException {
+        Files.writeString(student.getRepository().getWorkTree().toPath().resolve("file.txt"), change);
+        student.add().addFilepattern("file.txt").call();
+        String hash = student.commit().setMessage(change).setSign(false).call().getName();
+        student.push().call();
+        return hash;
+    }
+}